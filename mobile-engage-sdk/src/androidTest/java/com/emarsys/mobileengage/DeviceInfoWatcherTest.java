@@ -0,0 +1,87 @@
+package com.emarsys.mobileengage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.core.DeviceInfo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class DeviceInfoWatcherTest {
+
+    private Context context;
+    private Handler handler;
+    private DeviceInfoWatcher watcher;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        context = mock(Context.class);
+        when(context.getApplicationContext()).thenReturn(context);
+        handler = mock(Handler.class);
+        watcher = new DeviceInfoWatcher(context, handler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_contextMustNotBeNull() {
+        new DeviceInfoWatcher(null, handler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_coreSdkHandlerMustNotBeNull() {
+        new DeviceInfoWatcher(context, null);
+    }
+
+    @Test
+    public void testRegister_registersOnCoreSdkHandlerOnlyOnce() {
+        watcher.register();
+        watcher.register();
+
+        verify(context, times(1)).registerReceiver(eq(watcher), any(IntentFilter.class), (String) isNull(), eq(handler));
+    }
+
+    @Test
+    public void testUnregister_unregistersOnlyWhenRegistered() {
+        watcher.unregister();
+        watcher.register();
+        watcher.unregister();
+        watcher.unregister();
+
+        verify(context, times(1)).unregisterReceiver(any(BroadcastReceiver.class));
+    }
+
+    @Test
+    public void testOnReceive_publishesFreshDeviceInfo() {
+        Context targetContext = InstrumentationRegistry.getTargetContext();
+        DeviceInfo before = SessionState.obtainDeviceInfo(targetContext);
+        watcher = new DeviceInfoWatcher(targetContext, handler);
+
+        watcher.onReceive(targetContext, new Intent(Intent.ACTION_LOCALE_CHANGED));
+
+        DeviceInfo after = SessionState.current().getDeviceInfo();
+        assertNotNull(after);
+        assertNotSame(before, after);
+    }
+}
@@ -0,0 +1,129 @@
+package com.emarsys.mobileengage;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.core.CoreCompletionHandler;
+import com.emarsys.core.response.ResponseModel;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.Executor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class MobileEngageCoreCompletionHandlerTest {
+
+    private MobileEngageStatusListener statusListener;
+    private Executor callbackExecutor;
+    private ResponseModel responseModel;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        statusListener = mock(MobileEngageStatusListener.class);
+        callbackExecutor = mock(Executor.class);
+        responseModel = new ResponseModel.Builder().statusCode(200).message("OK").build();
+    }
+
+    @Test
+    public void testOnSuccess_notifiesListenerDirectly_withoutExecutor() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener);
+
+        handler.onSuccess("id", responseModel);
+
+        verify(statusListener).onStatusLog("id", "OK");
+    }
+
+    @Test
+    public void testOnSuccess_notifiesListenerOnCallbackExecutor() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener, callbackExecutor);
+
+        handler.onSuccess("id", responseModel);
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(callbackExecutor).execute(captor.capture());
+        verify(statusListener, never()).onStatusLog(anyString(), anyString());
+
+        captor.getValue().run();
+
+        verify(statusListener).onStatusLog("id", "OK");
+    }
+
+    @Test
+    public void testOnError_notifiesListenerOnCallbackExecutor() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener, callbackExecutor);
+        Exception cause = new Exception();
+
+        handler.onError("id", cause);
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(callbackExecutor).execute(captor.capture());
+        verify(statusListener, never()).onError(anyString(), any(Exception.class));
+
+        captor.getValue().run();
+
+        verify(statusListener).onError("id", cause);
+    }
+
+    @Test
+    public void testSetCallbackExecutor_switchesToDirectNotification() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener, callbackExecutor);
+
+        handler.setCallbackExecutor(null);
+        handler.onSuccess("id", responseModel);
+
+        verify(callbackExecutor, never()).execute(any(Runnable.class));
+        verify(statusListener).onStatusLog("id", "OK");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterRequestListener_requestIdMustNotBeNull() {
+        new MobileEngageCoreCompletionHandler(statusListener).registerRequestListener(null, mock(CoreCompletionHandler.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegisterRequestListener_listenerMustNotBeNull() {
+        new MobileEngageCoreCompletionHandler(statusListener).registerRequestListener("id", null);
+    }
+
+    @Test
+    public void testOnSuccess_notifiesRequestListenerOnce() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener);
+        CoreCompletionHandler requestListener = mock(CoreCompletionHandler.class);
+        handler.registerRequestListener("id", requestListener);
+
+        handler.onSuccess("id", responseModel);
+        handler.onSuccess("id", responseModel);
+
+        verify(requestListener).onSuccess("id", responseModel);
+        verify(statusListener, times(2)).onStatusLog("id", "OK");
+    }
+
+    @Test
+    public void testOnError_notifiesRequestListener_onlyForItsRequestId() {
+        MobileEngageCoreCompletionHandler handler = new MobileEngageCoreCompletionHandler(statusListener);
+        CoreCompletionHandler requestListener = mock(CoreCompletionHandler.class);
+        Exception cause = new Exception();
+        handler.registerRequestListener("id", requestListener);
+
+        handler.onError("otherId", cause);
+        handler.onError("id", cause);
+
+        verify(requestListener, never()).onError(eq("otherId"), any(Exception.class));
+        verify(requestListener).onError("id", cause);
+    }
+}
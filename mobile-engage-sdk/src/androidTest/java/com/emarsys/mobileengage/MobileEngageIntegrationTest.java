@@ -58,6 +58,7 @@ public class MobileEngageIntegrationTest {
                 .disableDefaultChannel()
                 .build();
         MobileEngage.setup(config);
+        WarmUpTestUtils.awaitWarmUp();
         SqliteQueue queue = new SqliteQueue(context);
         queue.setHelper(new TestDbHelper(context));
 
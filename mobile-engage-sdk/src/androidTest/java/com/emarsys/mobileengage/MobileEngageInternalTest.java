@@ -55,6 +55,7 @@ public class MobileEngageInternalTest {
 
     @Before
     public void init() {
+        SessionState.reset();
         manager = mock(RequestManager.class);
         coreCompletionHandler = mock(MobileEngageCoreCompletionHandler.class);
         application = (Application) InstrumentationRegistry.getTargetContext().getApplicationContext();
@@ -147,7 +148,7 @@ public class MobileEngageInternalTest {
 
         ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
 
-        mobileEngage.setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
+        SessionState.updateAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
         mobileEngage.appLogin(contactFieldId, contactFieldValue);
 
         verify(manager).setDefaultHeaders(defaultHeaders);
@@ -240,7 +241,7 @@ public class MobileEngageInternalTest {
     public void testCustomEvent_containsCredentials_fromApploginParameters() {
         int contactFieldId = 3;
         String contactFieldValue = "test@test.com";
-        mobileEngage.setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
+        SessionState.updateAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
         ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
 
         mobileEngage.trackCustomEvent("customEvent", null);
@@ -293,7 +294,7 @@ public class MobileEngageInternalTest {
         Intent intent = getTestIntent();
         int contactFieldId = 3;
         String contactFieldValue = "test@test.com";
-        mobileEngage.setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
+        SessionState.updateAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
         ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
 
         mobileEngage.trackMessageOpen(intent);
@@ -318,11 +319,56 @@ public class MobileEngageInternalTest {
         assertEquals("+43c_lODSmXqCvdOz", result);
     }
 
+    @Test
+    public void testGetMessageId_shouldPreferSidParsedByPushEnvelope() {
+        Intent intent = new Intent();
+        Bundle bundlePayload = new Bundle();
+        bundlePayload.putString(PushEnvelope.KEY_SID, "parsedSid");
+        bundlePayload.putString("u", "invalid json");
+        intent.putExtra("payload", bundlePayload);
+
+        assertEquals("parsedSid", mobileEngage.getMessageId(intent));
+    }
+
+    @Test
+    public void testGetMessageId_shouldResolveOpenToken() {
+        Map<String, String> data = new HashMap<>();
+        data.put("u", "{\"sid\":\"tokenSid\"}");
+        mobileEngage.notificationCache.cachePayload("ems_token", PushEnvelope.fromRemoteMessageData(data));
+
+        Intent intent = new Intent();
+        intent.putExtra(PushEnvelope.EXTRA_OPEN_TOKEN, "ems_token");
+
+        assertEquals("tokenSid", mobileEngage.getMessageId(intent));
+    }
+
+    @Test
+    public void testGetMessageId_withUnknownOpenToken() {
+        Intent intent = new Intent();
+        intent.putExtra(PushEnvelope.EXTRA_OPEN_TOKEN, "ems_unknown");
+
+        assertNull(mobileEngage.getMessageId(intent));
+    }
+
+    @Test
+    public void testGetPushEnvelope_fromLegacyPayload() {
+        Intent intent = getTestIntent();
+
+        PushEnvelope result = mobileEngage.getPushEnvelope(intent);
+
+        assertEquals("+43c_lODSmXqCvdOz", result.getSid());
+    }
+
+    @Test
+    public void testGetPushEnvelope_withEmptyIntent() {
+        assertNull(mobileEngage.getPushEnvelope(new Intent()));
+    }
+
     @Test
     public void testSetPushToken_whenApploginParameters_isEmpty() {
         MobileEngageInternal spy = spy(mobileEngage);
 
-        spy.setAppLoginParameters(new AppLoginParameters());
+        SessionState.updateAppLoginParameters(new AppLoginParameters());
         spy.setPushToken("123456789");
 
         verify(spy, times(1)).appLogin();
@@ -334,7 +380,7 @@ public class MobileEngageInternalTest {
         String contactFieldValue = "asdf";
         MobileEngageInternal spy = spy(mobileEngage);
 
-        spy.setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
+        SessionState.updateAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
         spy.setPushToken("123456789");
 
         verify(spy, times(1)).appLogin(contactFieldId, contactFieldValue);
@@ -344,7 +390,7 @@ public class MobileEngageInternalTest {
     public void testSetPushToken_doesNotCallAppLogins_whenApploginParameters_isNull() {
         MobileEngageInternal spy = spy(mobileEngage);
 
-        spy.setAppLoginParameters(null);
+        SessionState.updateAppLoginParameters(null);
         spy.setPushToken("123456789");
 
         verify(spy, times(0)).appLogin();
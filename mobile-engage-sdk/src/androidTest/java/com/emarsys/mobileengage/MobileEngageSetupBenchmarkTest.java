@@ -0,0 +1,92 @@
+package com.emarsys.mobileengage;
+
+import android.app.Application;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.emarsys.core.request.RequestManager;
+import com.emarsys.mobileengage.config.MobileEngageConfig;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import static junit.framework.Assert.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+@RunWith(AndroidJUnit4.class)
+public class MobileEngageSetupBenchmarkTest {
+
+    private static final String TAG = "MobileEngageSetupBench";
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private MobileEngageConfig deferredConfig;
+    private MobileEngageConfig inlineConfig;
+    private RequestManager originalRequestManager;
+
+    @Before
+    public void init() {
+        deferredConfig = new MobileEngageConfig.Builder()
+                .application((Application) InstrumentationRegistry.getTargetContext().getApplicationContext())
+                .credentials("56789876", "secret")
+                .disableDefaultChannel()
+                .build();
+        inlineConfig = new MobileEngageConfig.Builder()
+                .from(deferredConfig)
+                .credentials("98765678", "secret")
+                .build();
+
+        WarmUpTestUtils.awaitWarmUp();
+        originalRequestManager = MobileEngage.requestManager;
+        MobileEngage.requestManager = mock(RequestManager.class);
+    }
+
+    @After
+    public void tearDown() {
+        WarmUpTestUtils.awaitWarmUp();
+        MobileEngage.requestManager = originalRequestManager;
+    }
+
+    @Test
+    public void benchmarkSetup_withFirstCall() {
+        long deferredTime = 0;
+        long readyTime = 0;
+        long inlineTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            WarmUpTestUtils.awaitWarmUp();
+            long start = System.nanoTime();
+            MobileEngage.setup(deferredConfig);
+            String deferredId = MobileEngage.appLogin();
+            long deferredElapsed = System.nanoTime() - start;
+            WarmUpTestUtils.awaitWarmUp();
+            long readyElapsed = System.nanoTime() - start;
+
+            long inlineStart = System.nanoTime();
+            MobileEngage.setup(inlineConfig);
+            WarmUpTestUtils.awaitWarmUp();
+            String inlineId = MobileEngage.appLogin();
+            long inlineElapsed = System.nanoTime() - inlineStart;
+
+            assertNotNull(deferredId);
+            assertNotNull(inlineId);
+            if (i > 0) {
+                deferredTime += deferredElapsed;
+                readyTime += readyElapsed;
+                inlineTime += inlineElapsed;
+            }
+        }
+
+        Log.i(TAG, String.format("setup and first call: %d us, until warm-up finished: %d us, setup with awaited warm-up and first call: %d us",
+                deferredTime / ITERATIONS / 1000,
+                readyTime / ITERATIONS / 1000,
+                inlineTime / ITERATIONS / 1000));
+    }
+}
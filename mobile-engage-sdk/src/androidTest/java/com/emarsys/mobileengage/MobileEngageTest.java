@@ -2,17 +2,25 @@ package com.emarsys.mobileengage;
 
 import android.app.Application;
 import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.emarsys.core.concurrency.CoreSdkHandlerProvider;
 import com.emarsys.core.request.RequestManager;
+import com.emarsys.core.request.RequestModel;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
 import com.emarsys.mobileengage.fake.FakeRequestManager;
 import com.emarsys.mobileengage.fake.FakeStatusListener;
 import com.emarsys.mobileengage.inbox.InboxInternal;
+import com.emarsys.mobileengage.inbox.InboxPrefetcher;
 import com.emarsys.mobileengage.inbox.InboxResultListener;
 import com.emarsys.mobileengage.inbox.ResetBadgeCountResultListener;
 import com.emarsys.mobileengage.inbox.model.Notification;
+import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+import com.emarsys.mobileengage.util.RequestUtils;
 
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -21,6 +29,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -29,9 +38,17 @@ import java.util.concurrent.CountDownLatch;
 
 import static com.emarsys.mobileengage.fake.FakeRequestManager.ResponseType.SUCCESS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 @RunWith(AndroidJUnit4.class)
@@ -42,6 +59,7 @@ public class MobileEngageTest {
     private MobileEngageCoreCompletionHandler coreCompletionHandler;
     private MobileEngageInternal mobileEngageInternal;
     private InboxInternal inboxInternal;
+    private InboxPrefetcher inboxPrefetcher;
     private Application application;
     private MobileEngageConfig baseConfig;
 
@@ -54,28 +72,75 @@ public class MobileEngageTest {
         coreCompletionHandler = mock(MobileEngageCoreCompletionHandler.class);
         mobileEngageInternal = mock(MobileEngageInternal.class);
         inboxInternal = mock(InboxInternal.class);
+        inboxPrefetcher = mock(InboxPrefetcher.class);
         baseConfig = new MobileEngageConfig.Builder()
                 .application(application)
                 .credentials(appID, appSecret)
                 .disableDefaultChannel()
                 .build();
         MobileEngage.inboxInstance = inboxInternal;
+        MobileEngage.inboxPrefetcher = inboxPrefetcher;
         MobileEngage.instance = mobileEngageInternal;
         MobileEngage.completionHandler = coreCompletionHandler;
+        MobileEngage.warmUp = null;
+        MobileEngage.config = baseConfig;
+        SessionState.reset();
     }
 
     @Test
     public void testSetup_initializesMobileEngageInstance() {
         MobileEngage.instance = null;
         MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
 
         assertNotNull(MobileEngage.instance);
     }
 
+    @Test
+    public void testSetup_registersMemoryTrimmer() {
+        MobileEngage.memoryTrimmer = null;
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+
+        assertNotNull(MobileEngage.getMemoryTrimmer());
+        assertEquals(3, MobileEngage.getMemoryTrimmer().getEstimatedSizesInBytes().size());
+    }
+
+    @Test
+    public void testSetup_registersMessageOpenTracker() {
+        MobileEngage.messageOpenTracker = null;
+        MobileEngage.setup(baseConfig);
+
+        assertNotNull(MobileEngage.getMessageOpenTracker());
+    }
+
+    @Test
+    public void testSetup_createsNotificationStore_beforeWarmUp() throws InterruptedException {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        final CountDownLatch release = new CountDownLatch(1);
+        MobileEngage.coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        MobileEngage.notificationStore = null;
+
+        MobileEngage.setup(new MobileEngageConfig.Builder().from(baseConfig).imageLoadingTimeout(1234).build());
+
+        assertNotNull(MobileEngage.notificationStore);
+        release.countDown();
+    }
+
     @Test
     public void testSetup_initializesInboxInstance() {
         MobileEngage.inboxInstance = null;
         MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
 
         assertNotNull(MobileEngage.inboxInstance);
     }
@@ -107,6 +172,190 @@ public class MobileEngageTest {
         assertNotNull(MobileEngageUtils.getIdlingResource());
     }
 
+    @Test
+    public void testSetup_defersInitializationToWarmUp() {
+        MobileEngage.instance = null;
+        MobileEngage.setup(baseConfig);
+
+        assertNotNull(MobileEngage.warmUp);
+        WarmUpTestUtils.awaitWarmUp();
+        assertNotNull(MobileEngage.instance);
+    }
+
+    @Test
+    public void testSetup_withSameConfig_isIdempotent() {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        WarmUp warmUp = MobileEngage.warmUp;
+        MobileEngageInternal internal = MobileEngage.instance;
+
+        MobileEngage.setup(baseConfig);
+
+        assertSame(warmUp, MobileEngage.warmUp);
+        assertSame(internal, MobileEngage.instance);
+    }
+
+    @Test
+    public void testSetup_withDifferentConfig_reusesThreadAndDatabases() {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        Handler handler = MobileEngage.coreSdkHandler;
+        RequestManager requestManager = MobileEngage.requestManager;
+        MobileEngageInternal internal = MobileEngage.instance;
+
+        MobileEngage.setup(new MobileEngageConfig.Builder()
+                .from(baseConfig)
+                .imageLoadingTimeout(1234)
+                .build());
+        WarmUpTestUtils.awaitWarmUp();
+
+        assertSame(handler, MobileEngage.coreSdkHandler);
+        assertSame(requestManager, MobileEngage.requestManager);
+        assertNotSame(internal, MobileEngage.instance);
+    }
+
+    @Test
+    public void testShutdown_releasesResources() {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+
+        assertTrue(MobileEngage.shutdown());
+
+        assertNull(MobileEngage.warmUp);
+        assertNull(MobileEngage.instance);
+        assertNull(MobileEngage.inboxInstance);
+        assertNull(MobileEngage.coreSdkHandler);
+        assertNull(MobileEngage.requestManager);
+        assertNull(MobileEngage.notificationStore);
+        assertNull(MobileEngage.getConfig());
+    }
+
+    @Test
+    public void testShutdown_resetsSessionState() {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
+
+        MobileEngage.shutdown();
+
+        assertEquals(SessionState.EMPTY, SessionState.current());
+    }
+
+    @Test
+    public void testShutdown_withoutSetup_succeeds() {
+        MobileEngage.shutdown();
+
+        assertTrue(MobileEngage.shutdown());
+    }
+
+    @Test
+    public void testShutdown_returnsFalse_whenHandlerIsNotDrainedInTime() throws InterruptedException {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        final CountDownLatch release = new CountDownLatch(1);
+        MobileEngage.coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+
+        boolean drained = MobileEngage.shutdown(100);
+        release.countDown();
+
+        assertFalse(drained);
+        assertNull(MobileEngage.instance);
+    }
+
+    @Test
+    public void testSetup_afterShutdown_initializesAgain() {
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+        MobileEngage.shutdown();
+
+        MobileEngage.setup(baseConfig);
+        WarmUpTestUtils.awaitWarmUp();
+
+        assertNotNull(MobileEngage.instance);
+        assertNotNull(MobileEngage.coreSdkHandler);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInbox_callsAreBuffered_untilWarmUpFinishes() {
+        WarmUp pending = createPendingWarmUp();
+        MobileEngage.warmUp = pending;
+        InboxResultListener<NotificationInboxStatus> listener = mock(InboxResultListener.class);
+
+        MobileEngage.Inbox.fetchNotifications(listener);
+        MobileEngage.Inbox.resetBadgeCount();
+
+        verify(inboxInternal, never()).fetchNotifications(listener);
+
+        pending.run();
+
+        verify(inboxInternal).fetchNotifications(listener);
+        verify(inboxInternal).resetBadgeCount(null);
+    }
+
+    @Test
+    public void testSetPushToken_isBuffered_untilWarmUpFinishes() {
+        WarmUp pending = createPendingWarmUp();
+        MobileEngage.warmUp = pending;
+
+        MobileEngage.setPushToken("pushtoken");
+        verify(mobileEngageInternal, never()).setPushToken("pushtoken");
+
+        pending.run();
+        verify(mobileEngageInternal).setPushToken("pushtoken");
+    }
+
+    @Test
+    public void testAppLogin_returnsRequestId_beforeWarmUpFinishes() {
+        WarmUp pending = createPendingWarmUp();
+        MobileEngage.warmUp = pending;
+
+        String requestId = MobileEngage.appLogin();
+
+        assertNotNull(requestId);
+        verify(mobileEngageInternal, never()).submit(any(RequestModel.class));
+
+        pending.run();
+
+        assertEquals(requestId, lastSubmittedRequest().getId());
+    }
+
+    @Test
+    public void testAppLogin_usesSessionStateAtCallTime() {
+        WarmUp pending = createPendingWarmUp();
+        MobileEngage.warmUp = pending;
+
+        MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
+        MobileEngage.appLogout();
+        pending.run();
+
+        ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mobileEngageInternal, times(2)).submit(captor.capture());
+        assertEquals("CONTACT_FIELD_VALUE", captor.getAllValues().get(0).getPayload().get("contact_field_value"));
+        assertEquals(RequestUtils.ENDPOINT_LOGOUT, captor.getAllValues().get(1).getUrl());
+    }
+
+    @Test
+    public void testAppLogin_includesPushToken_obtainedDuringWarmUp() {
+        WarmUp pending = createPendingWarmUp();
+        MobileEngage.warmUp = pending;
+
+        MobileEngage.appLogin();
+        SessionState.updatePushToken("pushtoken");
+        pending.run();
+
+        assertEquals("pushtoken", lastSubmittedRequest().getPayload().get("push_token"));
+        verify(mobileEngageInternal, times(1)).submit(any(RequestModel.class));
+    }
+
     @Test
     public void testSetPushToken_callsInternal() {
         String pushtoken = "pushtoken";
@@ -149,78 +398,137 @@ public class MobileEngageTest {
     }
 
     @Test
-    public void testAppLogin_anonymous_callsInternalMobileEngage() {
-        MobileEngage.appLogin();
-        verify(mobileEngageInternal).appLogin();
+    public void testAppLogin_anonymous_submitsLoginRequest() {
+        String requestId = MobileEngage.appLogin();
+
+        RequestModel model = lastSubmittedRequest();
+        assertEquals(RequestUtils.ENDPOINT_LOGIN, model.getUrl());
+        assertEquals(requestId, model.getId());
     }
 
     @Test
-    public void testAppLogin_anonymous_callsSetAppLoginParameters_onInternalInbox() {
+    public void testAppLogin_anonymous_notifiesInternalInbox() {
         MobileEngage.appLogin();
-        verify(inboxInternal).setAppLoginParameters(new AppLoginParameters());
+        verify(inboxInternal).onAppLoginParametersChanged(null, new AppLoginParameters());
     }
 
     @Test
-    public void testAppLogin_anonymous_callsSetAppLoginParameters_onInternalMobileEngage() {
+    public void testAppLogin_anonymous_publishesSessionState() {
         MobileEngage.appLogin();
-        verify(mobileEngageInternal).setAppLoginParameters(new AppLoginParameters());
+        assertEquals(new AppLoginParameters(), SessionState.current().getAppLoginParameters());
     }
 
     @Test
-    public void testAppLogin_withUser_callsInternalMobileEngage() {
-        MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
-        verify(mobileEngageInternal).appLogin(4, "CONTACT_FIELD_VALUE");
+    public void testAppLogin_withUser_submitsLoginRequest() {
+        String requestId = MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
+
+        RequestModel model = lastSubmittedRequest();
+        assertEquals(RequestUtils.ENDPOINT_LOGIN, model.getUrl());
+        assertEquals(4, model.getPayload().get("contact_field_id"));
+        assertEquals("CONTACT_FIELD_VALUE", model.getPayload().get("contact_field_value"));
+        assertEquals(requestId, model.getId());
     }
 
     @Test
-    public void testAppLogin_withUser_callsSetAppLoginParameters_onInternalInbox() {
+    public void testAppLogin_withUser_notifiesInternalInbox() {
+        MobileEngage.appLogin();
         MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
-        verify(inboxInternal).setAppLoginParameters(new AppLoginParameters(4, "CONTACT_FIELD_VALUE"));
+        verify(inboxInternal).onAppLoginParametersChanged(new AppLoginParameters(), new AppLoginParameters(4, "CONTACT_FIELD_VALUE"));
     }
 
     @Test
-    public void testAppLogin_withUser_callsSetAppLoginParameters_onInternalMobileEngage() {
+    public void testAppLogin_withUser_publishesSessionState() {
         MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
-        verify(mobileEngageInternal).setAppLoginParameters(new AppLoginParameters(4, "CONTACT_FIELD_VALUE"));
+        assertEquals(new AppLoginParameters(4, "CONTACT_FIELD_VALUE"), SessionState.current().getAppLoginParameters());
     }
 
     @Test
-    public void testAppLogout_callsInternalMobileEngage() {
-        MobileEngage.appLogout();
-        verify(mobileEngageInternal).appLogout();
+    public void testAppLogout_submitsLogoutRequest() {
+        String requestId = MobileEngage.appLogout();
+
+        RequestModel model = lastSubmittedRequest();
+        assertEquals(RequestUtils.ENDPOINT_LOGOUT, model.getUrl());
+        assertEquals(requestId, model.getId());
     }
 
     @Test
-    public void testAppLogout_callsSetAppLoginParameters_onInternalInbox() {
+    public void testAppLogout_notifiesInternalInbox() {
+        MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
         MobileEngage.appLogout();
-        verify(inboxInternal).setAppLoginParameters(null);
+        verify(inboxInternal).onAppLoginParametersChanged(new AppLoginParameters(4, "CONTACT_FIELD_VALUE"), null);
     }
 
     @Test
-    public void testAppLogout_callsSetAppLoginParameters_onInternalMobileEngage() {
+    public void testAppLogout_clearsSessionState() {
+        MobileEngage.appLogin(4, "CONTACT_FIELD_VALUE");
         MobileEngage.appLogout();
-        verify(mobileEngageInternal).setAppLoginParameters(null);
+        assertNull(SessionState.current().getAppLoginParameters());
+    }
+
+    @Test
+    public void testTrackCustomEvent_submitsEventRequest() throws Exception {
+        Map<String, String> attributes = new HashMap<>();
+        attributes.put("key", "value");
+
+        String requestId = MobileEngage.trackCustomEvent("event", attributes);
+
+        RequestModel model = lastSubmittedRequest();
+        assertEquals(RequestUtils.createEventUrl("event"), model.getUrl());
+        assertEquals(attributes, model.getPayload().get("attributes"));
+        assertEquals(requestId, model.getId());
     }
 
     @Test
-    public void testTrackCustomEvent_callsInternal() throws Exception {
-        Map<String, String> attributes = mock(Map.class);
-        MobileEngage.trackCustomEvent("event", attributes);
-        verify(mobileEngageInternal).trackCustomEvent("event", attributes);
+    public void testTrackMessageOpen_intent_submitsMessageOpenRequest() {
+        Intent intent = new Intent();
+        Bundle payload = new Bundle();
+        payload.putString("sid", "sid_value");
+        intent.putExtra("payload", payload);
+        MobileEngage.coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+
+        String requestId = MobileEngage.trackMessageOpen(intent);
+
+        ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mobileEngageInternal, timeout(1000)).submit(captor.capture());
+        RequestModel model = captor.getValue();
+        assertEquals(RequestUtils.createEventUrl("message_open"), model.getUrl());
+        assertEquals("sid_value", model.getPayload().get("sid"));
+        assertEquals(requestId, model.getId());
     }
 
     @Test
-    public void testTrackMessageOpen_intent_callsInternal() {
-        Intent intent = mock(Intent.class);
-        MobileEngage.trackMessageOpen(intent);
-        verify(mobileEngageInternal).trackMessageOpen(intent);
+    public void testTrackMessageOpen_intent_reportsMissingMessageId() {
+        MobileEngage.coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+
+        String requestId = MobileEngage.trackMessageOpen(new Intent());
+
+        assertNotNull(requestId);
+        verify(mobileEngageInternal, timeout(1000)).reportMissingMessageId(requestId);
+        verify(mobileEngageInternal, never()).submit(any(RequestModel.class));
     }
 
     @Test
-    public void testTrackMessageOpen_message_callsInternal() throws JSONException {
+    public void testTrackMessageOpen_intent_isDropped_whenNotSetUp() {
+        MobileEngage.instance = null;
+        MobileEngage.coreSdkHandler = null;
+
+        assertNotNull(MobileEngage.trackMessageOpen(new Intent()));
+    }
+
+    @Test
+    public void testTrackMessageOpen_message_submitsMessageOpenRequest() throws JSONException {
+        RequestManager manager = mock(RequestManager.class);
+        MobileEngage.requestManager = manager;
         Notification message = new Notification("id", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 7200, new Date().getTime());
-        MobileEngage.Inbox.trackMessageOpen(message);
-        verify(inboxInternal).trackMessageOpen(message);
+
+        String requestId = MobileEngage.Inbox.trackMessageOpen(message);
+        MobileEngage.requestManager = null;
+
+        ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(manager).submit(captor.capture());
+        assertEquals("inbox", captor.getValue().getPayload().get("source"));
+        assertEquals("sid", captor.getValue().getPayload().get("sid"));
+        assertEquals(requestId, captor.getValue().getId());
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -243,6 +551,65 @@ public class MobileEngageTest {
         MobileEngage.trackMessageOpen(null);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testSync_whenEnvelopeIsNull() {
+        MobileEngage.Inbox.sync(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPushEnvelope_whenIntentIsNull() {
+        MobileEngage.getPushEnvelope(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPushEnvelope_async_whenIntentIsNull() {
+        MobileEngage.getPushEnvelope(null, mock(PushEnvelopeResultListener.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPushEnvelope_async_whenListenerIsNull() {
+        MobileEngage.getPushEnvelope(new Intent(), null);
+    }
+
+    @Test
+    public void testGetPushEnvelope_async_deliversEnvelopeOnMainThread() throws InterruptedException {
+        MobileEngage.coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+        Intent intent = new Intent();
+        Bundle payload = new Bundle();
+        payload.putString("title", "title");
+        payload.putString("body", "body");
+        intent.putExtra("payload", payload);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final PushEnvelope[] result = new PushEnvelope[1];
+        final boolean[] onMainThread = new boolean[1];
+
+        MobileEngage.getPushEnvelope(intent, new PushEnvelopeResultListener() {
+            @Override
+            public void onResult(PushEnvelope envelope) {
+                result[0] = envelope;
+                onMainThread[0] = Looper.myLooper() == Looper.getMainLooper();
+                latch.countDown();
+            }
+        });
+        latch.await();
+
+        assertNotNull(result[0]);
+        assertEquals("title", result[0].getTitle());
+        assertTrue(onMainThread[0]);
+    }
+
+    @Test
+    public void testGetPushEnvelope_async_isDropped_whenNotSetUp() {
+        MobileEngage.instance = null;
+        MobileEngage.config = null;
+        MobileEngage.coreSdkHandler = null;
+        PushEnvelopeResultListener listener = mock(PushEnvelopeResultListener.class);
+
+        MobileEngage.getPushEnvelope(new Intent(), listener);
+
+        verify(listener, never()).onResult(any(PushEnvelope.class));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testFetchNotifications_whenListenerIsNull() {
         MobileEngage.Inbox.fetchNotifications(null);
@@ -255,6 +622,53 @@ public class MobileEngageTest {
         verify(inboxInternal).fetchNotifications(inboxListenerMock);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchCachedNotifications_whenListenerIsNull() {
+        MobileEngage.Inbox.fetchCachedNotifications(null);
+    }
+
+    @Test
+    public void testFetchCachedNotifications_callsInternal() {
+        InboxResultListener inboxListenerMock = mock(InboxResultListener.class);
+        MobileEngage.Inbox.fetchCachedNotifications(inboxListenerMock);
+        verify(inboxInternal).fetchCachedNotifications(inboxListenerMock);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchBadgeCount_whenListenerIsNull() {
+        MobileEngage.Inbox.fetchBadgeCount(null);
+    }
+
+    @Test
+    public void testFetchBadgeCount_callsInternal() {
+        InboxResultListener inboxListenerMock = mock(InboxResultListener.class);
+        MobileEngage.Inbox.fetchBadgeCount(inboxListenerMock);
+        verify(inboxInternal).fetchBadgeCount(inboxListenerMock);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchImage_whenImageUrlIsNull() {
+        MobileEngage.Inbox.fetchImage(null, mock(InboxResultListener.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchImage_whenListenerIsNull() {
+        MobileEngage.Inbox.fetchImage("https://image.url", null);
+    }
+
+    @Test
+    public void testFetchImage_callsInternal() {
+        InboxResultListener inboxListenerMock = mock(InboxResultListener.class);
+        MobileEngage.Inbox.fetchImage("https://image.url", inboxListenerMock);
+        verify(inboxInternal).fetchImage("https://image.url", inboxListenerMock);
+    }
+
+    @Test
+    public void testPrefetchNotifications_callsPrefetcher() {
+        MobileEngage.Inbox.prefetchNotifications();
+        verify(inboxPrefetcher).prefetch();
+    }
+
     @Test
     public void testResetBadgeCount_callsInternal() {
         ResetBadgeCountResultListener listener = mock(ResetBadgeCountResultListener.class);
@@ -267,4 +681,18 @@ public class MobileEngageTest {
         MobileEngage.Inbox.resetBadgeCount();
         verify(inboxInternal).resetBadgeCount(null);
     }
-}
\ No newline at end of file
+
+    private RequestModel lastSubmittedRequest() {
+        ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mobileEngageInternal).submit(captor.capture());
+        return captor.getValue();
+    }
+
+    private WarmUp createPendingWarmUp() {
+        return new WarmUp() {
+            @Override
+            void initialize() {
+            }
+        };
+    }
+}
@@ -2,6 +2,7 @@ package com.emarsys.mobileengage;
 
 import android.app.Application;
 import android.support.test.InstrumentationRegistry;
+import android.support.test.espresso.IdlingResource;
 
 import com.emarsys.mobileengage.config.MobileEngageConfig;
 import com.emarsys.mobileengage.util.MobileEngageIdlingResource;
@@ -14,6 +15,7 @@ import org.junit.rules.Timeout;
 import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertNotNull;
 import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -69,6 +71,16 @@ public class MobileEngageUtilsTest {
         assertNotNull(MobileEngageUtils.getIdlingResource());
     }
 
+    @Test
+    public void testSetup_enabled_keepsExistingIdlingResource() {
+        MobileEngageUtils.setup(enabledConfig);
+        IdlingResource idlingResource = MobileEngageUtils.getIdlingResource();
+
+        MobileEngageUtils.setup(enabledConfig);
+
+        assertSame(idlingResource, MobileEngageUtils.getIdlingResource());
+    }
+
     @Test
     public void testIncrementIdlingResource_enabled(){
         MobileEngageUtils.setup(enabledConfig);
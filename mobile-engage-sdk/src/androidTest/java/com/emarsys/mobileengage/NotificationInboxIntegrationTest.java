@@ -59,6 +59,7 @@ public class NotificationInboxIntegrationTest {
                 .disableDefaultChannel()
                 .build();
         MobileEngage.setup(config);
+        WarmUpTestUtils.awaitWarmUp();
         SqliteQueue queue = new SqliteQueue(context);
         queue.setHelper(new TestDbHelper(context));
         Handler handler = new CoreSdkHandlerProvider().provideHandler();
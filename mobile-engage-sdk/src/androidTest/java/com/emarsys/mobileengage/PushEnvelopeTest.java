@@ -0,0 +1,148 @@
+package com.emarsys.mobileengage;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class PushEnvelopeTest {
+
+    private static final String CUSTOM_DATA = "{\"sid\":\"sid_here\",\"ems_default_title\":\"default title\"}";
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromRemoteMessageData_dataMustNotBeNull() {
+        PushEnvelope.fromRemoteMessageData(null);
+    }
+
+    @Test
+    public void testFromRemoteMessageData_parsesFields() {
+        Map<String, String> data = createData();
+
+        long before = System.currentTimeMillis();
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(data);
+        long after = System.currentTimeMillis();
+
+        assertEquals("id", result.getId());
+        assertEquals("sid_here", result.getSid());
+        assertEquals("title", result.getTitle());
+        assertEquals("body", result.getBody());
+        assertEquals("https://image.url", result.getImageUrl());
+        assertEquals("channelId", result.getChannelId());
+        assertEquals("collapseId", result.getCollapseId());
+        assertEquals(CUSTOM_DATA, result.getCustomData());
+        assertEquals("default title", result.getDefaultTitle());
+        assertTrue(result.isInbox());
+        assertTrue(before <= result.getReceivedAt() && result.getReceivedAt() <= after);
+        assertEquals(data, result.getData());
+    }
+
+    @Test
+    public void testFromRemoteMessageData_withoutOptionalFields() {
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(new HashMap<String, String>());
+
+        assertNull(result.getId());
+        assertNull(result.getSid());
+        assertNull(result.getDefaultTitle());
+        assertFalse(result.isInbox());
+    }
+
+    @Test
+    public void testFromRemoteMessageData_notSilent_byDefault() {
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(createData());
+
+        assertFalse(result.isSilent());
+        assertEquals(PushEnvelope.SYNC_REFRESH, result.getSyncAction());
+        assertNull(result.getBadgeCount());
+    }
+
+    @Test
+    public void testFromRemoteMessageData_parsesSilentSync() {
+        Map<String, String> data = new HashMap<>();
+        data.put(PushEnvelope.KEY_SILENT, "true");
+        data.put(PushEnvelope.KEY_SYNC, PushEnvelope.SYNC_BADGE);
+        data.put(PushEnvelope.KEY_BADGE_COUNT, "3");
+
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(data);
+
+        assertTrue(result.isSilent());
+        assertEquals(PushEnvelope.SYNC_BADGE, result.getSyncAction());
+        assertEquals(Integer.valueOf(3), result.getBadgeCount());
+    }
+
+    @Test
+    public void testFromRemoteMessageData_withInvalidBadgeCount() {
+        Map<String, String> data = new HashMap<>();
+        data.put(PushEnvelope.KEY_BADGE_COUNT, "many");
+
+        assertNull(PushEnvelope.fromRemoteMessageData(data).getBadgeCount());
+    }
+
+    @Test
+    public void testFromRemoteMessageData_withInvalidCustomData() {
+        Map<String, String> data = new HashMap<>();
+        data.put("u", "not json");
+
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(data);
+
+        assertNull(result.getSid());
+        assertEquals("not json", result.getCustomData());
+    }
+
+    @Test
+    public void testFromStoredData_keepsReceivedAt() {
+        PushEnvelope result = PushEnvelope.fromStoredData(createData(), 1234);
+
+        assertEquals(1234, result.getReceivedAt());
+        assertEquals("sid_here", result.getSid());
+        assertEquals(PushEnvelope.fromStoredData(createData(), 1234), result);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromStoredData_dataMustNotBeNull() {
+        PushEnvelope.fromStoredData(null, 0);
+    }
+
+    @Test
+    public void testFromRemoteMessageData_isNotAffectedByLaterChanges() {
+        Map<String, String> data = createData();
+        PushEnvelope result = PushEnvelope.fromRemoteMessageData(data);
+
+        data.put("title", "changed");
+
+        assertEquals("title", result.getTitle());
+        assertEquals("title", result.getData().get("title"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetData_isImmutable() {
+        PushEnvelope.fromRemoteMessageData(createData()).getData().put("key", "value");
+    }
+
+    private static Map<String, String> createData() {
+        Map<String, String> data = new HashMap<>();
+        data.put("ems_msg", "true");
+        data.put("inbox", "true");
+        data.put("id", "id");
+        data.put("title", "title");
+        data.put("body", "body");
+        data.put("image_url", "https://image.url");
+        data.put("channel_id", "channelId");
+        data.put("collapse_id", "collapseId");
+        data.put("u", CUSTOM_DATA);
+        return data;
+    }
+}
@@ -0,0 +1,150 @@
+package com.emarsys.mobileengage;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.core.DeviceInfo;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class SessionStateTest {
+
+    private DeviceInfo deviceInfo;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        SessionState.reset();
+        deviceInfo = new DeviceInfo(InstrumentationRegistry.getTargetContext());
+    }
+
+    @After
+    public void tearDown() {
+        SessionState.reset();
+    }
+
+    @Test
+    public void testCurrent_isEmptyInitially() {
+        SessionState state = SessionState.current();
+
+        assertSame(SessionState.EMPTY, state);
+        assertNull(state.getAppLoginParameters());
+        assertNull(state.getPushToken());
+        assertNull(state.getDeviceInfo());
+        assertFalse(state.hasContact());
+    }
+
+    @Test
+    public void testUpdateAppLoginParameters_returnsPreviousState() {
+        SessionState before = SessionState.current();
+
+        SessionState previous = SessionState.updateAppLoginParameters(new AppLoginParameters(3, "value"));
+
+        assertSame(before, previous);
+        assertEquals(new AppLoginParameters(3, "value"), SessionState.current().getAppLoginParameters());
+        assertTrue(SessionState.current().hasContact());
+    }
+
+    @Test
+    public void testUpdate_keepsOtherFields() {
+        SessionState.updateDeviceInfo(deviceInfo);
+        SessionState.updatePushToken("pushToken");
+        SessionState.updateAppLoginParameters(new AppLoginParameters());
+
+        SessionState state = SessionState.current();
+        assertEquals(deviceInfo, state.getDeviceInfo());
+        assertEquals("pushToken", state.getPushToken());
+        assertEquals(new AppLoginParameters(), state.getAppLoginParameters());
+        assertFalse(state.hasContact());
+    }
+
+    @Test
+    public void testUpdate_doesNotMutatePreviousSnapshot() {
+        SessionState.updatePushToken("first");
+        SessionState snapshot = SessionState.current();
+
+        SessionState.updatePushToken("second");
+
+        assertEquals("first", snapshot.getPushToken());
+        assertNotSame(snapshot, SessionState.current());
+    }
+
+    @Test
+    public void testUpdate_concurrentUpdatesAreNotLost() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(2);
+        Thread tokenWriter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 1000; i++) {
+                    SessionState.updatePushToken("token" + i);
+                }
+                latch.countDown();
+            }
+        });
+        Thread contactWriter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 1000; i++) {
+                    SessionState.updateAppLoginParameters(new AppLoginParameters(i, "value"));
+                }
+                latch.countDown();
+            }
+        });
+
+        tokenWriter.start();
+        contactWriter.start();
+        latch.await();
+
+        SessionState state = SessionState.current();
+        assertEquals("token999", state.getPushToken());
+        assertEquals(new AppLoginParameters(999, "value"), state.getAppLoginParameters());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testObtainDeviceInfo_contextMustNotBeNull() {
+        SessionState.obtainDeviceInfo(null);
+    }
+
+    @Test
+    public void testObtainDeviceInfo_createsSnapshotOnce() {
+        DeviceInfo first = SessionState.obtainDeviceInfo(InstrumentationRegistry.getTargetContext());
+        DeviceInfo second = SessionState.obtainDeviceInfo(InstrumentationRegistry.getTargetContext());
+
+        assertSame(first, second);
+        assertSame(first, SessionState.current().getDeviceInfo());
+    }
+
+    @Test
+    public void testObtainDeviceInfo_returnsPublishedSnapshot() {
+        SessionState.updateDeviceInfo(deviceInfo);
+
+        assertSame(deviceInfo, SessionState.obtainDeviceInfo(InstrumentationRegistry.getTargetContext()));
+    }
+
+    @Test
+    public void testEquals() {
+        SessionState state1 = new SessionState(new AppLoginParameters(3, "value"), "token", deviceInfo);
+        SessionState state2 = new SessionState(new AppLoginParameters(3, "value"), "token", deviceInfo);
+
+        assertEquals(state1, state2);
+        assertEquals(state1.hashCode(), state2.hashCode());
+        assertFalse(state1.equals(new SessionState(null, "token", deviceInfo)));
+    }
+}
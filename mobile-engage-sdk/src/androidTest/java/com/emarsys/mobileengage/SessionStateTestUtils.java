@@ -0,0 +1,8 @@
+package com.emarsys.mobileengage;
+
+public class SessionStateTestUtils {
+
+    public static SessionState updateAppLoginParameters(AppLoginParameters appLoginParameters) {
+        return SessionState.updateAppLoginParameters(appLoginParameters);
+    }
+}
@@ -0,0 +1,153 @@
+package com.emarsys.mobileengage;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class WarmUpTest {
+
+    private List<String> calls;
+    private int initializeCount;
+    private WarmUp warmUp;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        calls = new ArrayList<>();
+        initializeCount = 0;
+        warmUp = new WarmUp() {
+            @Override
+            void initialize() {
+                initializeCount++;
+                calls.add("initialize");
+            }
+        };
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecute_callMustNotBeNull() {
+        warmUp.execute(null);
+    }
+
+    @Test
+    public void testRun_initializesOnlyOnce() {
+        warmUp.run();
+        warmUp.run();
+
+        assertEquals(1, initializeCount);
+    }
+
+    @Test
+    public void testExecute_buffersCalls_untilInitialized() {
+        warmUp.execute(record("first"));
+        warmUp.execute(record("second"));
+
+        assertEquals(0, calls.size());
+
+        warmUp.run();
+
+        assertEquals(3, calls.size());
+        assertEquals("initialize", calls.get(0));
+        assertEquals("first", calls.get(1));
+        assertEquals("second", calls.get(2));
+    }
+
+    @Test
+    public void testExecute_runsImmediately_afterInitialized() {
+        warmUp.run();
+
+        warmUp.execute(record("call"));
+
+        assertEquals(2, calls.size());
+        assertEquals("call", calls.get(1));
+    }
+
+    @Test
+    public void testRun_continuesDraining_whenBufferedCallFails() {
+        warmUp.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        warmUp.execute(record("after"));
+
+        warmUp.run();
+
+        assertEquals("after", calls.get(1));
+    }
+
+    @Test
+    public void testTransferTo_movesBufferedCallsAheadOfNewerCalls() {
+        WarmUp next = new WarmUp() {
+            @Override
+            void initialize() {
+            }
+        };
+        next.execute(record("newer"));
+        warmUp.execute(record("older"));
+
+        warmUp.transferTo(next);
+        next.run();
+
+        assertEquals("older", calls.get(0));
+        assertEquals("newer", calls.get(1));
+    }
+
+    @Test
+    public void testTransferTo_dropsBufferedCalls_withoutSuccessor() {
+        warmUp.execute(record("dropped"));
+
+        warmUp.transferTo(null);
+        warmUp.run();
+
+        assertEquals(1, calls.size());
+        assertEquals("initialize", calls.get(0));
+    }
+
+    @Test
+    public void testExecute_dropsCalls_afterTransferToNull() {
+        warmUp.transferTo(null);
+
+        warmUp.execute(record("dropped"));
+
+        assertEquals(0, calls.size());
+    }
+
+    @Test
+    public void testExecute_forwardsCalls_toSuccessor() {
+        WarmUp next = new WarmUp() {
+            @Override
+            void initialize() {
+            }
+        };
+        warmUp.transferTo(next);
+
+        warmUp.execute(record("forwarded"));
+        assertEquals(0, calls.size());
+
+        next.run();
+        assertEquals("forwarded", calls.get(0));
+    }
+
+    private Runnable record(final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                calls.add(name);
+            }
+        };
+    }
+}
@@ -0,0 +1,26 @@
+package com.emarsys.mobileengage;
+
+import android.os.Handler;
+
+import java.util.concurrent.CountDownLatch;
+
+public class WarmUpTestUtils {
+
+    public static void awaitWarmUp() {
+        Handler handler = MobileEngage.coreSdkHandler;
+        if (handler != null) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -11,6 +11,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 
+import java.util.concurrent.Executor;
+
 import static junit.framework.Assert.assertFalse;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -24,6 +26,8 @@ public class MobileEngageConfigTest {
     private Application applicationDebug;
     private Application applicationRelease;
     private OreoConfig mockOreoConfig;
+    private Executor workExecutor;
+    private Executor callbackExecutor;
 
     @Rule
     public Timeout globalTimeout = Timeout.seconds(30);
@@ -35,36 +39,58 @@ public class MobileEngageConfigTest {
         applicationRelease = ApplicationTestUtils.applicationRelease();
         statusListenerMock =  mock(MobileEngageStatusListener.class);
         mockOreoConfig = mock(OreoConfig.class);
+        workExecutor = mock(Executor.class);
+        callbackExecutor = mock(Executor.class);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_applicationShouldNotBeNull() {
-        new MobileEngageConfig(null, APP_ID, SECRET, statusListenerMock, true, false, mockOreoConfig);
+        new MobileEngageConfig(null, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, mockOreoConfig);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_applicationCodeShouldNotBeNull() {
-        new MobileEngageConfig(application, null, SECRET, statusListenerMock, true, false, mockOreoConfig);
+        new MobileEngageConfig(application, null, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, mockOreoConfig);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_secretShouldNotBeNull() {
-        new MobileEngageConfig(application, APP_ID, null, statusListenerMock, true, false, mockOreoConfig);
+        new MobileEngageConfig(application, APP_ID, null, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, mockOreoConfig);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_oreoConfigShouldNotBeNull() {
-        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, null);
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, null);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_oreoConfigParameter_channelNameShouldNotBeNull_whenEnabled() {
-        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, new OreoConfig(true, null, "description"));
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, new OreoConfig(true, null, "description"));
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_oreoConfigParameter_channelDescriptionShouldNotBeNull_whenEnabled() {
-        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, new OreoConfig(true, "name", null));
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, new OreoConfig(true, "name", null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_imageLoadingTimeoutShouldNotBeNegative() {
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, -1, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, mockOreoConfig);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_notificationGroupingThresholdShouldNotBeNegative() {
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, -1, MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE, null, null, mockOreoConfig);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_duplicateFilterFalsePositiveRateShouldBePositive() {
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, 0, null, null, mockOreoConfig);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_duplicateFilterFalsePositiveRateShouldBeLessThanOne() {
+        new MobileEngageConfig(application, APP_ID, SECRET, statusListenerMock, true, false, false, MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT, MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD, 1, null, null, mockOreoConfig);
     }
 
     @Test
@@ -76,6 +102,12 @@ public class MobileEngageConfigTest {
                 null,
                 true,
                 false,
+                false,
+                MobileEngageConfig.DEFAULT_IMAGE_LOADING_TIMEOUT,
+                MobileEngageConfig.DEFAULT_NOTIFICATION_GROUPING_THRESHOLD,
+                MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE,
+                null,
+                null,
                 new OreoConfig(false));
 
         MobileEngageConfig result = new MobileEngageConfig.Builder()
@@ -96,6 +128,12 @@ public class MobileEngageConfigTest {
                 statusListenerMock,
                 true,
                 true,
+                true,
+                3000,
+                10,
+                0.01,
+                workExecutor,
+                callbackExecutor,
                 new OreoConfig(true, "defaultChannelName", "defaultChannelDescription"));
 
         MobileEngageConfig result = new MobileEngageConfig.Builder()
@@ -103,12 +141,28 @@ public class MobileEngageConfigTest {
                 .credentials(APP_ID, SECRET)
                 .statusListener(statusListenerMock)
                 .enableIdlingResource(true)
+                .enableInboxPrefetch(true)
+                .imageLoadingTimeout(3000)
+                .notificationGroupingThreshold(10)
+                .duplicateFilterFalsePositiveRate(0.01)
+                .workExecutor(workExecutor)
+                .callbackExecutor(callbackExecutor)
                 .enableDefaultChannel("defaultChannelName", "defaultChannelDescription")
                 .build();
 
         assertEquals(expected, result);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilder_workExecutor_shouldNotAcceptNull() {
+        new MobileEngageConfig.Builder().workExecutor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuilder_callbackExecutor_shouldNotAcceptNull() {
+        new MobileEngageConfig.Builder().callbackExecutor(null);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testBuilder_from_shouldNotAcceptNull(){
         new MobileEngageConfig.Builder().from(null);
@@ -123,6 +177,12 @@ public class MobileEngageConfigTest {
                 statusListenerMock,
                 true,
                 true,
+                true,
+                1000,
+                0,
+                0.05,
+                workExecutor,
+                callbackExecutor,
                 new OreoConfig(false));
 
         MobileEngageConfig result = new MobileEngageConfig.Builder()
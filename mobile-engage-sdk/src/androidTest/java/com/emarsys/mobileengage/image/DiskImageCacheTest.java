@@ -0,0 +1,145 @@
+package com.emarsys.mobileengage.image;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class DiskImageCacheTest {
+
+    private static final String URL_1 = "https://image.url/1.png";
+    private static final String URL_2 = "https://image.url/2.png";
+    private static final String URL_3 = "https://image.url/3.png";
+
+    private File directory;
+    private DiskImageCache cache;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        directory = new File(InstrumentationRegistry.getTargetContext().getCacheDir(), "disk_image_cache_test");
+        deleteDirectory();
+        cache = new DiskImageCache(directory, 250);
+    }
+
+    @After
+    public void tearDown() {
+        deleteDirectory();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_directoryMustNotBeNull() {
+        new DiskImageCache(null, 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_maxSizeMustBePositive() {
+        new DiskImageCache(directory, 0);
+    }
+
+    @Test
+    public void testGet_returnsNull_whenMissing() {
+        assertNull(cache.get(URL_1));
+    }
+
+    @Test
+    public void testPut_storesContent() throws IOException {
+        File result = cache.put(URL_1, createContent(100));
+
+        assertNotNull(result);
+        assertEquals(result, cache.get(URL_1));
+        assertEquals(100, result.length());
+        assertEquals(100, cache.getSize());
+    }
+
+    @Test
+    public void testPut_replacesExistingEntry() throws IOException {
+        cache.put(URL_1, createContent(100));
+        cache.put(URL_1, createContent(50));
+
+        assertEquals(50, cache.get(URL_1).length());
+        assertEquals(50, cache.getSize());
+    }
+
+    @Test
+    public void testPut_evictsLeastRecentlyUsed_whenSizeIsExceeded() throws IOException {
+        cache.put(URL_1, createContent(100));
+        cache.put(URL_2, createContent(100));
+        cache.get(URL_1);
+
+        cache.put(URL_3, createContent(100));
+
+        assertNotNull(cache.get(URL_1));
+        assertNull(cache.get(URL_2));
+        assertNotNull(cache.get(URL_3));
+        assertEquals(200, cache.getSize());
+    }
+
+    @Test
+    public void testPut_returnsNull_whenContentIsLargerThanCache() throws IOException {
+        assertNull(cache.put(URL_1, createContent(300)));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testGet_restoresEntriesFromDisk() throws IOException {
+        cache.put(URL_1, createContent(100));
+
+        DiskImageCache restored = new DiskImageCache(directory, 250);
+
+        assertNotNull(restored.get(URL_1));
+        assertEquals(100, restored.getSize());
+    }
+
+    @Test
+    public void testClear_deletesFiles() throws IOException {
+        File file = cache.put(URL_1, createContent(100));
+
+        cache.clear();
+
+        assertFalse(file.exists());
+        assertNull(cache.get(URL_1));
+        assertEquals(0, cache.getSize());
+    }
+
+    @Test
+    public void testCreateKey_isStableAndFileNameSafe() {
+        String key = DiskImageCache.createKey(URL_1);
+
+        assertEquals(key, DiskImageCache.createKey(URL_1));
+        assertFalse(key.equals(DiskImageCache.createKey(URL_2)));
+        assertTrue(key.matches("[0-9a-f]+"));
+    }
+
+    private static ByteArrayInputStream createContent(int size) {
+        return new ByteArrayInputStream(new byte[size]);
+    }
+
+    private void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,142 @@
+package com.emarsys.mobileengage.image;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class ImageCacheTest {
+
+    private static final String URL = "https://image.url/image.png";
+    private static final String MISSING_URL = "https://fa.il/missing.png";
+
+    private Context context;
+    private DiskImageCache diskCache;
+    private ImageCache imageCache;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() throws Exception {
+        context = InstrumentationRegistry.getTargetContext().getApplicationContext();
+        diskCache = new DiskImageCache(new File(context.getCacheDir(), "image_cache_test"), 1024 * 1024);
+        diskCache.clear();
+        imageCache = new ImageCache(context, 1024 * 1024, diskCache);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.PNG, 100, stream);
+        diskCache.put(URL, new ByteArrayInputStream(stream.toByteArray()));
+    }
+
+    @After
+    public void tearDown() {
+        diskCache.clear();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetInstance_contextMustNotBeNull() {
+        ImageCache.getInstance(null);
+    }
+
+    @Test
+    public void testGetInstance_returnsSameInstance() {
+        assertSame(ImageCache.getInstance(context), ImageCache.getInstance(context));
+    }
+
+    @Test
+    public void testLoadBitmap_decodesImageFromDiskCache() {
+        Bitmap result = imageCache.loadBitmap(URL);
+
+        assertNotNull(result);
+        assertEquals(10, result.getWidth());
+    }
+
+    @Test
+    public void testLoadBitmap_putsImageIntoMemoryCache() {
+        assertNull(imageCache.getCachedBitmap(URL));
+
+        Bitmap result = imageCache.loadBitmap(URL);
+
+        assertSame(result, imageCache.getCachedBitmap(URL));
+        assertSame(result, imageCache.loadBitmap(URL));
+    }
+
+    @Test
+    public void testLoadBitmap_returnsNull_withNullUrl() {
+        assertNull(imageCache.loadBitmap(null));
+    }
+
+    @Test
+    public void testLoadBitmap_returnsNull_whenImageCannotBeDownloaded() {
+        assertNull(imageCache.loadBitmap(MISSING_URL));
+    }
+
+    @Test
+    public void testLoadBitmapAsync_callsCallback() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Bitmap[] loaded = new Bitmap[1];
+
+        Bitmap result = imageCache.loadBitmapAsync(URL, new ImageCache.Callback() {
+            @Override
+            public void onBitmapLoaded(String url, Bitmap bitmap) {
+                loaded[0] = bitmap;
+                latch.countDown();
+            }
+        }).get(5, TimeUnit.SECONDS);
+
+        latch.await();
+        assertNotNull(result);
+        assertSame(result, loaded[0]);
+    }
+
+    @Test
+    public void testGetEstimatedSizeInBytes() {
+        assertEquals(0, imageCache.getEstimatedSizeInBytes());
+
+        Bitmap result = imageCache.loadBitmap(URL);
+
+        assertEquals(result.getByteCount(), imageCache.getEstimatedSizeInBytes());
+    }
+
+    @Test
+    public void testTrimMemory_runningModerate_keepsMemoryCache() {
+        imageCache.loadBitmap(URL);
+
+        imageCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        assertNotNull(imageCache.getCachedBitmap(URL));
+    }
+
+    @Test
+    public void testTrimMemory_moderate_evictsMemoryCache_butKeepsDiskCache() {
+        imageCache.loadBitmap(URL);
+
+        imageCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+        assertNull(imageCache.getCachedBitmap(URL));
+        assertEquals(0, imageCache.getEstimatedSizeInBytes());
+        assertTrue(diskCache.get(URL) != null);
+    }
+}
@@ -1,24 +1,37 @@
 package com.emarsys.mobileengage.inbox;
 
 import android.app.Application;
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.test.InstrumentationRegistry;
 
 import com.emarsys.core.CoreCompletionHandler;
 import com.emarsys.core.DeviceInfo;
+import com.emarsys.core.concurrency.CoreSdkHandlerProvider;
 import com.emarsys.core.request.RequestManager;
 import com.emarsys.core.request.RequestMethod;
 import com.emarsys.core.request.RequestModel;
 import com.emarsys.core.request.RestClient;
 import com.emarsys.core.response.ResponseModel;
 import com.emarsys.mobileengage.AppLoginParameters;
+import com.emarsys.mobileengage.MobileEngageCoreCompletionHandler;
 import com.emarsys.mobileengage.MobileEngageException;
+import com.emarsys.mobileengage.MobileEngageStatusListener;
+import com.emarsys.mobileengage.MobileEngageUtils;
+import com.emarsys.mobileengage.PushEnvelope;
+import com.emarsys.mobileengage.SessionState;
+import com.emarsys.mobileengage.SessionStateTestUtils;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
 import com.emarsys.mobileengage.fake.FakeInboxResultListener;
 import com.emarsys.mobileengage.fake.FakeResetBadgeCountResultListener;
 import com.emarsys.mobileengage.fake.FakeRestClient;
+import com.emarsys.mobileengage.image.ImageCache;
 import com.emarsys.mobileengage.inbox.model.Notification;
 import com.emarsys.mobileengage.inbox.model.NotificationCache;
 import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+import com.emarsys.mobileengage.inbox.model.NotificationStore;
 import com.emarsys.mobileengage.util.RequestUtils;
 
 import junit.framework.Assert;
@@ -30,8 +43,9 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.Timeout;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -39,11 +53,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.emarsys.mobileengage.fake.FakeInboxResultListener.Mode;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class InboxInternalTest {
 
@@ -55,6 +76,10 @@ public class InboxInternalTest {
     private Map<String, String> defaultHeaders;
     private MobileEngageConfig config;
     private RequestManager manager;
+    private Handler coreSdkHandler;
+    private NotificationStore store;
+    private MobileEngageStatusListener statusListener;
+    private MobileEngageCoreCompletionHandler coreCompletionHandler;
     private CountDownLatch latch;
     private InboxInternal inbox;
 
@@ -62,7 +87,6 @@ public class InboxInternalTest {
     private AppLoginParameters appLoginParameters_noCredentials;
     private AppLoginParameters appLoginParameters_missing;
 
-    private List<Notification> notificationCache;
     private Application application;
 
     private NotificationCache cache;
@@ -79,6 +103,11 @@ public class InboxInternalTest {
 
 
         manager = mock(RequestManager.class);
+        coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+        store = mock(NotificationStore.class);
+        statusListener = mock(MobileEngageStatusListener.class);
+        coreCompletionHandler = new MobileEngageCoreCompletionHandler(statusListener);
+        SessionStateTestUtils.updateAppLoginParameters(null);
 
         notificationList = createNotificationList();
         config = new MobileEngageConfig.Builder()
@@ -88,7 +117,7 @@ public class InboxInternalTest {
                 .build();
 
         defaultHeaders = RequestUtils.createDefaultHeaders(config);
-        inbox = new InboxInternal(config, manager);
+        inbox = new InboxInternal(config, manager, coreSdkHandler, store, coreCompletionHandler);
 
         resultListenerMock = mock(InboxResultListener.class);
         resetListenerMock = mock(ResetBadgeCountResultListener.class);
@@ -96,22 +125,40 @@ public class InboxInternalTest {
         appLoginParameters_noCredentials = new AppLoginParameters();
         appLoginParameters_missing = null;
 
-        Field cacheField = NotificationCache.class.getDeclaredField("internalCache");
-        cacheField.setAccessible(true);
-        notificationCache = (List) cacheField.get(null);
-        notificationCache.clear();
+        new NotificationCache().clear();
 
         cache = new NotificationCache();
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_mobileEngageInternal_shouldNotBeNull() {
-        inbox = new InboxInternal(null, manager);
+        inbox = new InboxInternal(null, manager, coreSdkHandler, store, coreCompletionHandler);
     }
 
     @Test(expected = IllegalArgumentException.class)
     public void testConstructor_requestManager_shouldNotBeNull() {
-        inbox = new InboxInternal(config, null);
+        inbox = new InboxInternal(config, null, coreSdkHandler, store, coreCompletionHandler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_coreSdkHandler_shouldNotBeNull() {
+        inbox = new InboxInternal(config, manager, null, store, coreCompletionHandler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_store_shouldNotBeNull() {
+        inbox = new InboxInternal(config, manager, coreSdkHandler, null, coreCompletionHandler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_coreCompletionHandler_shouldNotBeNull() {
+        inbox = new InboxInternal(config, manager, coreSdkHandler, store, null);
+    }
+
+    @Test
+    public void testConstructor_shouldRestoreFromStore() {
+        verify(store, timeout(1000)).loadPushNotifications();
+        verify(store, timeout(1000)).loadInboxStatus();
     }
 
     @Test(expected = IllegalArgumentException.class)
@@ -126,7 +173,7 @@ public class InboxInternalTest {
         RestClient mockRestClient = mock(RestClient.class);
         inbox.client = mockRestClient;
 
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
         inbox.fetchNotifications(resultListenerMock);
 
         ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
@@ -140,9 +187,40 @@ public class InboxInternalTest {
         Assert.assertEquals(expected.getMethod(), requestModel.getMethod());
     }
 
+    @Test
+    public void testFetchNotifications_shouldReuseHeaders_forSameContact() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.fetchNotifications(resultListenerMock);
+        inbox.fetchNotifications(resultListenerMock);
+
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mockRestClient, times(2)).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+
+        Assert.assertSame(requestCaptor.getAllValues().get(0).getHeaders(), requestCaptor.getAllValues().get(1).getHeaders());
+    }
+
+    @Test
+    public void testFetchNotifications_shouldRebuildHeaders_whenContactChanges() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.fetchNotifications(resultListenerMock);
+        setAppLoginParameters(new AppLoginParameters(30, "other"));
+        inbox.fetchNotifications(resultListenerMock);
+
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mockRestClient, times(2)).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+
+        Assert.assertEquals("other", requestCaptor.getAllValues().get(1).getHeaders().get("x-ems-me-contact-field-value"));
+    }
+
     @Test
     public void testFetchNotifications_listener_success() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
 
@@ -157,7 +235,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotifications_listener_success_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
 
@@ -176,7 +254,7 @@ public class InboxInternalTest {
             cache.cache(cachedNotifications.get(i));
         }
 
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
 
@@ -193,9 +271,424 @@ public class InboxInternalTest {
         Assert.assertEquals(expected, result);
     }
 
+    @Test
+    public void testFetchNotifications_shouldPersistFetchedStatus() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+
+        FakeInboxResultListener listener = new FakeInboxResultListener(latch);
+        inbox.fetchNotifications(listener);
+
+        latch.await();
+
+        verify(store, timeout(1000)).storeInboxStatus(new NotificationInboxStatus(notificationList, 300));
+    }
+
+    @Test
+    public void testConstructor_shouldRestoreFromStore_onWorkExecutor() {
+        Executor workExecutor = mock(Executor.class);
+        config = new MobileEngageConfig.Builder()
+                .from(config)
+                .workExecutor(workExecutor)
+                .build();
+        store = mock(NotificationStore.class);
+
+        inbox = new InboxInternal(config, manager, coreSdkHandler, store, coreCompletionHandler);
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(workExecutor).execute(captor.capture());
+        verify(store, never()).loadPushNotifications();
+
+        captor.getValue().run();
+
+        verify(store).loadPushNotifications();
+        verify(store).loadInboxStatus();
+    }
+
+    @Test
+    public void testFetchNotifications_listener_success_shouldBeCalledOnCallbackExecutor() throws InterruptedException {
+        final AtomicInteger callbackCount = new AtomicInteger();
+        config = new MobileEngageConfig.Builder()
+                .from(config)
+                .callbackExecutor(new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        callbackCount.incrementAndGet();
+                        command.run();
+                    }
+                })
+                .build();
+        inbox = new InboxInternal(config, manager, coreSdkHandler, store, coreCompletionHandler);
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+
+        FakeInboxResultListener listener = new FakeInboxResultListener(latch);
+        inbox.fetchNotifications(listener);
+
+        latch.await();
+
+        Assert.assertEquals(1, listener.successCount);
+        Assert.assertEquals(1, callbackCount.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchBadgeCount_listenerShouldNotBeNull() {
+        inbox.fetchBadgeCount(null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_failureWithParametersNotSet() {
+        InboxResultListener<Integer> listener = mock(InboxResultListener.class);
+
+        inbox.fetchBadgeCount(listener);
+
+        verify(listener, timeout(1000)).onError(any(NotificationInboxException.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_shouldMakeRequest_toBadgeCountEndpoint() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.fetchBadgeCount(mock(InboxResultListener.class));
+
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mockRestClient).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+
+        RequestModel expected = createRequestModel("https://me-inbox.eservice.emarsys.net/api/badge_count", RequestMethod.GET);
+        Assert.assertEquals(expected.getUrl(), requestCaptor.getValue().getUrl());
+        Assert.assertEquals(expected.getHeaders(), requestCaptor.getValue().getHeaders());
+        Assert.assertEquals(expected.getMethod(), requestCaptor.getValue().getMethod());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_success_shouldReturnCount_andRefreshInbox_whenCountChanged() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        InboxResultListener<Integer> listener = mock(InboxResultListener.class);
+
+        inbox.fetchBadgeCount(listener);
+        completeLastRequest(mockRestClient, 1, createBadgeCountResponse(7, "etag1"));
+
+        verify(listener).onSuccess(7);
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mockRestClient, times(2)).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+        Assert.assertEquals("https://me-inbox.eservice.emarsys.net/api/notifications", requestCaptor.getValue().getUrl());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_success_shouldNotRefreshInbox_whenCountUnchanged() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.badgeCount = 7;
+        InboxResultListener<Integer> listener = mock(InboxResultListener.class);
+
+        inbox.fetchBadgeCount(listener);
+        completeLastRequest(mockRestClient, 1, createBadgeCountResponse(7, "etag1"));
+
+        verify(listener).onSuccess(7);
+        verify(mockRestClient, times(1)).execute(any(RequestModel.class), any(CoreCompletionHandler.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_shouldSendConditionalRequest_andReturnCachedCount_whenNotModified() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        InboxResultListener<Integer> listener = mock(InboxResultListener.class);
+
+        inbox.fetchBadgeCount(listener);
+        completeLastRequest(mockRestClient, 1, createBadgeCountResponse(7, "etag1"));
+
+        inbox.fetchBadgeCount(listener);
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        ArgumentCaptor<CoreCompletionHandler> handlerCaptor = ArgumentCaptor.forClass(CoreCompletionHandler.class);
+        verify(mockRestClient, times(3)).execute(requestCaptor.capture(), handlerCaptor.capture());
+        Assert.assertEquals("etag1", requestCaptor.getValue().getHeaders().get("If-None-Match"));
+
+        handlerCaptor.getValue().onError("id", new ResponseModel.Builder().statusCode(304).message("Not Modified").build());
+
+        verify(listener, times(2)).onSuccess(7);
+        verify(listener, never()).onError(any(Exception.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchBadgeCount_failureWithResponseModel() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        InboxResultListener<Integer> listener = mock(InboxResultListener.class);
+
+        inbox.fetchBadgeCount(listener);
+        ArgumentCaptor<CoreCompletionHandler> handlerCaptor = ArgumentCaptor.forClass(CoreCompletionHandler.class);
+        verify(mockRestClient).execute(any(RequestModel.class), handlerCaptor.capture());
+        handlerCaptor.getValue().onError("id", new ResponseModel.Builder().statusCode(500).message("Error").build());
+
+        verify(listener).onError(any(MobileEngageException.class));
+    }
+
+    @Test
+    public void testTrimMemory_background_shouldDropFetchedStatus() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
+        Assert.assertTrue(inbox.getEstimatedSizeInBytes() > 0);
+
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        Assert.assertNull(inbox.fetchedStatus);
+        Assert.assertEquals(0, inbox.getEstimatedSizeInBytes());
+    }
+
+    @Test
+    public void testTrimMemory_runningModerate_shouldKeepFetchedStatus() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
+
+        inbox.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        Assert.assertNotNull(inbox.fetchedStatus);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSync_envelopeShouldNotBeNull() {
+        inbox.sync(null);
+    }
+
+    @Test
+    public void testSync_refresh_shouldFetchNotifications() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.sync(createSilentEnvelope(PushEnvelope.SYNC_REFRESH, null));
+
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(mockRestClient, timeout(1000)).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+        Assert.assertEquals("https://me-inbox.eservice.emarsys.net/api/notifications", requestCaptor.getValue().getUrl());
+    }
+
+    @Test
+    public void testSync_refresh_withoutContact_shouldNotFetch() throws InterruptedException {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_noCredentials);
+
+        inbox.sync(createSilentEnvelope(PushEnvelope.SYNC_REFRESH, null));
+        waitForCoreSdkHandler();
+
+        verify(mockRestClient, never()).execute(any(RequestModel.class), any(CoreCompletionHandler.class));
+    }
+
+    @Test
+    public void testSync_invalidate_shouldDropCachedState_withoutFetching() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
+        inbox.badgeCountETag = "etag1";
+
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        inbox.sync(createSilentEnvelope(PushEnvelope.SYNC_INVALIDATE, null));
+        waitForCoreSdkHandler();
+
+        Assert.assertNull(inbox.fetchedStatus);
+        Assert.assertNull(inbox.badgeCount);
+        Assert.assertNull(inbox.badgeCountETag);
+        verify(mockRestClient, never()).execute(any(RequestModel.class), any(CoreCompletionHandler.class));
+    }
+
+    @Test
+    public void testSync_badge_shouldApplyBadgeCount() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
+
+        inbox.sync(createSilentEnvelope(PushEnvelope.SYNC_BADGE, "12"));
+        waitForCoreSdkHandler();
+
+        Assert.assertEquals(Integer.valueOf(12), inbox.badgeCount);
+        Assert.assertEquals(12, inbox.fetchedStatus.getBadgeCount());
+        verify(store, timeout(1000)).storeBadgeCount(12);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchImage_imageUrlShouldNotBeNull() {
+        inbox.fetchImage(null, mock(InboxResultListener.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchImage_listenerShouldNotBeNull() {
+        inbox.fetchImage("https://image.url", null);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchImage_shouldReturnMemoryCachedImage_withoutLoading() {
+        Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        ImageCache imageCache = mock(ImageCache.class);
+        when(imageCache.getCachedBitmap("https://image.url")).thenReturn(bitmap);
+        inbox.imageCache = imageCache;
+
+        InboxResultListener<Bitmap> listener = mock(InboxResultListener.class);
+        inbox.fetchImage("https://image.url", listener);
+
+        verify(listener, timeout(1000)).onSuccess(bitmap);
+        verify(imageCache, never()).loadBitmapAsync(any(String.class), any(ImageCache.Callback.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchImage_shouldReturnLoadedImage() {
+        final Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        inbox.imageCache = createImageCache(bitmap);
+
+        InboxResultListener<Bitmap> listener = mock(InboxResultListener.class);
+        inbox.fetchImage("https://image.url", listener);
+
+        verify(listener, timeout(1000)).onSuccess(bitmap);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFetchImage_shouldReportError_whenImageCannotBeLoaded() {
+        inbox.imageCache = createImageCache(null);
+
+        InboxResultListener<Bitmap> listener = mock(InboxResultListener.class);
+        inbox.fetchImage("https://image.url", listener);
+
+        verify(listener, timeout(1000)).onError(any(NotificationInboxException.class));
+        verify(listener, never()).onSuccess(any(Bitmap.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFetchCachedNotifications_listenerShouldNotBeNull() {
+        inbox.fetchCachedNotifications(null);
+    }
+
+    @Test
+    public void testFetchCachedNotifications_shouldReturnStoredStatus_onMainThread() throws InterruptedException {
+        NotificationInboxStatus stored = new NotificationInboxStatus(notificationList, 300);
+        when(store.loadInboxStatus()).thenReturn(stored);
+
+        FakeInboxResultListener listener = new FakeInboxResultListener(latch, Mode.MAIN_THREAD);
+        inbox.fetchCachedNotifications(listener);
+
+        latch.await();
+
+        Assert.assertEquals(stored, listener.resultStatus);
+        Assert.assertEquals(1, listener.successCount);
+    }
+
+    @Test
+    public void testFetchCachedNotifications_shouldReturnLastFetchedStatus() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
+
+        CountDownLatch cachedLatch = new CountDownLatch(1);
+        FakeInboxResultListener listener = new FakeInboxResultListener(cachedLatch);
+        inbox.fetchCachedNotifications(listener);
+
+        cachedLatch.await();
+
+        Assert.assertEquals(new NotificationInboxStatus(notificationList, 300), listener.resultStatus);
+    }
+
+    @Test
+    public void testFetchCachedNotifications_withEmptyStore_returnsEmptyStatus() throws InterruptedException {
+        FakeInboxResultListener listener = new FakeInboxResultListener(latch);
+        inbox.fetchCachedNotifications(listener);
+
+        latch.await();
+
+        Assert.assertEquals(new NotificationInboxStatus(), listener.resultStatus);
+    }
+
+    @Test
+    public void testSetAppLoginParameters_withDifferentContact_shouldClearStore() {
+        when(store.getContact()).thenReturn("1:other");
+
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        verify(store, timeout(1000)).clear();
+        verify(store, timeout(1000)).setContact("30:value");
+    }
+
+    @Test
+    public void testSetAppLoginParameters_withDifferentContact_shouldClearNotificationCache() throws Exception {
+        cache.cache(createCacheList().get(0));
+        Assert.assertFalse(cache.getCachedNotifications().isEmpty());
+        when(store.getContact()).thenReturn("1:other");
+
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        verify(store, timeout(1000)).setContact("30:value");
+        Assert.assertTrue(cache.getCachedNotifications().isEmpty());
+    }
+
+    @Test
+    public void testSetAppLoginParameters_withSameContact_shouldNotClearStore() {
+        when(store.getContact()).thenReturn("30:value");
+
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        verify(store, timeout(1000)).getContact();
+        verify(store, never()).clear();
+    }
+
+    @Test
+    public void testSetAppLoginParameters_anonymous_withoutStoredContact_shouldNotClearStore() {
+        when(store.getContact()).thenReturn(null);
+
+        setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_missing);
+
+        verify(store, timeout(1000).times(2)).getContact();
+        verify(store, never()).clear();
+        verify(store, never()).setContact(null);
+    }
+
+    @Test
+    public void testSetAppLoginParameters_withDifferentContact_shouldResetBadgeCount() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.badgeCount = 7;
+
+        setAppLoginParameters(new AppLoginParameters(30, "other"));
+
+        Assert.assertNull(inbox.badgeCount);
+    }
+
+    @Test
+    public void testSetAppLoginParameters_withSameContact_shouldKeepBadgeCount() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.badgeCount = 7;
+
+        setAppLoginParameters(new AppLoginParameters(30, "value"));
+
+        Assert.assertEquals(Integer.valueOf(7), inbox.badgeCount);
+    }
+
     @Test
     public void testFetchNotifications_listener_failureWithException() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         Exception expectedException = new Exception("FakeRestClientException");
         inbox.client = new FakeRestClient(expectedException);
@@ -211,7 +704,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotifications_listener_failureWithException_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         inbox.client = new FakeRestClient(new Exception());
 
@@ -225,7 +718,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithResponseModel() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         ResponseModel responseModel = new ResponseModel.Builder().statusCode(400).message("Bad request").build();
         inbox.client = new FakeRestClient(responseModel, FakeRestClient.Mode.ERROR_RESPONSE_MODEL);
@@ -249,7 +742,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithResponseModel_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         ResponseModel responseModel = new ResponseModel.Builder().statusCode(400).message("Bad request").build();
         inbox.client = new FakeRestClient(responseModel, FakeRestClient.Mode.ERROR_RESPONSE_MODEL);
@@ -264,7 +757,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithParametersNotSet() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_missing);
+        setAppLoginParameters(appLoginParameters_missing);
 
         FakeInboxResultListener listener = new FakeInboxResultListener(latch);
         inbox.fetchNotifications(listener);
@@ -277,7 +770,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithParametersNotSet_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_missing);
+        setAppLoginParameters(appLoginParameters_missing);
 
         FakeInboxResultListener listener = new FakeInboxResultListener(latch, Mode.MAIN_THREAD);
         inbox.fetchNotifications(listener);
@@ -289,7 +782,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithParametersSet_butLacksCredentials() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_noCredentials);
 
         FakeInboxResultListener listener = new FakeInboxResultListener(latch);
         inbox.fetchNotifications(listener);
@@ -302,7 +795,7 @@ public class InboxInternalTest {
 
     @Test
     public void testFetchNotification_listener_failureWithParametersSet_butLacksCredentials_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_noCredentials);
 
         FakeInboxResultListener listener = new FakeInboxResultListener(latch, Mode.MAIN_THREAD);
         inbox.fetchNotifications(listener);
@@ -313,17 +806,14 @@ public class InboxInternalTest {
     }
 
     @Test
-    public void testResetBadgeCount_shouldMakeRequest_viaRestClient() {
+    public void testResetBadgeCount_shouldSubmitRequest_viaRequestManager() {
         RequestModel expected = createRequestModel("https://me-inbox.eservice.emarsys.net/api/reset-badge-count", RequestMethod.POST);
 
-        RestClient mockRestClient = mock(RestClient.class);
-        inbox.client = mockRestClient;
-
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+        setAppLoginParameters(appLoginParameters_withCredentials);
         inbox.resetBadgeCount(resetListenerMock);
 
         ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
-        verify(mockRestClient).execute(requestCaptor.capture(), any(CoreCompletionHandler.class));
+        verify(manager).submit(requestCaptor.capture());
 
         RequestModel requestModel = requestCaptor.getValue();
         Assert.assertNotNull(requestModel.getId());
@@ -334,10 +824,31 @@ public class InboxInternalTest {
     }
 
     @Test
-    public void testResetBadgeCount_listener_success() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+    public void testResetBadgeCount_balancesIdlingResource() {
+        MobileEngageUtils.setup(new MobileEngageConfig.Builder()
+                .application((Application) InstrumentationRegistry.getTargetContext().getApplicationContext())
+                .credentials(APPLICATION_ID, "applicationPassword")
+                .enableIdlingResource(true)
+                .disableDefaultChannel()
+                .build());
+        try {
+            setAppLoginParameters(appLoginParameters_withCredentials);
+            inbox.resetBadgeCount(resetListenerMock);
 
-        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+            ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+            verify(manager).submit(requestCaptor.capture());
+            Assert.assertFalse(MobileEngageUtils.getIdlingResource().isIdleNow());
+
+            coreCompletionHandler.onSuccess(requestCaptor.getValue().getId(), mock(ResponseModel.class));
+            Assert.assertTrue(MobileEngageUtils.getIdlingResource().isIdleNow());
+        } finally {
+            MobileEngageUtils.setup(config);
+        }
+    }
+
+    @Test
+    public void testResetBadgeCount_listener_success() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch);
         inbox.resetBadgeCount(listener);
@@ -349,9 +860,7 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_listener_success_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
-
-        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch, FakeResetBadgeCountResultListener.Mode.MAIN_THREAD);
         inbox.resetBadgeCount(listener);
@@ -362,77 +871,134 @@ public class InboxInternalTest {
     }
 
     @Test
-    public void testResetBadgeCount_listener_failureWithException() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+    public void testResetBadgeCount_shouldApplyResetLocally() throws InterruptedException {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        inbox.fetchNotifications(new FakeInboxResultListener(latch));
+        latch.await();
 
-        Exception expectedException = new Exception("FakeRestClientException");
-        inbox.client = new FakeRestClient(expectedException);
+        inbox.resetBadgeCount(null);
 
-        FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch);
-        inbox.resetBadgeCount(listener);
+        CountDownLatch cachedLatch = new CountDownLatch(1);
+        FakeInboxResultListener listener = new FakeInboxResultListener(cachedLatch);
+        inbox.fetchCachedNotifications(listener);
+        cachedLatch.await();
 
-        latch.await();
+        Assert.assertEquals(0, listener.resultStatus.getBadgeCount());
+        Assert.assertEquals(Integer.valueOf(0), inbox.badgeCount);
+        verify(store, timeout(1000)).storeBadgeCount(0);
+    }
 
-        Assert.assertEquals(expectedException, listener.errorCause);
-        Assert.assertEquals(1, listener.errorCount);
+    @Test
+    public void testResetBadgeCount_shouldCoalesceRepeatedResets() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.resetBadgeCount(null);
+        inbox.resetBadgeCount(null);
+        inbox.resetBadgeCount(resetListenerMock);
+
+        verify(manager, times(1)).submit(any(RequestModel.class));
     }
 
     @Test
-    public void testResetBadgeCount_listener_failureWithException_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+    @SuppressWarnings("unchecked")
+    public void testResetBadgeCount_shouldCoalesce_whileQueuedRequestIsPending() {
+        RestClient mockRestClient = mock(RestClient.class);
+        inbox.client = mockRestClient;
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        inbox.client = new FakeRestClient(new Exception());
+        inbox.resetBadgeCount(null);
+        inbox.fetchBadgeCount(mock(InboxResultListener.class));
+        completeLastRequest(mockRestClient, 1, createBadgeCountResponse(2, "etag1"));
+        inbox.resetBadgeCount(null);
 
-        FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch, FakeResetBadgeCountResultListener.Mode.MAIN_THREAD);
-        inbox.resetBadgeCount(listener);
+        verify(manager, times(1)).submit(any(RequestModel.class));
+    }
 
-        latch.await();
+    @Test
+    public void testResetBadgeCount_shouldSubmitAgain_afterQueuedRequestDelivered() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        Assert.assertEquals(1, listener.errorCount);
+        inbox.resetBadgeCount(null);
+        coreCompletionHandler.onSuccess(lastSubmittedRequestId(1), new ResponseModel.Builder().statusCode(200).message("OK").build());
+        inbox.resetBadgeCount(null);
+
+        verify(manager, times(2)).submit(any(RequestModel.class));
     }
 
     @Test
-    public void testResetBadgeCount_listener_failureWithResponseModel() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+    public void testResetBadgeCount_shouldSubmitAgain_afterDeliveryFailedWithResponseModel() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        ResponseModel responseModel = new ResponseModel.Builder().statusCode(400).message("Bad request").build();
-        inbox.client = new FakeRestClient(responseModel, FakeRestClient.Mode.ERROR_RESPONSE_MODEL);
+        inbox.resetBadgeCount(null);
+        coreCompletionHandler.onError(lastSubmittedRequestId(1), new ResponseModel.Builder().statusCode(400).message("Bad request").build());
+        inbox.resetBadgeCount(null);
 
-        FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch);
-        inbox.resetBadgeCount(listener);
+        verify(manager, times(2)).submit(any(RequestModel.class));
+    }
 
-        latch.await();
+    @Test
+    public void testResetBadgeCount_shouldSubmitAgain_afterDeliveryFailedWithException() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        MobileEngageException expectedException = new MobileEngageException(
-                responseModel.getStatusCode(),
-                responseModel.getMessage(),
-                responseModel.getBody());
+        inbox.resetBadgeCount(null);
+        coreCompletionHandler.onError(lastSubmittedRequestId(1), new Exception());
+        inbox.resetBadgeCount(null);
 
-        MobileEngageException resultException = (MobileEngageException) listener.errorCause;
-        Assert.assertEquals(expectedException.getStatusCode(), resultException.getStatusCode());
-        Assert.assertEquals(expectedException.getMessage(), resultException.getMessage());
-        Assert.assertEquals(expectedException.getBody(), resultException.getBody());
-        Assert.assertEquals(1, listener.errorCount);
+        verify(manager, times(2)).submit(any(RequestModel.class));
     }
 
     @Test
-    public void testResetBadgeCount_listener_failureWithResponseModel_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
+    public void testResetBadgeCount_shouldNotClearPendingReset_forOtherRequestIds() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        ResponseModel responseModel = new ResponseModel.Builder().statusCode(400).message("Bad request").build();
-        inbox.client = new FakeRestClient(responseModel, FakeRestClient.Mode.ERROR_RESPONSE_MODEL);
+        inbox.resetBadgeCount(null);
+        coreCompletionHandler.onSuccess("otherId", new ResponseModel.Builder().statusCode(200).message("OK").build());
+        inbox.resetBadgeCount(null);
 
-        FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch, FakeResetBadgeCountResultListener.Mode.MAIN_THREAD);
-        inbox.resetBadgeCount(listener);
+        verify(manager, times(1)).submit(any(RequestModel.class));
+    }
 
-        latch.await();
+    @Test
+    public void testResetBadgeCount_deliveryFailureWithResponseModel_shouldBeReportedToStatusListener() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
-        Assert.assertEquals(1, listener.errorCount);
+        inbox.resetBadgeCount(resetListenerMock);
+        String requestId = lastSubmittedRequestId(1);
+        coreCompletionHandler.onError(requestId, new ResponseModel.Builder().statusCode(400).message("Bad request").build());
+
+        verify(statusListener).onError(eq(requestId), any(MobileEngageException.class));
+    }
+
+    @Test
+    public void testResetBadgeCount_deliveryFailureWithException_shouldBeReportedToStatusListener() {
+        Exception cause = new Exception();
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        inbox.resetBadgeCount(resetListenerMock);
+        String requestId = lastSubmittedRequestId(1);
+        coreCompletionHandler.onError(requestId, cause);
+
+        verify(statusListener).onError(requestId, cause);
+    }
+
+    @Test
+    public void testResetBadgeCount_shouldNotFail_withNullListener_deliveryFailure() {
+        setAppLoginParameters(appLoginParameters_withCredentials);
+
+        try {
+            inbox.resetBadgeCount(null);
+            coreCompletionHandler.onError(lastSubmittedRequestId(1), new Exception());
+            waitForCoreSdkHandler();
+            waitForMainHandler();
+        } catch (Exception e) {
+            Assert.fail("Should not throw exception!");
+        }
     }
 
     @Test
     public void testResetBadgeCount_listener_failureWithParametersNotSet() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_missing);
+        setAppLoginParameters(appLoginParameters_missing);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch);
         inbox.resetBadgeCount(listener);
@@ -445,7 +1011,7 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_listener_failureWithParametersNotSet_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_missing);
+        setAppLoginParameters(appLoginParameters_missing);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch, FakeResetBadgeCountResultListener.Mode.MAIN_THREAD);
         inbox.resetBadgeCount(listener);
@@ -457,7 +1023,7 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_listener_failureWithParametersSet_butLacksCredentials() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_noCredentials);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch);
         inbox.resetBadgeCount(listener);
@@ -470,7 +1036,7 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_listener_failureWithParametersSet_butLacksCredentials_shouldBeCalledOnMainThread() throws InterruptedException {
-        inbox.setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_noCredentials);
 
         FakeResetBadgeCountResultListener listener = new FakeResetBadgeCountResultListener(latch, FakeResetBadgeCountResultListener.Mode.MAIN_THREAD);
         inbox.resetBadgeCount(listener);
@@ -482,43 +1048,12 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_shouldNotFail_withNullListener_success() {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
-
-        inbox.client = new FakeRestClient(createSuccessResponse(), FakeRestClient.Mode.SUCCESS);
+        setAppLoginParameters(appLoginParameters_withCredentials);
 
         try {
             inbox.resetBadgeCount(null);
-            Thread.sleep(150);
-        } catch (Exception e) {
-            Assert.fail("Should not throw exception!");
-        }
-    }
-
-    @Test
-    public void testResetBadgeCount_shouldNotFail_withNullListener_failureWithException() {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
-
-        Exception expectedException = new Exception("FakeRestClientException");
-        inbox.client = new FakeRestClient(expectedException);
-
-        try {
-            inbox.resetBadgeCount(null);
-            Thread.sleep(150);
-        } catch (Exception e) {
-            Assert.fail("Should not throw exception!");
-        }
-    }
-
-    @Test
-    public void testResetBadgeCount_shouldNotFail_withNullListener_failureWithResponseModel() {
-        inbox.setAppLoginParameters(appLoginParameters_withCredentials);
-
-        ResponseModel responseModel = new ResponseModel.Builder().statusCode(400).message("Bad request").build();
-        inbox.client = new FakeRestClient(responseModel, FakeRestClient.Mode.ERROR_RESPONSE_MODEL);
-
-        try {
-            inbox.resetBadgeCount(null);
-            Thread.sleep(150);
+            waitForCoreSdkHandler();
+            waitForMainHandler();
         } catch (Exception e) {
             Assert.fail("Should not throw exception!");
         }
@@ -526,11 +1061,12 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_shouldNotFail_withNullListener_failureWithParametersNotSet() {
-        inbox.setAppLoginParameters(appLoginParameters_missing);
+        setAppLoginParameters(appLoginParameters_missing);
 
         try {
             inbox.resetBadgeCount(null);
-            Thread.sleep(150);
+            waitForCoreSdkHandler();
+            waitForMainHandler();
         } catch (Exception e) {
             Assert.fail("Should not throw exception!");
         }
@@ -538,11 +1074,12 @@ public class InboxInternalTest {
 
     @Test
     public void testResetBadgeCount_shouldNotFail_withNullListener_failureWithParametersSet_butLacksCredentials() {
-        inbox.setAppLoginParameters(appLoginParameters_noCredentials);
+        setAppLoginParameters(appLoginParameters_noCredentials);
 
         try {
             inbox.resetBadgeCount(null);
-            Thread.sleep(150);
+            waitForCoreSdkHandler();
+            waitForMainHandler();
         } catch (Exception e) {
             Assert.fail("Should not throw exception!");
         }
@@ -592,7 +1129,7 @@ public class InboxInternalTest {
     public void trackMessageOpen_containsCredentials_fromApploginParameters() {
         int contactFieldId = 3;
         String contactFieldValue = "test@test.com";
-        inbox.setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
+        setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
         ArgumentCaptor<RequestModel> captor = ArgumentCaptor.forClass(RequestModel.class);
 
         inbox.trackMessageOpen(mock(Notification.class));
@@ -603,6 +1140,61 @@ public class InboxInternalTest {
         Assert.assertEquals(payload.get("contact_field_value"), contactFieldValue);
     }
 
+    private void setAppLoginParameters(AppLoginParameters appLoginParameters) {
+        SessionState previous = SessionStateTestUtils.updateAppLoginParameters(appLoginParameters);
+        inbox.onAppLoginParametersChanged(previous.getAppLoginParameters(), appLoginParameters);
+    }
+
+    private PushEnvelope createSilentEnvelope(String action, String badgeCount) {
+        Map<String, String> data = new HashMap<>();
+        data.put("ems_msg", "true");
+        data.put(PushEnvelope.KEY_SILENT, "true");
+        data.put(PushEnvelope.KEY_SYNC, action);
+        if (badgeCount != null) {
+            data.put(PushEnvelope.KEY_BADGE_COUNT, badgeCount);
+        }
+        return PushEnvelope.fromRemoteMessageData(data);
+    }
+
+    private void waitForCoreSdkHandler() throws InterruptedException {
+        final CountDownLatch handlerLatch = new CountDownLatch(1);
+        coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                handlerLatch.countDown();
+            }
+        });
+        handlerLatch.await();
+    }
+
+    private void waitForMainHandler() throws InterruptedException {
+        final CountDownLatch handlerLatch = new CountDownLatch(1);
+        new Handler(Looper.getMainLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                handlerLatch.countDown();
+            }
+        });
+        handlerLatch.await();
+    }
+
+    private void completeLastRequest(RestClient mockRestClient, int expectedRequestCount, ResponseModel responseModel) {
+        ArgumentCaptor<CoreCompletionHandler> handlerCaptor = ArgumentCaptor.forClass(CoreCompletionHandler.class);
+        verify(mockRestClient, times(expectedRequestCount)).execute(any(RequestModel.class), handlerCaptor.capture());
+        handlerCaptor.getValue().onSuccess("id", responseModel);
+    }
+
+    private ResponseModel createBadgeCountResponse(int badgeCount, String eTag) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", eTag);
+        return new ResponseModel.Builder()
+                .statusCode(200)
+                .message("OK")
+                .headers(headers)
+                .body("{\"badge_count\": " + badgeCount + "}")
+                .build();
+    }
+
     private RequestModel createRequestModel(String path, RequestMethod method) {
         DeviceInfo deviceInfo = new DeviceInfo(InstrumentationRegistry.getContext());
 
@@ -620,6 +1212,26 @@ public class InboxInternalTest {
                 .build();
     }
 
+    private ImageCache createImageCache(final Bitmap loadedBitmap) {
+        ImageCache imageCache = mock(ImageCache.class);
+        when(imageCache.loadBitmapAsync(any(String.class), any(ImageCache.Callback.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                String url = invocation.getArgument(0);
+                ImageCache.Callback callback = invocation.getArgument(1);
+                callback.onBitmapLoaded(url, loadedBitmap);
+                return null;
+            }
+        });
+        return imageCache;
+    }
+
+    private String lastSubmittedRequestId(int expectedSubmitCount) {
+        ArgumentCaptor<RequestModel> requestCaptor = ArgumentCaptor.forClass(RequestModel.class);
+        verify(manager, times(expectedSubmitCount)).submit(requestCaptor.capture());
+        return requestCaptor.getValue().getId();
+    }
+
     private List<Notification> createNotificationList() throws JSONException {
         Map<String, String> customData1 = new HashMap<>();
         customData1.put("data1", "dataValue1");
@@ -672,8 +1284,8 @@ public class InboxInternalTest {
         rootParams5.put("param10", "paramValue10");
 
         return Arrays.asList(
-                new Notification("id4", "sid4", "title4", null, customData4, rootParams4, 400, 40000000),
-                new Notification("id5", "sid5", "title5", null, customData5, rootParams5, 500, 50000000)
+                new Notification("id4", "sid4", "title4", null, customData4, rootParams4, 400, new Date().getTime()),
+                new Notification("id5", "sid5", "title5", null, customData5, rootParams5, 500, new Date().getTime())
         );
     }
 
@@ -0,0 +1,157 @@
+package com.emarsys.mobileengage.inbox;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.emarsys.mobileengage.inbox.model.Notification;
+import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class InboxParseUtilsBenchmarkTest {
+
+    private static final String TAG = "InboxParseBenchmark";
+    private static final int[] INBOX_SIZES = {10, 100, 1000, 10000};
+    private static final int NOTIFICATIONS_PER_SIZE = 10000;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Test
+    public void testParseNotificationInboxStatus_streamingParser_matchesLegacyParser() {
+        for (int size : INBOX_SIZES) {
+            String json = createInboxJson(size);
+
+            NotificationInboxStatus expected = legacyParseNotificationInboxStatus(json);
+            NotificationInboxStatus result = InboxParseUtils.parseNotificationInboxStatus(json);
+
+            Assert.assertEquals(size, result.getNotifications().size());
+            Assert.assertEquals(expected, result);
+        }
+    }
+
+    @Test
+    public void benchmarkParseNotificationInboxStatus() {
+        for (int size : INBOX_SIZES) {
+            String json = createInboxJson(size);
+            int iterations = Math.max(1, NOTIFICATIONS_PER_SIZE / size);
+
+            legacyParseNotificationInboxStatus(json);
+            InboxParseUtils.parseNotificationInboxStatus(json);
+
+            long legacyStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                legacyParseNotificationInboxStatus(json);
+            }
+            long legacyTime = (System.nanoTime() - legacyStart) / iterations;
+
+            long streamingStart = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                InboxParseUtils.parseNotificationInboxStatus(json);
+            }
+            long streamingTime = (System.nanoTime() - streamingStart) / iterations;
+
+            Log.i(TAG, String.format("notifications: %d, legacy: %d us, streaming: %d us",
+                    size,
+                    legacyTime / 1000,
+                    streamingTime / 1000));
+        }
+    }
+
+    private String createInboxJson(int size) {
+        StringBuilder builder = new StringBuilder("{\"notifications\": [");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{")
+                    .append("\"id\":\"id").append(i).append("\", ")
+                    .append("\"sid\":\"sid").append(i).append("\", ")
+                    .append("\"title\":\"title").append(i).append("\", ")
+                    .append("\"body\":\"body").append(i).append("\", ")
+                    .append("\"custom_data\": {")
+                    .append("\"data1\":\"dataValue").append(i).append("\",")
+                    .append("\"data2\":\"dataValue").append(i).append("\"")
+                    .append("},")
+                    .append("\"root_params\": {")
+                    .append("\"param1\":\"paramValue").append(i).append("\",")
+                    .append("\"param2\":").append(i)
+                    .append("},")
+                    .append("\"expiration_time\": ").append(i).append(", ")
+                    .append("\"received_at\":").append(10000000L + i)
+                    .append("}");
+        }
+        builder.append("], \"badge_count\": ").append(size).append("}");
+        return builder.toString();
+    }
+
+    private static NotificationInboxStatus legacyParseNotificationInboxStatus(String jsonString) {
+        NotificationInboxStatus result = new NotificationInboxStatus();
+        try {
+            JSONObject json = new JSONObject(jsonString);
+
+            List<Notification> notifications = null;
+            if (json.has("notifications")) {
+                notifications = legacyParseNotificationList(json.getString("notifications"));
+            }
+
+            int badgeCount = 0;
+            try {
+                badgeCount = new JSONObject(jsonString).getInt("badge_count");
+            } catch (JSONException e) {
+            }
+
+            result = new NotificationInboxStatus(notifications, badgeCount);
+        } catch (JSONException e) {
+        }
+        return result;
+    }
+
+    private static List<Notification> legacyParseNotificationList(String jsonString) {
+        List<Notification> result = new ArrayList<>();
+        try {
+            JSONArray array = new JSONArray(jsonString);
+            for (int i = 0; i < array.length(); i++) {
+                Notification notification = legacyParseNotification(array.getString(i));
+                if (notification != null) {
+                    result.add(notification);
+                }
+            }
+        } catch (JSONException e) {
+        }
+        return result;
+    }
+
+    private static Notification legacyParseNotification(String jsonString) {
+        Notification result = null;
+        try {
+            JSONObject json = new JSONObject(jsonString);
+            String id = json.getString("id");
+            String sid = json.getString("sid");
+            String title = json.getString("title");
+            String body = null;
+            if (json.has("body")) {
+                body = json.getString("body");
+            }
+            Map<String, String> customData = InboxParseUtils.convertFlatJsonObject(new JSONObject(json.getString("custom_data")));
+            JSONObject rootParams = new JSONObject(json.getString("root_params"));
+            int expirationTime = json.getInt("expiration_time");
+            long receivedAt = json.getLong("received_at");
+            result = new Notification(id, sid, title, body, customData, rootParams, expirationTime, receivedAt);
+        } catch (JSONException e) {
+        }
+        return result;
+    }
+}
@@ -176,6 +176,40 @@ public class InboxParseUtilsTest {
         Assert.assertEquals(expected, result);
     }
 
+    @Test
+    public void parseNotificationInboxStatus_withUnknownFields_ignoresThem() {
+        NotificationInboxStatus expected = new NotificationInboxStatus(notifications, 300);
+
+        String json = "{\"meta\": {\"page\": [1, 2, {\"next\": null}]}, " +
+                "\"notifications\": " +
+                "[" + NOTIFICATION_STRING_1 + "," + NOTIFICATION_STRING_2 + "," + NOTIFICATION_STRING_3 + "]," +
+                " \"badge_count\": 300, \"version\": 2}";
+
+        NotificationInboxStatus result = InboxParseUtils.parseNotificationInboxStatus(json);
+
+        Assert.assertEquals(expected, result);
+    }
+
+    @Test
+    public void parseNotificationInboxStatus_withNonArrayNotifications_returnsEmptyList() {
+        NotificationInboxStatus expected = new NotificationInboxStatus(new ArrayList<Notification>(), 300);
+
+        Assert.assertEquals(expected, InboxParseUtils.parseNotificationInboxStatus("{\"notifications\": {\"key\": \"value\"}, \"badge_count\": 300}"));
+        Assert.assertEquals(expected, InboxParseUtils.parseNotificationInboxStatus("{\"notifications\": \"value\", \"badge_count\": 300}"));
+        Assert.assertEquals(expected, InboxParseUtils.parseNotificationInboxStatus("{\"notifications\": null, \"badge_count\": 300}"));
+    }
+
+    @Test
+    public void parseNotificationInboxStatus_withTruncatedString_returnsDefaultInboxStatus() {
+        NotificationInboxStatus expected = new NotificationInboxStatus(new ArrayList<Notification>(), 0);
+
+        String json = "{\"badge_count\": 300, \"notifications\": [" + NOTIFICATION_STRING_1 + ",";
+
+        NotificationInboxStatus result = InboxParseUtils.parseNotificationInboxStatus(json);
+
+        Assert.assertEquals(expected, result);
+    }
+
     @Test
     public void parseBadgeCount_withNull_returnsZero() {
         Assert.assertEquals(0, InboxParseUtils.parseBadgeCount(null));
@@ -293,6 +327,55 @@ public class InboxParseUtilsTest {
         Assert.assertEquals(expected, result);
     }
 
+    @Test
+    public void parseNotification_withNonStringCustomDataValues_convertsThemToString() {
+        String json = "{" +
+                "\"id\":\"id1\", " +
+                "\"sid\":\"sid1\", " +
+                "\"title\":\"title1\", " +
+                "\"custom_data\": {" +
+                "\"number\":42," +
+                "\"flag\":true" +
+                "}," +
+                "\"root_params\": {}," +
+                "\"expiration_time\": 300, " +
+                "\"received_at\":10000000" +
+                "}";
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("number", "42");
+        expected.put("flag", "true");
+
+        Notification result = InboxParseUtils.parseNotification(json);
+        Assert.assertEquals(expected, result.getCustomData());
+    }
+
+    @Test
+    public void parseNotification_withIntegralDoubleValues_writesThemWithoutFraction() throws JSONException {
+        String json = "{" +
+                "\"id\":\"id1\", " +
+                "\"sid\":\"sid1\", " +
+                "\"title\":\"title1\", " +
+                "\"custom_data\": {" +
+                "\"integral\":1.0," +
+                "\"fraction\":1.5," +
+                "\"nested\":{\"value\":2.0}" +
+                "}," +
+                "\"root_params\": {\"param\":3.0}," +
+                "\"expiration_time\": 300, " +
+                "\"received_at\":10000000" +
+                "}";
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("integral", "1");
+        expected.put("fraction", "1.5");
+        expected.put("nested", "{\"value\":2}");
+
+        Notification result = InboxParseUtils.parseNotification(json);
+        Assert.assertEquals(expected, result.getCustomData());
+        Assert.assertEquals("3", result.getRootParams().getString("param"));
+    }
+
     @Test
     public void convertFlatJsonObject_withNull() {
         HashMap<Object, Object> expected = new HashMap<>();
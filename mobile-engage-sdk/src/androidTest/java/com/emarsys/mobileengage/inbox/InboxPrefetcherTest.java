@@ -0,0 +1,210 @@
+package com.emarsys.mobileengage.inbox;
+
+import android.app.Activity;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Handler;
+import android.support.test.InstrumentationRegistry;
+
+import com.emarsys.core.concurrency.CoreSdkHandlerProvider;
+import com.emarsys.mobileengage.AppLoginParameters;
+import com.emarsys.mobileengage.SessionStateTestUtils;
+import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class InboxPrefetcherTest {
+
+    private InboxInternal inboxInternal;
+    private Handler coreSdkHandler;
+    private Context context;
+    private ConnectivityManager connectivityManager;
+    private InboxPrefetcher prefetcher;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        inboxInternal = mock(InboxInternal.class);
+        SessionStateTestUtils.updateAppLoginParameters(new AppLoginParameters(3, "value"));
+        coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+        context = InstrumentationRegistry.getTargetContext();
+
+        connectivityManager = mock(ConnectivityManager.class);
+        when(connectivityManager.isActiveNetworkMetered()).thenReturn(false);
+
+        prefetcher = createPrefetcher(InboxPrefetcher.MINIMUM_PREFETCH_INTERVAL);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_inboxInternal_shouldNotBeNull() {
+        new InboxPrefetcher(null, coreSdkHandler, context);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_coreSdkHandler_shouldNotBeNull() {
+        new InboxPrefetcher(inboxInternal, null, context);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_context_shouldNotBeNull() {
+        new InboxPrefetcher(inboxInternal, coreSdkHandler, null);
+    }
+
+    @Test
+    public void testPrefetch_shouldFetchNotifications() throws InterruptedException {
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testPrefetch_shouldBeDeduplicated_whileInProgress() throws InterruptedException {
+        prefetcher = createPrefetcher(0);
+
+        prefetcher.prefetch();
+        prefetcher.prefetch();
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, times(1)).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testPrefetch_shouldBeRateLimited() throws InterruptedException {
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+        completeLastPrefetch();
+
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, times(1)).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testPrefetch_shouldFetchAgain_afterPreviousCompleted_andIntervalElapsed() throws InterruptedException {
+        prefetcher = createPrefetcher(0);
+
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+        completeLastPrefetch();
+
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, times(2)).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testPrefetch_shouldBeSkipped_onMeteredNetwork() throws InterruptedException {
+        when(connectivityManager.isActiveNetworkMetered()).thenReturn(true);
+
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, never()).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testPrefetch_shouldBeSkipped_withoutCredentials() throws InterruptedException {
+        SessionStateTestUtils.updateAppLoginParameters(new AppLoginParameters());
+
+        prefetcher.prefetch();
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, never()).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testOnActivityStarted_shouldPrefetch_onlyWhenAppComesToForeground() throws InterruptedException {
+        prefetcher = createPrefetcher(0);
+        Activity activity = mock(Activity.class);
+
+        prefetcher.onActivityStarted(activity);
+        prefetcher.onActivityStarted(activity);
+        waitForCoreSdkHandler();
+        completeLastPrefetch();
+
+        prefetcher.onActivityStopped(activity);
+        prefetcher.onActivityStopped(activity);
+        prefetcher.onActivityStarted(activity);
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, times(2)).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testOnActivityStarted_shouldNotPrefetch_afterConfigurationChange() throws InterruptedException {
+        prefetcher = createPrefetcher(0);
+        Activity activity = mock(Activity.class);
+        Activity recreated = mock(Activity.class);
+        when(activity.isChangingConfigurations()).thenReturn(true);
+
+        prefetcher.onActivityStarted(activity);
+        waitForCoreSdkHandler();
+        completeLastPrefetch();
+
+        prefetcher.onActivityStopped(activity);
+        prefetcher.onActivityStarted(recreated);
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, times(1)).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    @Test
+    public void testOnActivityStarted_shouldNotPrefetch_whenRegisteredWhileActivityWasVisible() throws InterruptedException {
+        prefetcher = createPrefetcher(0);
+        prefetcher.startedActivities = 1;
+        Activity visible = mock(Activity.class);
+        Activity next = mock(Activity.class);
+
+        prefetcher.onActivityStarted(next);
+        prefetcher.onActivityStopped(visible);
+        waitForCoreSdkHandler();
+
+        verify(inboxInternal, never()).fetchNotifications(any(InboxResultListener.class));
+    }
+
+    private InboxPrefetcher createPrefetcher(long minimumPrefetchInterval) {
+        InboxPrefetcher result = new InboxPrefetcher(inboxInternal, coreSdkHandler, context, minimumPrefetchInterval);
+        result.connectivityManager = connectivityManager;
+        result.startedActivities = 0;
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void completeLastPrefetch() throws InterruptedException {
+        ArgumentCaptor<InboxResultListener> captor = ArgumentCaptor.forClass(InboxResultListener.class);
+        verify(inboxInternal, atLeastOnce()).fetchNotifications(captor.capture());
+        captor.getValue().onSuccess(new NotificationInboxStatus());
+        waitForCoreSdkHandler();
+    }
+
+    private void waitForCoreSdkHandler() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        latch.await();
+    }
+}
@@ -0,0 +1,130 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationCacheBenchmarkTest {
+
+    private static final String TAG = "NotificationCacheBench";
+    private static final int CACHED_SIZE = 1000;
+    private static final int FETCHED_SIZE = 10000;
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private List<Notification> cached;
+    private List<Notification> fetched;
+
+    @Before
+    public void init() {
+        NotificationCache.setStore(null);
+        NotificationCache.setMaxSize(Integer.MAX_VALUE);
+        new NotificationCache().clear();
+
+        cached = new ArrayList<>();
+        for (int i = 0; i < CACHED_SIZE; i++) {
+            cached.add(createNotification("id" + (i * 2)));
+        }
+
+        fetched = new ArrayList<>();
+        for (int i = 0; i < FETCHED_SIZE; i++) {
+            fetched.add(createNotification("id" + (CACHED_SIZE + i)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        NotificationCache.setMaxSize(NotificationCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void testMerge_matchesLegacyMerge() {
+        List<Notification> legacyCache = fillLegacyCache();
+        List<Notification> expected = legacyMerge(legacyCache, fetched);
+
+        NotificationCache cache = fillCache();
+        List<Notification> result = cache.merge(fetched);
+
+        Assert.assertEquals(expected, result);
+        Assert.assertEquals(legacyCache, cache.getCachedNotifications());
+    }
+
+    @Test
+    public void benchmarkCacheAndMerge() {
+        long legacyTime = 0;
+        long indexedTime = 0;
+
+        for (int i = 0; i <= ITERATIONS; i++) {
+            long legacyStart = System.nanoTime();
+            legacyMerge(fillLegacyCache(), fetched);
+            long legacyElapsed = System.nanoTime() - legacyStart;
+
+            new NotificationCache().clear();
+            long indexedStart = System.nanoTime();
+            fillCache().merge(fetched);
+            long indexedElapsed = System.nanoTime() - indexedStart;
+
+            if (i > 0) {
+                legacyTime += legacyElapsed;
+                indexedTime += indexedElapsed;
+            }
+        }
+
+        Log.i(TAG, String.format("cached: %d, fetched: %d, legacy: %d us, indexed: %d us",
+                CACHED_SIZE,
+                FETCHED_SIZE,
+                legacyTime / ITERATIONS / 1000,
+                indexedTime / ITERATIONS / 1000));
+    }
+
+    private NotificationCache fillCache() {
+        NotificationCache cache = new NotificationCache();
+        for (Notification notification : cached) {
+            cache.cache(notification);
+        }
+        return cache;
+    }
+
+    private List<Notification> fillLegacyCache() {
+        List<Notification> result = new ArrayList<>();
+        for (Notification notification : cached) {
+            result.add(0, notification);
+        }
+        return result;
+    }
+
+    private static List<Notification> legacyMerge(List<Notification> legacyCache, List<Notification> fetchedList) {
+        for (int i = legacyCache.size() - 1; i >= 0; --i) {
+            Notification cachedNotification = legacyCache.get(i);
+            for (Notification fetchedNotification : fetchedList) {
+                if (fetchedNotification.getId().equals(cachedNotification.getId())) {
+                    legacyCache.remove(i);
+                    break;
+                }
+            }
+        }
+
+        List<Notification> result = new ArrayList<>(legacyCache);
+        result.addAll(fetchedList);
+        return result;
+    }
+
+    private static Notification createNotification(String id) {
+        return new Notification(id, "sid", "title", null, new HashMap<String, String>(), new JSONObject(), Integer.MAX_VALUE, System.currentTimeMillis());
+    }
+}
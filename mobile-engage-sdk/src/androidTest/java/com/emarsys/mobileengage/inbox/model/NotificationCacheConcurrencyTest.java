@@ -0,0 +1,181 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationCacheConcurrencyTest {
+
+    private static final int WRITER_COUNT = 4;
+    private static final int MERGER_COUNT = 4;
+    private static final int NOTIFICATIONS_PER_WRITER = 500;
+    private static final int MERGES_PER_MERGER = 200;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private NotificationCache cache;
+    private List<Throwable> errors;
+
+    @Before
+    public void init() {
+        NotificationCache.setStore(null);
+        NotificationCache.setMaxSize(Integer.MAX_VALUE);
+        cache = new NotificationCache();
+        cache.clear();
+        errors = new CopyOnWriteArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        NotificationCache.setMaxSize(NotificationCache.DEFAULT_MAX_SIZE);
+    }
+
+    @Test
+    public void testCacheAndMerge_inParallel() throws InterruptedException {
+        final List<Notification> fetched = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            fetched.add(createNotification("fetched" + i));
+        }
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(WRITER_COUNT + MERGER_COUNT);
+
+        for (int w = 0; w < WRITER_COUNT; w++) {
+            final int writer = w;
+            startThread(start, finish, new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < NOTIFICATIONS_PER_WRITER; i++) {
+                        cache.cache(createNotification("writer" + writer + "_" + i));
+                    }
+                }
+            });
+        }
+
+        for (int m = 0; m < MERGER_COUNT; m++) {
+            startThread(start, finish, new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < MERGES_PER_MERGER; i++) {
+                        List<Notification> result = cache.merge(fetched);
+                        for (Notification notification : result) {
+                            Assert.assertNotNull(notification.getId());
+                        }
+                    }
+                }
+            });
+        }
+
+        start.countDown();
+        finish.await();
+
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+
+        List<Notification> result = cache.merge(fetched);
+        Assert.assertEquals(WRITER_COUNT * NOTIFICATIONS_PER_WRITER + fetched.size(), result.size());
+        assertNoDuplicateIds(result);
+    }
+
+    @Test
+    public void testCacheAndInvalidate_withSnapshotReaders_inParallel() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(3);
+
+        startThread(start, finish, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < NOTIFICATIONS_PER_WRITER * 2; i++) {
+                    cache.cache(createNotification("id" + i));
+                }
+            }
+        });
+
+        startThread(start, finish, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < NOTIFICATIONS_PER_WRITER * 2; i += 2) {
+                    List<Notification> invalidated = new ArrayList<>();
+                    invalidated.add(createNotification("id" + i));
+                    cache.invalidate(invalidated);
+                }
+            }
+        });
+
+        startThread(start, finish, new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < MERGES_PER_MERGER; i++) {
+                    assertNoDuplicateIds(cache.getCachedNotifications());
+                }
+            }
+        });
+
+        start.countDown();
+        finish.await();
+
+        Assert.assertTrue(errors.toString(), errors.isEmpty());
+        assertNoDuplicateIds(cache.getCachedNotifications());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testGetCachedNotifications_returnsImmutableSnapshot() {
+        cache.cache(createNotification("id1"));
+
+        cache.getCachedNotifications().clear();
+    }
+
+    @Test
+    public void testGetCachedNotifications_snapshotIsNotAffectedByLaterWrites() {
+        cache.cache(createNotification("id1"));
+        List<Notification> snapshot = cache.getCachedNotifications();
+
+        cache.cache(createNotification("id2"));
+
+        Assert.assertEquals(1, snapshot.size());
+        Assert.assertEquals(2, cache.getCachedNotifications().size());
+    }
+
+    private void startThread(final CountDownLatch start, final CountDownLatch finish, final Runnable runnable) {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    runnable.run();
+                } catch (Throwable t) {
+                    errors.add(t);
+                } finally {
+                    finish.countDown();
+                }
+            }
+        }).start();
+    }
+
+    private static void assertNoDuplicateIds(List<Notification> notifications) {
+        Set<String> ids = new HashSet<>();
+        for (Notification notification : notifications) {
+            Assert.assertTrue("Duplicate id: " + notification.getId(), ids.add(notification.getId()));
+        }
+    }
+
+    private static Notification createNotification(String id) {
+        return new Notification(id, "sid", "title", null, new HashMap<String, String>(), new JSONObject(), Integer.MAX_VALUE, System.currentTimeMillis());
+    }
+}
@@ -1,10 +1,14 @@
 package com.emarsys.mobileengage.inbox.model;
 
+import android.content.ComponentCallbacks2;
 import android.support.test.runner.AndroidJUnit4;
 
+import com.emarsys.mobileengage.PushEnvelope;
+
 import junit.framework.Assert;
 
 import org.json.JSONObject;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -15,8 +19,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(AndroidJUnit4.class)
 public class NotificationCacheTest {
@@ -32,26 +40,35 @@ public class NotificationCacheTest {
     private Notification notification4;
     private Notification notification5;
 
+    @After
+    public void tearDown() {
+        NotificationCache.clock = NotificationCache.Clock.SYSTEM;
+    }
+
     @Before
     public void init() {
+        NotificationCache.clock = NotificationCache.Clock.SYSTEM;
         notificationCache = new NotificationCache();
-        NotificationCache.internalCache.clear();
+        notificationCache.clear();
+        NotificationCache.setStore(null);
+        NotificationCache.setMaxSize(NotificationCache.DEFAULT_MAX_SIZE);
+
+        long now = System.currentTimeMillis();
 
-        notification1 = new Notification("id1", "sid1", "title1", null, new HashMap<String, String>(), new JSONObject(), 100, 10000000);
-        notification2 = new Notification("id2", "sid2", "title2", null, new HashMap<String, String>(), new JSONObject(), 200, 20000000);
-        notification3 = new Notification("id3", "sid3", "title3", null, new HashMap<String, String>(), new JSONObject(), 300, 30000000);
-        notification4 = new Notification("id4", "sid4", "title4", null, new HashMap<String, String>(), new JSONObject(), 400, 40000000);
-        notification5 = new Notification("id5", "sid5", "title5", null, new HashMap<String, String>(), new JSONObject(), 500, 50000000);
+        notification1 = new Notification("id1", "sid1", "title1", null, new HashMap<String, String>(), new JSONObject(), 100, now + 1);
+        notification2 = new Notification("id2", "sid2", "title2", null, new HashMap<String, String>(), new JSONObject(), 200, now + 2);
+        notification3 = new Notification("id3", "sid3", "title3", null, new HashMap<String, String>(), new JSONObject(), 300, now + 3);
+        notification4 = new Notification("id4", "sid4", "title4", null, new HashMap<String, String>(), new JSONObject(), 400, now + 4);
+        notification5 = new Notification("id5", "sid5", "title5", null, new HashMap<String, String>(), new JSONObject(), 500, now + 5);
     }
 
     @Test
     public void testCache() {
-        Notification notification = mock(Notification.class);
-        notificationCache.cache(notification);
+        notificationCache.cache(notification1);
 
-        Assert.assertFalse(NotificationCache.internalCache.isEmpty());
-        Assert.assertEquals(1, NotificationCache.internalCache.size());
-        Assert.assertEquals(notification, NotificationCache.internalCache.get(0));
+        Assert.assertFalse(notificationCache.getCachedNotifications().isEmpty());
+        Assert.assertEquals(1, notificationCache.getCachedNotifications().size());
+        Assert.assertEquals(notification1, notificationCache.getCachedNotifications().get(0));
     }
 
     @Test
@@ -60,9 +77,202 @@ public class NotificationCacheTest {
         notificationCache.cache(null);
         notificationCache.cache(notification2);
 
-        Assert.assertEquals(2, NotificationCache.internalCache.size());
-        Assert.assertEquals(notification2, NotificationCache.internalCache.get(0));
-        Assert.assertEquals(notification1, NotificationCache.internalCache.get(1));
+        Assert.assertEquals(2, notificationCache.getCachedNotifications().size());
+        Assert.assertEquals(notification2, notificationCache.getCachedNotifications().get(0));
+        Assert.assertEquals(notification1, notificationCache.getCachedNotifications().get(1));
+    }
+
+    @Test
+    public void testCache_sameId_shouldMoveToFront_withoutDuplicates() {
+        notificationCache.cache(notification1);
+        notificationCache.cache(notification2);
+        notificationCache.cache(notification1);
+
+        List<Notification> expected = Arrays.asList(notification1, notification2);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testCache_shouldWriteThroughToStore() {
+        NotificationStore store = mock(NotificationStore.class);
+        NotificationCache.setStore(store);
+
+        notificationCache.cache(notification1);
+
+        verify(store).storePushNotification(notification1);
+    }
+
+    @Test
+    public void testCachePayload_getPayload_fromMemory() {
+        NotificationStore store = mock(NotificationStore.class);
+        NotificationCache.setStore(store);
+        PushEnvelope envelope = PushEnvelope.fromStoredData(new HashMap<String, String>(), 1000);
+
+        notificationCache.cachePayload("token", envelope);
+
+        Assert.assertSame(envelope, notificationCache.getPayload("token"));
+        verify(store).storePushPayload("token", envelope);
+        verify(store, never()).loadPushPayload("token");
+    }
+
+    @Test
+    public void testGetPayload_shouldFallBackToStore() {
+        NotificationStore store = mock(NotificationStore.class);
+        PushEnvelope envelope = PushEnvelope.fromStoredData(new HashMap<String, String>(), 1000);
+        when(store.loadPushPayload("token")).thenReturn(envelope);
+        NotificationCache.setStore(store);
+
+        Assert.assertSame(envelope, notificationCache.getPayload("token"));
+    }
+
+    @Test
+    public void testGetPayload_withUnknownToken_withoutStore() {
+        Assert.assertNull(notificationCache.getPayload("unknown"));
+    }
+
+    @Test
+    public void testCachePayload_shouldKeepLimitedNumberInMemory() {
+        for (int i = 0; i <= NotificationCache.MAX_PAYLOAD_CACHE_SIZE; ++i) {
+            notificationCache.cachePayload("token" + i, PushEnvelope.fromStoredData(new HashMap<String, String>(), i));
+        }
+
+        Assert.assertNull(notificationCache.getPayload("token0"));
+        Assert.assertNotNull(notificationCache.getPayload("token" + NotificationCache.MAX_PAYLOAD_CACHE_SIZE));
+    }
+
+    @Test
+    public void testTrimMemory_moderate_shouldDropPayloads() {
+        notificationCache.cachePayload("token", PushEnvelope.fromStoredData(new HashMap<String, String>(), 0));
+
+        notificationCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+        Assert.assertNull(notificationCache.getPayload("token"));
+    }
+
+    @Test
+    public void testRestore_shouldAppendPersistedNotifications_notAlreadyCached() {
+        notificationCache.cache(notification1);
+
+        notificationCache.restore(Arrays.asList(notification2, notification1, notification3));
+
+        List<Notification> expected = Arrays.asList(notification1, notification2, notification3);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testRestore_ignoresNull() {
+        notificationCache.restore(null);
+
+        Assert.assertTrue(notificationCache.getCachedNotifications().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetMaxSize_shouldNotAcceptNegative() {
+        NotificationCache.setMaxSize(-1);
+    }
+
+    @Test
+    public void testCache_overMaxSize_shouldEvictEarliestExpiringFirst() {
+        NotificationCache.setMaxSize(3);
+
+        notificationCache.cache(notification5);
+        notificationCache.cache(notification1);
+        notificationCache.cache(notification4);
+        notificationCache.cache(notification2);
+
+        List<Notification> expected = Arrays.asList(notification2, notification4, notification5);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testCache_overMaxSize_withSameExpiration_shouldEvictOldestReceivedFirst() {
+        NotificationCache.setMaxSize(2);
+        long now = System.currentTimeMillis();
+        Notification older = new Notification("older", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1001, now - 3000);
+        Notification middle = new Notification("middle", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1000, now - 2000);
+        Notification newest = new Notification("newest", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1000, now - 1000);
+
+        notificationCache.cache(newest);
+        notificationCache.cache(older);
+        notificationCache.cache(middle);
+
+        Assert.assertEquals(Arrays.asList(middle, newest), notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testSetMaxSize_shouldEvictImmediately() {
+        notificationCache.cache(notification3);
+        notificationCache.cache(notification2);
+        notificationCache.cache(notification1);
+
+        NotificationCache.setMaxSize(1);
+
+        Assert.assertEquals(Arrays.asList(notification3), notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testMerge_shouldNotContainExpiredNotifications() {
+        Notification expired = new Notification("expired", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 10, System.currentTimeMillis() - 60000);
+        notificationCache.cache(notification1);
+        notificationCache.cache(expired);
+
+        List<Notification> result = notificationCache.merge(new ArrayList<Notification>());
+
+        Assert.assertEquals(Arrays.asList(notification1), result);
+        Assert.assertEquals(Arrays.asList(notification1), notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testGetCachedNotifications_shouldDropNotificationsExpiringAfterSnapshot() {
+        final long[] now = {System.currentTimeMillis()};
+        NotificationCache.clock = new NotificationCache.Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return now[0];
+            }
+        };
+        Notification expiring = new Notification("expiring", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1, now[0] - 700);
+        notificationCache.cache(notification1);
+        notificationCache.cache(expiring);
+
+        Assert.assertEquals(2, notificationCache.getCachedNotifications().size());
+
+        now[0] += 300;
+
+        Assert.assertEquals(Arrays.asList(notification1), notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testTrimMemory_moderate_shouldReleaseDecodedData() {
+        Notification raw = Notification.fromRawData("raw", "sid", "title", null, "{\"key1\":\"value1\"}", "{}", Integer.MAX_VALUE, System.currentTimeMillis());
+        notificationCache.cache(raw);
+        Map<String, String> decoded = raw.getCustomData();
+
+        notificationCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_MODERATE);
+
+        Assert.assertNotSame(decoded, raw.getCustomData());
+        Assert.assertEquals(Arrays.asList(raw), notificationCache.getCachedNotifications());
+    }
+
+    @Test
+    public void testTrimMemory_runningModerate_shouldKeepDecodedData() {
+        Notification raw = Notification.fromRawData("raw", "sid", "title", null, "{\"key1\":\"value1\"}", "{}", Integer.MAX_VALUE, System.currentTimeMillis());
+        notificationCache.cache(raw);
+        Map<String, String> decoded = raw.getCustomData();
+
+        notificationCache.trimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE);
+
+        Assert.assertSame(decoded, raw.getCustomData());
+    }
+
+    @Test
+    public void testGetEstimatedSizeInBytes() {
+        Assert.assertEquals(0, notificationCache.getEstimatedSizeInBytes());
+
+        notificationCache.cache(notification1);
+        notificationCache.cache(notification2);
+
+        Assert.assertEquals(notification1.getEstimatedSizeInBytes() + notification2.getEstimatedSizeInBytes(), notificationCache.getEstimatedSizeInBytes());
     }
 
     @Test
@@ -135,7 +345,7 @@ public class NotificationCacheTest {
 
         notificationCache.merge(fetched);
 
-        Assert.assertEquals(expected, NotificationCache.internalCache);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
     }
 
     @Test
@@ -150,7 +360,7 @@ public class NotificationCacheTest {
 
         List<Notification> expected = new ArrayList<>(Arrays.asList(notification1, notification2, notification3));
 
-        Assert.assertEquals(expected, NotificationCache.internalCache);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
     }
 
     @Test
@@ -168,8 +378,8 @@ public class NotificationCacheTest {
 
         Notification expected = notification2;
 
-        Assert.assertEquals(1, NotificationCache.internalCache.size());
-        Assert.assertEquals(expected, NotificationCache.internalCache.get(0));
+        Assert.assertEquals(1, notificationCache.getCachedNotifications().size());
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications().get(0));
     }
 
     @Test
@@ -184,6 +394,6 @@ public class NotificationCacheTest {
 
         List<Notification> expected = new ArrayList<>(Arrays.asList(notification1, notification2, notification3));
 
-        Assert.assertEquals(expected, NotificationCache.internalCache);
+        Assert.assertEquals(expected, notificationCache.getCachedNotifications());
     }
 }
\ No newline at end of file
@@ -0,0 +1,242 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.mobileengage.PushEnvelope;
+
+import junit.framework.Assert;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationStoreTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    private Context context;
+    private NotificationStore store;
+
+    private Notification notification1;
+    private Notification notification2;
+    private Notification notification3;
+
+    @Before
+    public void init() throws JSONException {
+        context = InstrumentationRegistry.getTargetContext();
+        context.deleteDatabase(InboxDbHelper.DATABASE_NAME);
+
+        store = new NotificationStore(context);
+
+        Map<String, String> customData = new HashMap<>();
+        customData.put("data1", "dataValue1");
+        long now = System.currentTimeMillis();
+
+        notification1 = new Notification("id1", "sid1", "title1", "body1", customData, new JSONObject().put("param1", "paramValue1"), 100, now - 3000);
+        notification2 = new Notification("id2", "sid2", "title2", null, new HashMap<String, String>(), new JSONObject(), 200, now - 2000);
+        notification3 = Notification.fromRawData("id3", "sid3", "title3", null, "{\"data3\":\"dataValue3\"}", "{}", 300, now - 1000);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(InboxDbHelper.DATABASE_NAME);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_contextShouldNotBeNull() {
+        new NotificationStore(null);
+    }
+
+    @Test
+    public void testLoadPushNotifications_withEmptyStore() {
+        Assert.assertTrue(store.loadPushNotifications().isEmpty());
+    }
+
+    @Test
+    public void testStorePushNotification_loadPushNotifications_newestFirst() {
+        store.storePushNotification(notification1);
+        store.storePushNotification(notification3);
+        store.storePushNotification(notification2);
+
+        List<Notification> expected = Arrays.asList(notification3, notification2, notification1);
+        Assert.assertEquals(expected, store.loadPushNotifications());
+    }
+
+    @Test
+    public void testStorePushNotification_ignoresDuplicates_andNull() {
+        store.storePushNotification(notification1);
+        store.storePushNotification(notification1);
+        store.storePushNotification(null);
+
+        Assert.assertEquals(Arrays.asList(notification1), store.loadPushNotifications());
+    }
+
+    @Test
+    public void testStorePushNotification_deletesExpiredNotifications() {
+        Notification expired = new Notification("expired", "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1, System.currentTimeMillis() - 2000);
+        store.storePushNotification(expired);
+        store.storePushNotification(notification1);
+
+        Assert.assertEquals(Arrays.asList(notification1), store.loadPushNotifications());
+    }
+
+    @Test
+    public void testStorePushNotification_keepsNewestNotificationsOnly() {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i <= NotificationStore.MAX_PUSH_NOTIFICATION_COUNT; ++i) {
+            store.storePushNotification(new Notification("id" + i, "sid", "title", null, new HashMap<String, String>(), new JSONObject(), 1000, now + i));
+        }
+
+        List<Notification> result = store.loadPushNotifications();
+        Assert.assertEquals(NotificationStore.MAX_PUSH_NOTIFICATION_COUNT, result.size());
+        Assert.assertEquals("id" + NotificationStore.MAX_PUSH_NOTIFICATION_COUNT, result.get(0).getId());
+        Assert.assertEquals("id1", result.get(result.size() - 1).getId());
+    }
+
+    @Test
+    public void testClose_laterCallsAreIgnored() {
+        store.close();
+
+        store.storePushNotification(notification1);
+
+        Assert.assertTrue(store.loadPushNotifications().isEmpty());
+        Assert.assertNull(store.getContact());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStoreInboxStatus_statusShouldNotBeNull() {
+        store.storeInboxStatus(null);
+    }
+
+    @Test
+    public void testStoreInboxStatus_loadInboxStatus() {
+        NotificationInboxStatus status = new NotificationInboxStatus(Arrays.asList(notification2, notification1, notification3), 42);
+
+        store.storeInboxStatus(status);
+
+        NotificationInboxStatus result = store.loadInboxStatus();
+        Assert.assertEquals(status, result);
+        Assert.assertEquals(42, result.getBadgeCount());
+    }
+
+    @Test
+    public void testStoreInboxStatus_replacesPreviousStatus() {
+        store.storeInboxStatus(new NotificationInboxStatus(Arrays.asList(notification1, notification2), 2));
+        store.storeInboxStatus(new NotificationInboxStatus(Arrays.asList(notification3), 1));
+
+        NotificationInboxStatus result = store.loadInboxStatus();
+        Assert.assertEquals(Arrays.asList(notification3), result.getNotifications());
+        Assert.assertEquals(1, result.getBadgeCount());
+    }
+
+    @Test
+    public void testStoreInboxStatus_takesOverPushNotification_withSameId() {
+        store.storePushNotification(notification1);
+
+        store.storeInboxStatus(new NotificationInboxStatus(Arrays.asList(notification1), 1));
+
+        Assert.assertTrue(store.loadPushNotifications().isEmpty());
+        Assert.assertEquals(Arrays.asList(notification1), store.loadInboxStatus().getNotifications());
+    }
+
+    @Test
+    public void testStore_survivesReopen() {
+        store.storePushNotification(notification1);
+        store.storeInboxStatus(new NotificationInboxStatus(Arrays.asList(notification2), 5));
+
+        NotificationStore reopened = new NotificationStore(context);
+
+        Assert.assertEquals(Arrays.asList(notification1), reopened.loadPushNotifications());
+        Assert.assertEquals(new NotificationInboxStatus(Arrays.asList(notification2), 5), reopened.loadInboxStatus());
+    }
+
+    @Test
+    public void testLoadPushPayload_withUnknownToken() {
+        Assert.assertNull(store.loadPushPayload("unknown"));
+    }
+
+    @Test
+    public void testStorePushPayload_loadPushPayload() {
+        Map<String, String> data = new HashMap<>();
+        data.put("title", "title");
+        data.put("u", "{\"sid\":\"sid_here\"}");
+        PushEnvelope envelope = PushEnvelope.fromStoredData(data, 1000);
+
+        store.storePushPayload("token", envelope);
+
+        PushEnvelope result = new NotificationStore(context).loadPushPayload("token");
+        Assert.assertEquals(envelope, result);
+        Assert.assertEquals("sid_here", result.getSid());
+    }
+
+    @Test
+    public void testStorePushPayload_replacesPayload_withSameToken() {
+        PushEnvelope envelope = PushEnvelope.fromStoredData(new HashMap<String, String>(), 2000);
+
+        store.storePushPayload("token", PushEnvelope.fromStoredData(new HashMap<String, String>(), 1000));
+        store.storePushPayload("token", envelope);
+
+        Assert.assertEquals(envelope, store.loadPushPayload("token"));
+    }
+
+    @Test
+    public void testStorePushPayload_keepsNewestPayloadsOnly() {
+        for (int i = 0; i <= NotificationStore.MAX_PAYLOAD_COUNT; ++i) {
+            store.storePushPayload("token" + i, PushEnvelope.fromStoredData(new HashMap<String, String>(), i));
+        }
+
+        Assert.assertNull(store.loadPushPayload("token0"));
+        Assert.assertNotNull(store.loadPushPayload("token1"));
+        Assert.assertNotNull(store.loadPushPayload("token" + NotificationStore.MAX_PAYLOAD_COUNT));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStorePushPayload_tokenShouldNotBeNull() {
+        store.storePushPayload(null, PushEnvelope.fromStoredData(new HashMap<String, String>(), 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStorePushPayload_envelopeShouldNotBeNull() {
+        store.storePushPayload("token", null);
+    }
+
+    @Test
+    public void testContact() {
+        Assert.assertNull(store.getContact());
+
+        store.setContact("3:value");
+        Assert.assertEquals("3:value", store.getContact());
+
+        store.setContact(null);
+        Assert.assertNull(store.getContact());
+    }
+
+    @Test
+    public void testClear_shouldKeepPushPayloads() {
+        store.storePushNotification(notification1);
+        store.storeInboxStatus(new NotificationInboxStatus(Arrays.asList(notification2), 5));
+        store.setContact("3:value");
+        store.storePushPayload("token", PushEnvelope.fromStoredData(new HashMap<String, String>(), 0));
+
+        store.clear();
+
+        Assert.assertTrue(store.loadPushNotifications().isEmpty());
+        Assert.assertEquals(new NotificationInboxStatus(), store.loadInboxStatus());
+        Assert.assertNull(store.getContact());
+        Assert.assertNotNull(store.loadPushPayload("token"));
+    }
+}
@@ -0,0 +1,171 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import junit.framework.Assert;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationTest {
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Test
+    public void testFromRawData_decodesCustomData() {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\",\"key2\":2}", "{}", 100, 10000000);
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("key1", "value1");
+        expected.put("key2", "2");
+
+        Assert.assertEquals(expected, notification.getCustomData());
+    }
+
+    @Test
+    public void testFromRawData_decodesRootParams() throws JSONException {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+
+        JSONObject expected = new JSONObject().put("param1", "paramValue1");
+
+        Assert.assertEquals(expected.toString(), notification.getRootParams().toString());
+    }
+
+    @Test
+    public void testFromRawData_withInvalidRawData_returnsEmptyData() {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "not json", null, 100, 10000000);
+
+        Assert.assertEquals(new HashMap<String, String>(), notification.getCustomData());
+        Assert.assertEquals(0, notification.getRootParams().length());
+    }
+
+    @Test
+    public void testFromRawData_shouldDecodeOnlyOnce() {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+
+        Assert.assertSame(notification.getCustomData(), notification.getCustomData());
+        Assert.assertSame(notification.getRootParams(), notification.getRootParams());
+    }
+
+    @Test
+    public void testFromRawData_shouldDecodeOnlyOnce_whenAccessedConcurrently() throws InterruptedException {
+        final Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{}", 100, 10000000);
+        final int threadCount = 8;
+        final Object[] results = new Object[threadCount];
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch finish = new CountDownLatch(threadCount);
+
+        for (int i = 0; i < threadCount; i++) {
+            final int index = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results[index] = notification.getCustomData();
+                    } catch (InterruptedException ignored) {
+                    }
+                    finish.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        finish.await();
+
+        for (Object result : results) {
+            Assert.assertSame(results[0], result);
+        }
+    }
+
+    @Test
+    public void testReleaseDecodedData_shouldDecodeAgainFromRawData() {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+        Map<String, String> customData = notification.getCustomData();
+        JSONObject rootParams = notification.getRootParams();
+
+        notification.releaseDecodedData();
+
+        Assert.assertNotSame(customData, notification.getCustomData());
+        Assert.assertEquals(customData, notification.getCustomData());
+        Assert.assertNotSame(rootParams, notification.getRootParams());
+        Assert.assertEquals(rootParams.toString(), notification.getRootParams().toString());
+    }
+
+    @Test
+    public void testReleaseDecodedData_shouldKeepDataWithoutRawSource() {
+        Map<String, String> customData = new HashMap<>();
+        customData.put("key1", "value1");
+        Notification notification = new Notification("id1", "sid1", "title1", null, customData, new JSONObject(), 100, 10000000);
+
+        notification.releaseDecodedData();
+
+        Assert.assertSame(customData, notification.getCustomData());
+    }
+
+    @Test
+    public void testGetEstimatedSizeInBytes_growsWithDecodedData() {
+        Notification notification = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{}", 100, 10000000);
+        long rawSize = notification.getEstimatedSizeInBytes();
+
+        notification.getCustomData();
+
+        Assert.assertTrue(rawSize > 0);
+        Assert.assertTrue(notification.getEstimatedSizeInBytes() > rawSize);
+    }
+
+    @Test
+    public void testEquals_rawAndDecodedNotificationsAreEqual() throws JSONException {
+        Map<String, String> customData = new HashMap<>();
+        customData.put("key1", "value1");
+
+        Notification decoded = new Notification("id1", "sid1", "title1", null, customData, new JSONObject().put("param1", "paramValue1"), 100, 10000000);
+        Notification raw = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+
+        Assert.assertEquals(decoded, raw);
+        Assert.assertEquals(raw, decoded);
+    }
+
+    @Test
+    public void testEquals_shouldNotDecode_whenRawDataMatches() {
+        Notification notification1 = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+        Notification notification2 = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+        long rawSize = notification1.getEstimatedSizeInBytes();
+
+        Assert.assertEquals(notification1, notification2);
+        Assert.assertEquals(notification1.hashCode(), notification2.hashCode());
+        notification1.toString();
+
+        Assert.assertEquals(rawSize, notification1.getEstimatedSizeInBytes());
+        Assert.assertEquals(rawSize, notification2.getEstimatedSizeInBytes());
+    }
+
+    @Test
+    public void testEquals_differentCustomData() {
+        Notification notification1 = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value1\"}", "{}", 100, 10000000);
+        Notification notification2 = Notification.fromRawData("id1", "sid1", "title1", null, "{\"key1\":\"value2\"}", "{}", 100, 10000000);
+
+        Assert.assertFalse(notification1.equals(notification2));
+    }
+
+    @Test
+    public void testHashCode_rawAndDecodedNotificationsAreEqual() throws JSONException {
+        Map<String, String> customData = new HashMap<>();
+        customData.put("key1", "value1");
+
+        Notification decoded = new Notification("id1", "sid1", "title1", null, customData, new JSONObject().put("param1", "paramValue1"), 100, 10000000);
+        Notification raw = Notification.fromRawData("id1", "sid1", "title1", null, "{ \"key1\" : \"value1\" }", "{\"param1\":\"paramValue1\"}", 100, 10000000);
+
+        Assert.assertEquals(decoded, raw);
+        Assert.assertEquals(decoded.hashCode(), raw.hashCode());
+    }
+}
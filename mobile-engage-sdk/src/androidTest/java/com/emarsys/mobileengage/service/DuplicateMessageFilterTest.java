@@ -0,0 +1,146 @@
+package com.emarsys.mobileengage.service;
+
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class DuplicateMessageFilterTest {
+
+    private File file;
+    private DuplicateMessageFilter filter;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        file = new File(InstrumentationRegistry.getTargetContext().getCacheDir(), "duplicate_filter_test");
+        file.delete();
+        filter = new DuplicateMessageFilter(file, 100, 0.001);
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_fileMustNotBeNull() {
+        new DuplicateMessageFilter(null, 100, 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_capacityMustBePositive() {
+        new DuplicateMessageFilter(file, 0, 0.001);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_falsePositiveRateMustBePositive() {
+        new DuplicateMessageFilter(file, 100, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_falsePositiveRateMustBeLessThanOne() {
+        new DuplicateMessageFilter(file, 100, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIsDuplicate_messageIdMustNotBeNull() {
+        filter.isDuplicate(null);
+    }
+
+    @Test
+    public void testIsDuplicate() {
+        assertFalse(filter.isDuplicate("message1"));
+        assertFalse(filter.isDuplicate("message2"));
+
+        assertTrue(filter.isDuplicate("message1"));
+        assertTrue(filter.isDuplicate("message2"));
+    }
+
+    @Test
+    public void testIsDuplicate_shouldSurviveRestart() {
+        filter.isDuplicate("message1");
+
+        DuplicateMessageFilter restarted = new DuplicateMessageFilter(file, 100, 0.001);
+
+        assertTrue(restarted.isDuplicate("message1"));
+        assertFalse(restarted.isDuplicate("message2"));
+    }
+
+    @Test
+    public void testIsDuplicate_shouldStartEmpty_whenParametersChanged() {
+        filter.isDuplicate("message1");
+
+        DuplicateMessageFilter resized = new DuplicateMessageFilter(file, 200, 0.001);
+
+        assertFalse(resized.isDuplicate("message1"));
+    }
+
+    @Test
+    public void testIsDuplicate_shouldRememberPreviousGeneration() {
+        filter.isDuplicate("message0");
+        for (int i = 1; i <= 150; i++) {
+            filter.isDuplicate("other" + i);
+        }
+
+        assertTrue(filter.isDuplicate("message0"));
+    }
+
+    @Test
+    public void testIsDuplicate_shouldForgetAfterTwoGenerations() {
+        filter.isDuplicate("message0");
+        for (int i = 1; i <= 200; i++) {
+            filter.isDuplicate("other" + i);
+        }
+
+        assertFalse(filter.isDuplicate("message0"));
+    }
+
+    @Test
+    public void testIsDuplicate_falsePositiveRate_shouldStayNearConfiguredRate() {
+        DuplicateMessageFilter measured = new DuplicateMessageFilter(file, 1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            measured.isDuplicate("known" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (measured.isDuplicate("unknown" + i)) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue("False positives: " + falsePositives, falsePositives <= 30);
+    }
+
+    @Test
+    public void testClear() {
+        filter.isDuplicate("message1");
+
+        filter.clear();
+
+        assertFalse(file.exists());
+        assertFalse(filter.isDuplicate("message1"));
+    }
+
+    @Test
+    public void testSize_isBoundedByCapacityAndRate() {
+        assertEquals(0, filter.bitCount % 64);
+        assertTrue(filter.bitCount < 100 * 20);
+        assertTrue(filter.hashCount > 0);
+    }
+}
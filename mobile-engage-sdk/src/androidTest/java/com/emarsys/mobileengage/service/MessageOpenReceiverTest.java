@@ -0,0 +1,64 @@
+package com.emarsys.mobileengage.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.mobileengage.PushEnvelope;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageOpenReceiverTest {
+
+    private Context context;
+    private RecordingReceiver receiver;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        context = mock(Context.class);
+        receiver = new RecordingReceiver();
+    }
+
+    @Test
+    public void testOnReceive_tracksOpen() {
+        Intent intent = new Intent();
+        intent.putExtra(PushEnvelope.EXTRA_OPEN_TOKEN, "ems_token");
+
+        receiver.onReceive(context, intent);
+
+        assertNotNull(receiver.trackedIntent);
+        assertEquals("ems_token", receiver.trackedIntent.getStringExtra(PushEnvelope.EXTRA_OPEN_TOKEN));
+    }
+
+    @Test
+    public void testOnReceive_doesNotStartActivity() {
+        receiver.onReceive(context, new Intent());
+
+        verify(context, never()).startActivity(any(Intent.class));
+    }
+
+    private static class RecordingReceiver extends MessageOpenReceiver {
+        Intent trackedIntent;
+
+        @Override
+        void trackOpen(Intent openIntent, BroadcastReceiver.PendingResult pendingResult) {
+            trackedIntent = openIntent;
+        }
+    }
+}
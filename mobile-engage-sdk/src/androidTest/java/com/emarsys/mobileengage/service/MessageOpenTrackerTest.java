@@ -0,0 +1,145 @@
+package com.emarsys.mobileengage.service;
+
+import android.app.Activity;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.support.test.runner.AndroidJUnit4;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class MessageOpenTrackerTest {
+
+    private Handler coreSdkHandler;
+    private MessageOpenTracker tracker;
+    private Activity activity;
+    private ViewTreeObserver viewTreeObserver;
+    private Intent intent;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        coreSdkHandler = mock(Handler.class);
+        tracker = new MessageOpenTracker(coreSdkHandler);
+
+        viewTreeObserver = mock(ViewTreeObserver.class);
+        View decorView = mock(View.class);
+        when(decorView.getViewTreeObserver()).thenReturn(viewTreeObserver);
+        Window window = mock(Window.class);
+        when(window.getDecorView()).thenReturn(decorView);
+
+        intent = new Intent();
+        intent.putExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN, true);
+        activity = mock(Activity.class);
+        when(activity.getIntent()).thenReturn(intent);
+        when(activity.getWindow()).thenReturn(window);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_coreSdkHandlerMustNotBeNull() {
+        new MessageOpenTracker(null);
+    }
+
+    @Test
+    public void testOnActivityCreated_tracksOpen_onCoreSdkHandler() {
+        tracker.onActivityCreated(activity, null);
+
+        verify(coreSdkHandler).post(any(Runnable.class));
+        assertFalse(intent.hasExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN));
+        assertTrue(tracker.getLastSdkOverheadMicros() >= 0);
+    }
+
+    @Test
+    public void testOnActivityCreated_measuresFirstFrame() {
+        tracker.onActivityCreated(activity, null);
+
+        ArgumentCaptor<ViewTreeObserver.OnPreDrawListener> captor = ArgumentCaptor.forClass(ViewTreeObserver.OnPreDrawListener.class);
+        verify(viewTreeObserver).addOnPreDrawListener(captor.capture());
+        assertFalse(intent.hasExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN));
+
+        captor.getValue().onPreDraw();
+
+        verify(viewTreeObserver).removeOnPreDrawListener(captor.getValue());
+        assertTrue(tracker.getLastTimeToFirstFrameMillis() >= 0);
+    }
+
+    @Test
+    public void testOnActivityCreated_measuresOnlyOnce() {
+        tracker.onActivityCreated(activity, null);
+        tracker.onActivityResumed(activity);
+        tracker.onActivityResumed(activity);
+
+        verify(viewTreeObserver, times(1)).addOnPreDrawListener(any(ViewTreeObserver.OnPreDrawListener.class));
+        verify(coreSdkHandler, times(1)).post(any(Runnable.class));
+    }
+
+    @Test
+    public void testOnActivityCreated_doesNotMeasure_whenActivityIsRecreated() {
+        tracker.onActivityCreated(activity, new Bundle());
+        tracker.onActivityResumed(activity);
+
+        verify(coreSdkHandler, never()).post(any(Runnable.class));
+        verify(viewTreeObserver, never()).addOnPreDrawListener(any(ViewTreeObserver.OnPreDrawListener.class));
+        assertFalse(intent.hasExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN));
+    }
+
+    @Test
+    public void testOnActivityCreated_doesNotMeasure_whenLaunchedFromHistory() {
+        intent.addFlags(Intent.FLAG_ACTIVITY_LAUNCHED_FROM_HISTORY);
+
+        tracker.onActivityCreated(activity, null);
+
+        verify(coreSdkHandler, never()).post(any(Runnable.class));
+        verify(viewTreeObserver, never()).addOnPreDrawListener(any(ViewTreeObserver.OnPreDrawListener.class));
+    }
+
+    @Test
+    public void testOnActivityCreated_doesNotMeasure_withoutMessageOpenExtra() {
+        when(activity.getIntent()).thenReturn(new Intent());
+
+        tracker.onActivityCreated(activity, null);
+
+        verify(coreSdkHandler, never()).post(any(Runnable.class));
+        verify(viewTreeObserver, never()).addOnPreDrawListener(any(ViewTreeObserver.OnPreDrawListener.class));
+    }
+
+    @Test
+    public void testOnActivityResumed_tracksOpen_forIntentSetInOnNewIntent() {
+        tracker.onActivityCreated(activity, null);
+
+        Intent newIntent = new Intent();
+        newIntent.putExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN, true);
+        when(activity.getIntent()).thenReturn(newIntent);
+        tracker.onActivityResumed(activity);
+
+        verify(coreSdkHandler, times(2)).post(any(Runnable.class));
+        verify(viewTreeObserver, times(2)).addOnPreDrawListener(any(ViewTreeObserver.OnPreDrawListener.class));
+    }
+
+    @Test
+    public void testMetrics_areNotAvailable_beforeAnyOpen() {
+        assertEquals(-1, tracker.getLastSdkOverheadMicros());
+        assertEquals(-1, tracker.getLastTimeToFirstFrameMillis());
+    }
+}
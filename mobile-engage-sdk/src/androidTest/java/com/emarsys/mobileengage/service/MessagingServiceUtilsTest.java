@@ -5,12 +5,14 @@ import android.app.NotificationManager;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.ApplicationInfo;
+import android.graphics.Bitmap;
 import android.os.Build;
 import android.support.test.InstrumentationRegistry;
 import android.support.test.filters.SdkSuppress;
 import android.support.test.runner.AndroidJUnit4;
 import android.support.v4.app.NotificationCompat;
 
+import com.emarsys.mobileengage.PushEnvelope;
 import com.emarsys.mobileengage.config.OreoConfig;
 import com.emarsys.mobileengage.inbox.model.Notification;
 import com.emarsys.mobileengage.inbox.model.NotificationCache;
@@ -22,7 +24,7 @@ import org.junit.Test;
 import org.junit.rules.Timeout;
 import org.junit.runner.RunWith;
 
-import java.lang.reflect.Field;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -43,7 +45,6 @@ public class MessagingServiceUtilsTest {
     private static final String CHANNEL_ID = "channelId";
 
     private Context context;
-    private List<Notification> notificationCache;
     private OreoConfig enabledOreoConfig;
     private OreoConfig disabledOreoConfig;
 
@@ -55,10 +56,8 @@ public class MessagingServiceUtilsTest {
     public void init() throws Exception {
         context = InstrumentationRegistry.getContext();
 
-        Field cacheField = NotificationCache.class.getDeclaredField("internalCache");
-        cacheField.setAccessible(true);
-        notificationCache = (List) cacheField.get(null);
-        notificationCache.clear();
+        new NotificationCache().clear();
+        NotificationEnvironment.invalidate();
 
         enabledOreoConfig = new OreoConfig(true, "name", "description");
         disabledOreoConfig = new OreoConfig(false);
@@ -92,18 +91,38 @@ public class MessagingServiceUtilsTest {
 
     @Test
     public void createIntent() {
+        Intent resultIntent = MessagingServiceUtils.createIntent("ems_token", context);
+
+        assertEquals(MessageOpenReceiver.class.getName(), resultIntent.getComponent().getClassName());
+        assertEquals("ems_token", resultIntent.getStringExtra(PushEnvelope.EXTRA_OPEN_TOKEN));
+        assertNull(resultIntent.getBundleExtra("payload"));
+    }
+
+    @Test
+    public void createLaunchIntent() {
+        Intent resultIntent = MessagingServiceUtils.createLaunchIntent("ems_token", new Intent());
+
+        assertEquals("ems_token", resultIntent.getStringExtra(PushEnvelope.EXTRA_OPEN_TOKEN));
+        assertNull(resultIntent.getBundleExtra("payload"));
+        assertTrue(resultIntent.getBooleanExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN, false));
+        assertEquals(Intent.FLAG_ACTIVITY_NEW_TASK, resultIntent.getFlags() & Intent.FLAG_ACTIVITY_NEW_TASK);
+    }
+
+    @Test
+    public void cachePayload_shouldBeResolvableByOpenToken() {
         Map<String, String> remoteMessageData = new HashMap<>();
-        remoteMessageData.put("key1", "value1");
-        remoteMessageData.put("key2", "value2");
+        remoteMessageData.put("body", "a rather long body");
+        remoteMessageData.put("u", "{\"sid\":\"sid_here\"}");
+        PushEnvelope envelope = PushEnvelope.fromRemoteMessageData(remoteMessageData);
 
-        Intent resultIntent = MessagingServiceUtils.createIntent(remoteMessageData, context);
-        assertEquals("value1", resultIntent.getBundleExtra("payload").getString("key1"));
-        assertEquals("value2", resultIntent.getBundleExtra("payload").getString("key2"));
+        MessagingServiceUtils.cachePayload("ems_token", envelope);
+
+        assertEquals(envelope, new NotificationCache().getPayload("ems_token"));
     }
 
     @Test
     public void createNotification_shouldNotBeNull() {
-        assertNotNull(MessagingServiceUtils.createNotification(context, new HashMap<String, String>(), disabledOreoConfig));
+        assertNotNull(MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(new HashMap<String, String>()), disabledOreoConfig, null, null, "ems_token"));
     }
 
     @Test
@@ -113,7 +132,7 @@ public class MessagingServiceUtilsTest {
         input.put("title", TITLE);
         input.put("body", BODY);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE));
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE_BIG));
@@ -129,7 +148,7 @@ public class MessagingServiceUtilsTest {
         Map<String, String> input = new HashMap<>();
         input.put("title", TITLE);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE));
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE_BIG));
@@ -145,7 +164,7 @@ public class MessagingServiceUtilsTest {
         Map<String, String> input = new HashMap<>();
         input.put("body", BODY);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         String expectedTitle = expectedBasedOnApiLevel(getApplicationName(), "");
 
@@ -164,7 +183,7 @@ public class MessagingServiceUtilsTest {
         input.put("body", BODY);
         input.put("u", "{\"test_field\":\"\",\"ems_default_title\":\"" + DEFAULT_TITLE + "\",\"image\":\"https:\\/\\/media.giphy.com\\/media\\/ktvFa67wmjDEI\\/giphy.gif\",\"deep_link\":\"lifestylelabels.com\\/mobile\\/product\\/3245678\",\"sid\":\"sid_here\"}");
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         String expectedTitle = expectedBasedOnApiLevel(DEFAULT_TITLE, "");
 
@@ -184,7 +203,9 @@ public class MessagingServiceUtilsTest {
         input.put("body", BODY);
         input.put("image_url", "https://ems-denna.herokuapp.com/images/Emarsys.png");
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        Bitmap image = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, image, null, "ems_token");
 
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE));
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE_BIG));
@@ -198,13 +219,13 @@ public class MessagingServiceUtilsTest {
 
     @Test
     @SdkSuppress(minSdkVersion = LOLLIPOP)
-    public void testCreateNotification_withBigTextStyle_whenImageCannotBeLoaded() {
+    public void testCreateNotification_withBigTextStyle_whenImageIsNotLoadedYet() {
         Map<String, String> input = new HashMap<>();
         input.put("title", TITLE);
         input.put("body", BODY);
-        input.put("image_url", "https://fa.il/img.jpg");
+        input.put("image_url", "https://ems-denna.herokuapp.com/images/Emarsys.png");
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE));
         assertEquals(TITLE, result.extras.getString(NotificationCompat.EXTRA_TITLE_BIG));
@@ -214,6 +235,104 @@ public class MessagingServiceUtilsTest {
         assertNull(result.extras.getString(NotificationCompat.EXTRA_SUMMARY_TEXT));
     }
 
+    @Test
+    public void testCreateNotification_alerts_withoutImage() {
+        Map<String, String> input = new HashMap<>();
+        input.put("title", TITLE);
+        input.put("body", BODY);
+
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
+
+        assertEquals(0, result.flags & android.app.Notification.FLAG_ONLY_ALERT_ONCE);
+    }
+
+    @Test
+    public void testCreateNotification_withImage_shouldOnlyAlertOnce() {
+        Map<String, String> input = new HashMap<>();
+        input.put("title", TITLE);
+        input.put("body", BODY);
+        Bitmap image = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, image, null, "ems_token");
+
+        assertTrue((result.flags & android.app.Notification.FLAG_ONLY_ALERT_ONCE) != 0);
+    }
+
+    @Test
+    public void testCreateNotification_withoutGroupKey_isNotGrouped() {
+        Map<String, String> input = new HashMap<>();
+        input.put("title", TITLE);
+
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
+
+        assertNull(NotificationCompat.getGroup(result));
+    }
+
+    @Test
+    public void testCreateNotification_withGroupKey() {
+        Map<String, String> input = new HashMap<>();
+        input.put("title", TITLE);
+
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, NotificationGrouper.GROUP_KEY, "ems_token");
+
+        assertEquals(NotificationGrouper.GROUP_KEY, NotificationCompat.getGroup(result));
+        assertFalse(NotificationCompat.isGroupSummary(result));
+    }
+
+    @Test
+    public void testCreateSummaryNotification() {
+        Map<String, String> input = new HashMap<>();
+        input.put("title", TITLE);
+
+        android.app.Notification result = MessagingServiceUtils.createSummaryNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, Arrays.asList("title3", "title2", "title1"));
+
+        assertEquals(NotificationGrouper.GROUP_KEY, NotificationCompat.getGroup(result));
+        assertTrue(NotificationCompat.isGroupSummary(result));
+        assertEquals(3, result.number);
+    }
+
+    @Test
+    public void testGetNotificationTag_prefersCollapseId() {
+        Map<String, String> input = new HashMap<>();
+        input.put("collapse_id", "collapseId");
+        input.put("id", "messageId");
+
+        assertEquals("ems_collapseId", MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input)));
+    }
+
+    @Test
+    public void testGetNotificationTag_usesMessageId() {
+        Map<String, String> input = new HashMap<>();
+        input.put("id", "messageId");
+        input.put("u", "{\"sid\":\"sid_here\"}");
+
+        assertEquals("ems_messageId", MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input)));
+    }
+
+    @Test
+    public void testGetNotificationTag_ignoresSid_withoutMessageId() {
+        Map<String, String> input = new HashMap<>();
+        input.put("u", "{\"sid\":\"sid_here\"}");
+
+        String first = MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input));
+        String second = MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input));
+
+        assertFalse(first.equals("ems_sid_here"));
+        assertFalse(first.equals(second));
+    }
+
+    @Test
+    public void testGetNotificationTag_isUnique_withoutAnyId() {
+        Map<String, String> input = new HashMap<>();
+
+        assertFalse(MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input)).equals(MessagingServiceUtils.getNotificationTag(PushEnvelope.fromRemoteMessageData(input))));
+    }
+
+    @Test
+    public void testGetNotificationId_isStable() {
+        assertEquals(MessagingServiceUtils.getNotificationId("ems_messageId"), MessagingServiceUtils.getNotificationId("ems_messageId"));
+    }
+
     @Test
     @SdkSuppress(minSdkVersion = O)
     public void testCreateNotification_withChannelId() {
@@ -222,7 +341,7 @@ public class MessagingServiceUtilsTest {
         input.put("body", BODY);
         input.put("channel_id", CHANNEL_ID);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         assertEquals(CHANNEL_ID, result.getChannelId());
     }
@@ -234,7 +353,7 @@ public class MessagingServiceUtilsTest {
         input.put("title", TITLE);
         input.put("body", BODY);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, enabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), enabledOreoConfig, null, null, "ems_token");
 
         String expected = "ems_me_default";
 
@@ -248,7 +367,7 @@ public class MessagingServiceUtilsTest {
         input.put("title", TITLE);
         input.put("body", BODY);
 
-        android.app.Notification result = MessagingServiceUtils.createNotification(context, input, disabledOreoConfig);
+        android.app.Notification result = MessagingServiceUtils.createNotification(context, PushEnvelope.fromRemoteMessageData(input), disabledOreoConfig, null, null, "ems_token");
 
         assertNull(result.getChannelId());
     }
@@ -292,7 +411,7 @@ public class MessagingServiceUtilsTest {
         Map<String, String> input = new HashMap<>();
         input.put("title", TITLE);
 
-        assertEquals(TITLE, MessagingServiceUtils.getTitle(input, context));
+        assertEquals(TITLE, MessagingServiceUtils.getTitle(PushEnvelope.fromRemoteMessageData(input), context));
     }
 
     @Test
@@ -307,7 +426,7 @@ public class MessagingServiceUtilsTest {
 
         String expected = expectedBasedOnApiLevel(expectedBefore23, expectedFrom23);
 
-        assertEquals(expected, MessagingServiceUtils.getTitle(input, context));
+        assertEquals(expected, MessagingServiceUtils.getTitle(PushEnvelope.fromRemoteMessageData(input), context));
     }
 
     @Test
@@ -323,7 +442,7 @@ public class MessagingServiceUtilsTest {
 
         String expected = expectedBasedOnApiLevel(expectedBefore23, expectedFrom23);
 
-        assertEquals(expected, MessagingServiceUtils.getTitle(input, context));
+        assertEquals(expected, MessagingServiceUtils.getTitle(PushEnvelope.fromRemoteMessageData(input), context));
     }
 
     @Test
@@ -339,7 +458,7 @@ public class MessagingServiceUtilsTest {
 
         String expected = expectedBasedOnApiLevel(DEFAULT_TITLE, expectedFrom23);
 
-        assertEquals(expected, MessagingServiceUtils.getTitle(input, context));
+        assertEquals(expected, MessagingServiceUtils.getTitle(PushEnvelope.fromRemoteMessageData(input), context));
     }
 
 
@@ -351,7 +470,7 @@ public class MessagingServiceUtilsTest {
         input.put("title", TITLE);
         input.put("u", "{\"test_field\":\"\",\"ems_default_title\":\"" + DEFAULT_TITLE + "\",\"image\":\"https:\\/\\/media.giphy.com\\/media\\/ktvFa67wmjDEI\\/giphy.gif\",\"deep_link\":\"lifestylelabels.com\\/mobile\\/product\\/3245678\",\"sid\":\"sid_here\"}");
 
-        assertEquals(TITLE, MessagingServiceUtils.getTitle(input, context));
+        assertEquals(TITLE, MessagingServiceUtils.getTitle(PushEnvelope.fromRemoteMessageData(input), context));
     }
 
     @Test
@@ -371,9 +490,10 @@ public class MessagingServiceUtilsTest {
         customData.put("sid", "sid_here");
 
         long before = System.currentTimeMillis();
-        MessagingServiceUtils.cacheNotification(remoteData);
+        MessagingServiceUtils.cacheNotification(PushEnvelope.fromRemoteMessageData(remoteData));
         long after = System.currentTimeMillis();
 
+        List<Notification> notificationCache = new NotificationCache().getCachedNotifications();
         assertEquals(1, notificationCache.size());
 
         Notification result = notificationCache.get(0);
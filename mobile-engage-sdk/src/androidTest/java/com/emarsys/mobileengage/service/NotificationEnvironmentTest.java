@@ -0,0 +1,118 @@
+package com.emarsys.mobileengage.service;
+
+import android.app.Application;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.filters.SdkSuppress;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.emarsys.mobileengage.config.OreoConfig;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import static android.os.Build.VERSION_CODES.O;
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationEnvironmentTest {
+
+    private Context context;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        context = InstrumentationRegistry.getContext();
+        NotificationEnvironment.invalidate();
+    }
+
+    @Test
+    public void testGet_resolvesEnvironment() {
+        NotificationEnvironment result = NotificationEnvironment.get(context);
+
+        assertEquals(context.getPackageName(), result.packageName);
+        assertEquals(MessagingServiceUtils.getSmallIconResourceId(context), result.smallIconResourceId);
+        assertNotNull(result.applicationLabel);
+        assertNull(result.defaultChannelConfig);
+    }
+
+    @Test
+    public void testGet_returnsMemoizedEnvironment() {
+        assertSame(NotificationEnvironment.get(context), NotificationEnvironment.get(context));
+    }
+
+    @Test
+    public void testGet_doesNotQueryPackageManagerAgain() {
+        NotificationEnvironment.get(context);
+        Context spyContext = spy(context);
+
+        NotificationEnvironment.get(spyContext);
+
+        verify(spyContext, times(0)).getPackageManager();
+        verify(spyContext, times(0)).getApplicationInfo();
+    }
+
+    @Test
+    public void testInvalidate_resolvesNewEnvironment() {
+        NotificationEnvironment environment = NotificationEnvironment.get(context);
+
+        NotificationEnvironment.invalidate();
+
+        assertNotSame(environment, NotificationEnvironment.get(context));
+    }
+
+    @Test
+    public void testOnConfigurationChanged_invalidatesEnvironment() {
+        NotificationEnvironment environment = NotificationEnvironment.get(context);
+
+        ((Application) context.getApplicationContext()).onConfigurationChanged(context.getResources().getConfiguration());
+
+        assertNotSame(environment, NotificationEnvironment.get(context));
+    }
+
+    @Test
+    public void testEnsureDefaultChannel_remembersCreatedChannelConfig() {
+        OreoConfig oreoConfig = new OreoConfig(true, "name", "description");
+
+        NotificationEnvironment.ensureDefaultChannel(context, oreoConfig);
+
+        assertEquals(oreoConfig, NotificationEnvironment.get(context).defaultChannelConfig);
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = O)
+    public void testEnsureDefaultChannel_createsChannelOnlyOnce() {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        OreoConfig oreoConfig = new OreoConfig(true, "name", "description");
+
+        NotificationEnvironment.ensureDefaultChannel(context, oreoConfig);
+        manager.deleteNotificationChannel(OreoConfig.DEFAULT_CHANNEL_ID);
+        NotificationEnvironment.ensureDefaultChannel(context, oreoConfig);
+
+        assertNull(manager.getNotificationChannel(OreoConfig.DEFAULT_CHANNEL_ID));
+    }
+
+    @Test
+    @SdkSuppress(minSdkVersion = O)
+    public void testEnsureDefaultChannel_recreatesChannel_whenConfigChanges() {
+        NotificationManager manager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+
+        NotificationEnvironment.ensureDefaultChannel(context, new OreoConfig(true, "name", "description"));
+        NotificationEnvironment.ensureDefaultChannel(context, new OreoConfig(true, "updatedName", "updatedDescription"));
+
+        assertEquals("updatedName", manager.getNotificationChannel(OreoConfig.DEFAULT_CHANNEL_ID).getName());
+    }
+}
@@ -0,0 +1,85 @@
+package com.emarsys.mobileengage.service;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.Arrays;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class NotificationGrouperTest {
+
+    private NotificationGrouper grouper;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        grouper = new NotificationGrouper();
+    }
+
+    @Test
+    public void testOnNotificationPosted_groupsOnlyAfterThresholdIsReached() {
+        assertFalse(grouper.onNotificationPosted("tag1", "title1", 3, 0));
+        assertFalse(grouper.onNotificationPosted("tag2", "title2", 3, 1));
+        assertTrue(grouper.onNotificationPosted("tag3", "title3", 3, 2));
+        assertTrue(grouper.onNotificationPosted("tag4", "title4", 3, 3));
+    }
+
+    @Test
+    public void testOnNotificationPosted_neverGroups_whenThresholdIsZero() {
+        for (int i = 0; i < 10; i++) {
+            assertFalse(grouper.onNotificationPosted("tag" + i, "title", 0, i));
+        }
+    }
+
+    @Test
+    public void testOnNotificationPosted_collapsedNotificationsAreCountedOnce() {
+        grouper.onNotificationPosted("tag1", "title1", 3, 0);
+        grouper.onNotificationPosted("tag1", "title1 updated", 3, 1);
+
+        assertFalse(grouper.onNotificationPosted("tag1", "title1 updated again", 3, 2));
+        assertTrue(grouper.getGroupedTitles().isEmpty());
+    }
+
+    @Test
+    public void testOnNotificationPosted_forgetsNotificationsOutsideOfBurstWindow() {
+        grouper.onNotificationPosted("tag1", "title1", 3, 0);
+        grouper.onNotificationPosted("tag2", "title2", 3, 1);
+
+        assertFalse(grouper.onNotificationPosted("tag3", "title3", 3, NotificationGrouper.BURST_WINDOW + 2));
+        assertTrue(grouper.getGroupedTitles().isEmpty());
+    }
+
+    @Test
+    public void testGetGroupedTitles_containsOnlyGroupedNotifications_newestFirst() {
+        grouper.onNotificationPosted("tag1", "title1", 2, 0);
+        grouper.onNotificationPosted("tag2", "title2", 2, 1);
+        grouper.onNotificationPosted("tag3", "title3", 2, 2);
+
+        assertEquals(Arrays.asList("title3", "title2"), grouper.getGroupedTitles());
+    }
+
+    @Test
+    public void testOnNotificationPosted_collapsedGroupedNotificationStaysGrouped() {
+        grouper.onNotificationPosted("tag1", "title1", 2, 0);
+        grouper.onNotificationPosted("tag2", "title2", 2, 1);
+
+        assertTrue(grouper.onNotificationPosted("tag2", "title2 updated", 2, 2));
+        assertEquals(Arrays.asList("title2 updated"), grouper.getGroupedTitles());
+    }
+
+    @Test
+    public void testClear() {
+        grouper.onNotificationPosted("tag1", "title1", 1, 0);
+
+        grouper.clear();
+
+        assertTrue(grouper.getGroupedTitles().isEmpty());
+    }
+}
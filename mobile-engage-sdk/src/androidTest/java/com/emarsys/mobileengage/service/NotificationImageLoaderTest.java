@@ -0,0 +1,231 @@
+package com.emarsys.mobileengage.service;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@RunWith(AndroidJUnit4.class)
+public class NotificationImageLoaderTest {
+
+    private Context context;
+    private SlowImageServer server;
+    private ScheduledExecutorService deadlineExecutor;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        context = InstrumentationRegistry.getTargetContext().getApplicationContext();
+        deadlineExecutor = NotificationImageLoader.deadlineExecutor;
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        NotificationImageLoader.deadlineExecutor = deadlineExecutor;
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_contextMustNotBeNull() {
+        new NotificationImageLoader(null, "http://127.0.0.1/image.png", 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_imageUrlMustNotBeNull() {
+        new NotificationImageLoader(context, null, 1000);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSetListener_listenerMustNotBeNull() throws IOException {
+        server = new SlowImageServer(200, false);
+
+        new NotificationImageLoader(context, server.getUrl(), 5000).setListener(null);
+    }
+
+    @Test
+    public void testSetListener_deliversImage_whenServedWithinDeadline() throws Exception {
+        server = new SlowImageServer(200, false);
+        RecordingListener listener = new RecordingListener();
+
+        new NotificationImageLoader(context, server.getUrl(), 5000).setListener(listener);
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertEquals(10, listener.image.getWidth());
+        assertEquals(10, listener.image.getHeight());
+    }
+
+    @Test
+    public void testSetListener_deliversImage_whenLoadedBeforeListenerWasSet() throws Exception {
+        server = new SlowImageServer(200, false);
+        NotificationImageLoader loader = new NotificationImageLoader(context, server.getUrl(), 5000);
+        loader.fetch.get(5, TimeUnit.SECONDS);
+        RecordingListener listener = new RecordingListener();
+
+        loader.setListener(listener);
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertNotNull(listener.image);
+    }
+
+    @Test
+    public void testSetListener_doesNotDeliver_whenImageCannotBeLoaded() throws Exception {
+        server = new SlowImageServer(404, false);
+        RecordingListener listener = new RecordingListener();
+
+        NotificationImageLoader loader = new NotificationImageLoader(context, server.getUrl(), 5000);
+        loader.setListener(listener);
+        loader.fetch.get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, listener.latch.getCount());
+    }
+
+    @Test
+    public void testSetListener_doesNotBlockCaller_whenServerIsSlow() throws Exception {
+        NotificationImageLoader.deadlineExecutor = mock(ScheduledExecutorService.class);
+        server = new SlowImageServer(200, true);
+        RecordingListener listener = new RecordingListener();
+
+        NotificationImageLoader loader = new NotificationImageLoader(context, server.getUrl(), 5000);
+        loader.setListener(listener);
+
+        assertFalse(loader.fetch.isDone());
+        assertEquals(1, listener.latch.getCount());
+
+        server.release();
+
+        assertTrue(listener.latch.await(5, TimeUnit.SECONDS));
+        assertNotNull(listener.image);
+    }
+
+    @Test
+    public void testDeadline_cancelsFetch_andDropsLateImage() throws Exception {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        NotificationImageLoader.deadlineExecutor = scheduler;
+        server = new SlowImageServer(200, true);
+        RecordingListener listener = new RecordingListener();
+
+        NotificationImageLoader loader = new NotificationImageLoader(context, server.getUrl(), 300);
+        loader.setListener(listener);
+
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(captor.capture(), eq(300L), eq(TimeUnit.MILLISECONDS));
+        captor.getValue().run();
+
+        assertTrue(loader.fetch.isCancelled());
+
+        server.release();
+
+        assertFalse(listener.latch.await(1, TimeUnit.SECONDS));
+    }
+
+    private static class RecordingListener implements NotificationImageLoader.Listener {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile Bitmap image;
+
+        @Override
+        public void onImageLoaded(Bitmap image) {
+            this.image = image;
+            latch.countDown();
+        }
+    }
+
+    private static class SlowImageServer implements Runnable {
+        private final ServerSocket serverSocket;
+        private final int statusCode;
+        private final CountDownLatch released;
+        private final byte[] image;
+
+        SlowImageServer(int statusCode, boolean held) throws IOException {
+            this.serverSocket = new ServerSocket(0);
+            this.statusCode = statusCode;
+            this.released = new CountDownLatch(held ? 1 : 0);
+
+            ByteArrayOutputStream stream = new ByteArrayOutputStream();
+            Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888).compress(Bitmap.CompressFormat.PNG, 100, stream);
+            this.image = stream.toByteArray();
+
+            Thread thread = new Thread(this);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        String getUrl() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/image.png";
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        void close() throws IOException {
+            released.countDown();
+            serverSocket.close();
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                Socket socket = null;
+                try {
+                    socket = serverSocket.accept();
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                    String line = reader.readLine();
+                    while (line != null && !line.isEmpty()) {
+                        line = reader.readLine();
+                    }
+
+                    released.await();
+
+                    OutputStream output = socket.getOutputStream();
+                    byte[] body = statusCode == 200 ? image : new byte[0];
+                    String headers = "HTTP/1.1 " + statusCode + " Status\r\n" +
+                            "Content-Type: image/png\r\n" +
+                            "Content-Length: " + body.length + "\r\n" +
+                            "Connection: close\r\n\r\n";
+                    output.write(headers.getBytes("UTF-8"));
+                    output.write(body);
+                    output.flush();
+                } catch (IOException | InterruptedException ignored) {
+                } finally {
+                    if (socket != null) {
+                        try {
+                            socket.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
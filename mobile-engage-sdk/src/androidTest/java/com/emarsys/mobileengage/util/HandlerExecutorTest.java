@@ -0,0 +1,60 @@
+package com.emarsys.mobileengage.util;
+
+import android.os.Handler;
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(AndroidJUnit4.class)
+public class HandlerExecutorTest {
+
+    private Handler handler;
+    private HandlerExecutor executor;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        handler = mock(Handler.class);
+        executor = new HandlerExecutor(handler);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_handlerMustNotBeNull() {
+        new HandlerExecutor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecute_commandMustNotBeNull() {
+        executor.execute(null);
+    }
+
+    @Test
+    public void testExecute_postsCommandToHandler() {
+        Runnable command = mock(Runnable.class);
+        when(handler.post(command)).thenReturn(true);
+
+        executor.execute(command);
+
+        verify(handler).post(command);
+    }
+
+    @Test
+    public void testExecute_doesNotThrow_whenHandlerIsShuttingDown() {
+        Runnable command = mock(Runnable.class);
+        when(handler.post(command)).thenReturn(false);
+
+        executor.execute(command);
+
+        verify(handler).post(command);
+    }
+}
@@ -0,0 +1,73 @@
+package com.emarsys.mobileengage.util;
+
+import android.content.ComponentCallbacks2;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MemoryTrimmerTest {
+
+    private MemoryTrimmer trimmer;
+    private MemoryTrimmable trimmable1;
+    private MemoryTrimmable trimmable2;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        trimmer = new MemoryTrimmer();
+        trimmable1 = mock(MemoryTrimmable.class);
+        trimmable2 = mock(MemoryTrimmable.class);
+        trimmer.register("first", trimmable1);
+        trimmer.register("second", trimmable2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegister_nameShouldNotBeNull() {
+        trimmer.register(null, trimmable1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRegister_trimmableShouldNotBeNull() {
+        trimmer.register("name", null);
+    }
+
+    @Test
+    public void testOnTrimMemory_shouldTrimAllRegistered() {
+        trimmer.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        verify(trimmable1).trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        verify(trimmable2).trimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+    }
+
+    @Test
+    public void testOnLowMemory_shouldTrimCompletely() {
+        trimmer.onLowMemory();
+
+        verify(trimmable1).trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        verify(trimmable2).trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+    }
+
+    @Test
+    public void testGetEstimatedSizesInBytes() {
+        when(trimmable1.getEstimatedSizeInBytes()).thenReturn(100L);
+        when(trimmable2.getEstimatedSizeInBytes()).thenReturn(200L);
+
+        Map<String, Long> expected = new LinkedHashMap<>();
+        expected.put("first", 100L);
+        expected.put("second", 200L);
+
+        assertEquals(expected, trimmer.getEstimatedSizesInBytes());
+    }
+}
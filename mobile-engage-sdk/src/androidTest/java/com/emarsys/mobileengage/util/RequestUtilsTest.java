@@ -20,6 +20,8 @@ import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 public class RequestUtilsTest {
     private static final String APPLICATION_CODE = "applicationCode";
@@ -104,6 +106,20 @@ public class RequestUtilsTest {
         assertEquals(expected, result);
     }
 
+    @Test
+    public void testCreateDefaultHeaders_shouldBeComputedOncePerConfig() {
+        Map<String, String> first = RequestUtils.createDefaultHeaders(releaseConfig);
+        Map<String, String> second = RequestUtils.createDefaultHeaders(releaseConfig);
+
+        assertSame(first, second);
+        assertNotSame(first, RequestUtils.createDefaultHeaders(debugConfig));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testCreateDefaultHeaders_shouldBeImmutable() {
+        RequestUtils.createDefaultHeaders(releaseConfig).put("key", "value");
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testCreateBasePayload_config_configShouldNotBeNull() {
         RequestUtils.createBasePayload(null, null);
@@ -0,0 +1,132 @@
+package com.emarsys.mobileengage.util;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.Timeout;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+@RunWith(AndroidJUnit4.class)
+public class SerialExecutorTest {
+
+    private static final int TASK_COUNT = 100;
+
+    private ExecutorService pool;
+    private SerialExecutor executor;
+
+    @Rule
+    public Timeout globalTimeout = Timeout.seconds(30);
+
+    @Before
+    public void init() {
+        pool = Executors.newFixedThreadPool(4);
+        executor = new SerialExecutor(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_delegateMustNotBeNull() {
+        new SerialExecutor(null);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExecute_commandMustNotBeNull() {
+        executor.execute(null);
+    }
+
+    @Test
+    public void testExecute_runsCommandsInSubmissionOrder() throws InterruptedException {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch latch = new CountDownLatch(TASK_COUNT);
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            final int index = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    order.add(index);
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+
+        for (int i = 0; i < TASK_COUNT; i++) {
+            assertEquals(i, order.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testExecute_continues_whenCommandFails() throws InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException();
+            }
+        });
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+
+        latch.await();
+    }
+
+    @Test
+    public void testExecute_recovers_whenDelegateRejects() throws InterruptedException {
+        final AtomicBoolean reject = new AtomicBoolean(true);
+        executor = new SerialExecutor(new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                if (reject.get()) {
+                    throw new RejectedExecutionException();
+                }
+                pool.execute(command);
+            }
+        });
+
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+            fail("Expected RejectedExecutionException");
+        } catch (RejectedExecutionException expected) {
+        }
+
+        reject.set(false);
+        final CountDownLatch latch = new CountDownLatch(1);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+
+        latch.await();
+    }
+}
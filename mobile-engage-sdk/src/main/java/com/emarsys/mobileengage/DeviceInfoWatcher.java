@@ -0,0 +1,49 @@
+package com.emarsys.mobileengage;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Handler;
+
+import com.emarsys.core.DeviceInfo;
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+class DeviceInfoWatcher extends BroadcastReceiver {
+
+    final Context context;
+    final Handler coreSdkHandler;
+    boolean registered;
+
+    DeviceInfoWatcher(Context context, Handler coreSdkHandler) {
+        Assert.notNull(context, "Context must not be null!");
+        Assert.notNull(coreSdkHandler, "CoreSdkHandler must not be null!");
+        this.context = context.getApplicationContext();
+        this.coreSdkHandler = coreSdkHandler;
+    }
+
+    synchronized void register() {
+        if (!registered) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_LOCALE_CHANGED);
+            filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+            context.registerReceiver(this, filter, null, coreSdkHandler);
+            registered = true;
+        }
+    }
+
+    synchronized void unregister() {
+        if (registered) {
+            context.unregisterReceiver(this);
+            registered = false;
+        }
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Refreshing device info, action: %s", intent.getAction());
+        SessionState.updateDeviceInfo(new DeviceInfo(this.context));
+    }
+}
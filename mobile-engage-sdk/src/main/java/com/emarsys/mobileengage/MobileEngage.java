@@ -1,75 +1,430 @@
 package com.emarsys.mobileengage;
 
+import android.app.Application;
 import android.content.Intent;
+import android.graphics.Bitmap;
+import android.os.Build;
 import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.emarsys.core.concurrency.CoreSdkHandlerProvider;
 import com.emarsys.core.connection.ConnectionWatchDog;
+import com.emarsys.core.queue.sqlite.DbHelper;
 import com.emarsys.core.queue.sqlite.SqliteQueue;
 import com.emarsys.core.request.RequestManager;
+import com.emarsys.core.request.RequestModel;
 import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.log.EMSLogger;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
+import com.emarsys.mobileengage.image.ImageCache;
 import com.emarsys.mobileengage.inbox.InboxInternal;
+import com.emarsys.mobileengage.inbox.InboxPrefetcher;
 import com.emarsys.mobileengage.inbox.InboxResultListener;
 import com.emarsys.mobileengage.inbox.ResetBadgeCountResultListener;
 import com.emarsys.mobileengage.inbox.model.Notification;
+import com.emarsys.mobileengage.inbox.model.NotificationCache;
 import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+import com.emarsys.mobileengage.inbox.model.NotificationStore;
+import com.emarsys.mobileengage.service.MessageOpenTracker;
+import com.emarsys.mobileengage.util.HandlerExecutor;
+import com.emarsys.mobileengage.util.MemoryTrimmer;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 public class MobileEngage {
     private static final String TAG = "MobileEngage";
     static MobileEngageInternal instance;
     static InboxInternal inboxInstance;
+    static InboxPrefetcher inboxPrefetcher;
+    static MessageOpenTracker messageOpenTracker;
+    static MemoryTrimmer memoryTrimmer;
+    static DeviceInfoWatcher deviceInfoWatcher;
     static MobileEngageConfig config;
     static MobileEngageCoreCompletionHandler completionHandler;
+    static WarmUp warmUp;
+    static Handler coreSdkHandler;
+    static RequestManager requestManager;
+    static DbHelper queueDbHelper;
+    static NotificationStore notificationStore;
+
+    public static final long DEFAULT_SHUTDOWN_TIMEOUT = 5000;
 
     public static class Inbox {
 
-        public static void fetchNotifications(@NonNull InboxResultListener<NotificationInboxStatus> resultListener) {
+        public static void fetchNotifications(@NonNull final InboxResultListener<NotificationInboxStatus> resultListener) {
+            Assert.notNull(resultListener, "ResultListener must not be null!");
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.fetchNotifications(resultListener);
+                }
+            });
+        }
+
+        public static void fetchCachedNotifications(@NonNull final InboxResultListener<NotificationInboxStatus> resultListener) {
+            Assert.notNull(resultListener, "ResultListener must not be null!");
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.fetchCachedNotifications(resultListener);
+                }
+            });
+        }
+
+        public static void fetchBadgeCount(@NonNull final InboxResultListener<Integer> resultListener) {
+            Assert.notNull(resultListener, "ResultListener must not be null!");
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.fetchBadgeCount(resultListener);
+                }
+            });
+        }
+
+        public static void fetchImage(@NonNull final String imageUrl, @NonNull final InboxResultListener<Bitmap> resultListener) {
+            Assert.notNull(imageUrl, "ImageUrl must not be null!");
             Assert.notNull(resultListener, "ResultListener must not be null!");
-            inboxInstance.fetchNotifications(resultListener);
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.fetchImage(imageUrl, resultListener);
+                }
+            });
+        }
+
+        public static void sync(@NonNull final PushEnvelope envelope) {
+            Assert.notNull(envelope, "Envelope must not be null!");
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.sync(envelope);
+                }
+            });
+        }
+
+        public static void prefetchNotifications() {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxPrefetcher.prefetch();
+                }
+            });
         }
 
         public static void resetBadgeCount() {
             resetBadgeCount(null);
         }
 
-        public static void resetBadgeCount(@Nullable ResetBadgeCountResultListener resultListener) {
-            inboxInstance.resetBadgeCount(resultListener);
+        public static void resetBadgeCount(@Nullable final ResetBadgeCountResultListener resultListener) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    inboxInstance.resetBadgeCount(resultListener);
+                }
+            });
         }
 
         public static String trackMessageOpen(Notification message) {
-            return inboxInstance.trackMessageOpen(message);
+            final RequestModel model = InboxInternal.createMessageOpenRequest(config, message);
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    MobileEngageUtils.incrementIdlingResource();
+                    requestManager.submit(model);
+                }
+            });
+            return model.getId();
         }
 
     }
 
-    public static void setup(@NonNull MobileEngageConfig config) {
+    public static void setup(@NonNull final MobileEngageConfig config) {
         Assert.notNull(config, "Config must not be null!");
         EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", config);
-        MobileEngage.config = config;
-        MobileEngageUtils.setup(config);
 
-        completionHandler = new MobileEngageCoreCompletionHandler(config.getStatusListener());
+        synchronized (MobileEngage.class) {
+            if (warmUp != null && config.equals(MobileEngage.config)) {
+                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Already set up with the same config");
+                return;
+            }
+            MobileEngage.config = config;
+            MobileEngageUtils.setup(config);
+
+            if (completionHandler == null) {
+                completionHandler = new MobileEngageCoreCompletionHandler(config.getStatusListener(), config.getCallbackExecutor());
+            } else {
+                completionHandler.setStatusListener(config.getStatusListener());
+                completionHandler.setCallbackExecutor(config.getCallbackExecutor());
+            }
+
+            if (coreSdkHandler == null) {
+                coreSdkHandler = new CoreSdkHandlerProvider().provideHandler();
+                coreSdkHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    }
+                });
+            }
+            final Handler handler = coreSdkHandler;
+
+            if (messageOpenTracker != null) {
+                config.getApplication().unregisterActivityLifecycleCallbacks(messageOpenTracker);
+            }
+            messageOpenTracker = new MessageOpenTracker(handler);
+            config.getApplication().registerActivityLifecycleCallbacks(messageOpenTracker);
+
+            NotificationCache.setStore(obtainNotificationStore(config));
+
+            final MobileEngageCoreCompletionHandler coreCompletionHandler = completionHandler;
+            WarmUp current = new WarmUp() {
+                @Override
+                void initialize() {
+                    MobileEngage.initialize(this, config, handler, coreCompletionHandler);
+                }
+            };
+            warmUp = current;
+            handler.post(current);
+        }
+    }
+
+    private static void initialize(WarmUp owner, MobileEngageConfig config, Handler handler, MobileEngageCoreCompletionHandler completionHandler) {
+        if (isSuperseded(owner)) {
+            return;
+        }
+        RequestManager manager = obtainRequestManager(config, handler, completionHandler);
+        NotificationStore store = obtainNotificationStore(config);
+
+        MobileEngageInternal mobileEngageInternal = new MobileEngageInternal(config, manager, completionHandler);
+        InboxInternal inboxInternal = new InboxInternal(config, manager, handler, store, completionHandler);
+
+        synchronized (MobileEngage.class) {
+            if (isSuperseded(owner)) {
+                return;
+            }
+            instance = mobileEngageInternal;
+            inboxInstance = inboxInternal;
+
+            registerMemoryTrimmer(config);
+            registerDeviceInfoWatcher(config, handler);
+
+            if (inboxPrefetcher != null) {
+                config.getApplication().unregisterActivityLifecycleCallbacks(inboxPrefetcher);
+            }
+            inboxPrefetcher = new InboxPrefetcher(inboxInstance, handler, config.getApplication());
+            if (config.isInboxPrefetchEnabled()) {
+                config.getApplication().registerActivityLifecycleCallbacks(inboxPrefetcher);
+            }
+        }
+    }
+
+    private static synchronized boolean isSuperseded(WarmUp owner) {
+        if (warmUp != owner) {
+            EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Warm-up superseded");
+            owner.transferTo(warmUp);
+            return true;
+        }
+        return false;
+    }
+
+    private static synchronized RequestManager obtainRequestManager(MobileEngageConfig config, Handler handler, MobileEngageCoreCompletionHandler completionHandler) {
+        if (requestManager == null) {
+            SqliteQueue queue = new SqliteQueue(config.getApplication());
+            queueDbHelper = new DbHelper(config.getApplication());
+            queue.setHelper(queueDbHelper);
+            requestManager = new RequestManager(handler, new ConnectionWatchDog(config.getApplication(), handler), queue, completionHandler);
+        }
+        return requestManager;
+    }
+
+    private static synchronized NotificationStore obtainNotificationStore(MobileEngageConfig config) {
+        if (notificationStore == null) {
+            notificationStore = new NotificationStore(config.getApplication());
+        }
+        return notificationStore;
+    }
+
+    public static boolean shutdown() {
+        return shutdown(DEFAULT_SHUTDOWN_TIMEOUT);
+    }
+
+    public static boolean shutdown(long timeoutMillis) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", timeoutMillis);
+
+        // waits only for messages already posted to the core handler,
+        // requests in flight in the RestClient are not awaited
+        Handler handler = coreSdkHandler;
+        boolean drained = handler == null || drain(handler, timeoutMillis);
+        if (!drained) {
+            EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Core handler messages were not drained in %s ms", timeoutMillis);
+        }
+
+        synchronized (MobileEngage.class) {
+            WarmUp pending = warmUp;
+            warmUp = null;
+            if (pending != null) {
+                pending.transferTo(null);
+            }
+
+            if (config != null) {
+                Application application = config.getApplication();
+                if (messageOpenTracker != null) {
+                    application.unregisterActivityLifecycleCallbacks(messageOpenTracker);
+                }
+                if (inboxPrefetcher != null) {
+                    application.unregisterActivityLifecycleCallbacks(inboxPrefetcher);
+                }
+                if (memoryTrimmer != null) {
+                    application.unregisterComponentCallbacks(memoryTrimmer);
+                }
+            }
+            if (deviceInfoWatcher != null) {
+                deviceInfoWatcher.unregister();
+            }
+
+            NotificationCache.setStore(null);
+            SessionState.reset();
+
+            final NotificationStore store = notificationStore;
+            final DbHelper dbHelper = queueDbHelper;
+            Runnable closeDatabases = new Runnable() {
+                @Override
+                public void run() {
+                    if (store != null) {
+                        store.close();
+                    }
+                    if (dbHelper != null) {
+                        dbHelper.close();
+                    }
+                }
+            };
+            if (handler != null && Build.VERSION.SDK_INT >= 18) {
+                // closes after the messages still queued on the core handler
+                handler.post(closeDatabases);
+                handler.getLooper().quitSafely();
+            } else {
+                if (handler != null) {
+                    handler.getLooper().quit();
+                }
+                closeDatabases.run();
+            }
+
+            instance = null;
+            inboxInstance = null;
+            inboxPrefetcher = null;
+            messageOpenTracker = null;
+            memoryTrimmer = null;
+            deviceInfoWatcher = null;
+            config = null;
+            completionHandler = null;
+            coreSdkHandler = null;
+            requestManager = null;
+            queueDbHelper = null;
+            notificationStore = null;
+        }
+        return drained;
+    }
+
+    private static boolean drain(Handler handler, long timeoutMillis) {
+        if (Looper.myLooper() == handler.getLooper()) {
+            return false;
+        }
+        final CountDownLatch latch = new CountDownLatch(1);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        });
+        try {
+            return latch.await(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void execute(Runnable call) {
+        WarmUp current = warmUp;
+        if (current != null) {
+            current.execute(call);
+        } else if (instance != null) {
+            call.run();
+        } else {
+            EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MobileEngage is not set up, call dropped");
+        }
+    }
+
+    private static void executeOnCoreSdkHandler(final Runnable call) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                Handler handler = coreSdkHandler;
+                if (handler == null) {
+                    EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MobileEngage is shut down, call dropped");
+                } else if (Looper.myLooper() == handler.getLooper()) {
+                    call.run();
+                } else {
+                    handler.post(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (instance != null) {
+                                call.run();
+                            } else {
+                                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MobileEngage is shut down, call dropped");
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    private static void registerMemoryTrimmer(MobileEngageConfig config) {
+        if (memoryTrimmer != null) {
+            config.getApplication().unregisterComponentCallbacks(memoryTrimmer);
+        }
+        memoryTrimmer = new MemoryTrimmer();
+        memoryTrimmer.register("notificationCache", new NotificationCache());
+        memoryTrimmer.register("inbox", inboxInstance);
+        memoryTrimmer.register("imageCache", ImageCache.getInstance(config.getApplication()));
+        config.getApplication().registerComponentCallbacks(memoryTrimmer);
+    }
+
+    private static void registerDeviceInfoWatcher(MobileEngageConfig config, Handler handler) {
+        if (deviceInfoWatcher != null) {
+            deviceInfoWatcher.unregister();
+        }
+        deviceInfoWatcher = new DeviceInfoWatcher(config.getApplication(), handler);
+        deviceInfoWatcher.register();
+    }
 
-        Handler handler = new CoreSdkHandlerProvider().provideHandler();
-        RequestManager requestManager = new RequestManager(handler, new ConnectionWatchDog(config.getApplication(), handler), new SqliteQueue(config.getApplication()), completionHandler);
+    public static MessageOpenTracker getMessageOpenTracker() {
+        return messageOpenTracker;
+    }
 
-        instance = new MobileEngageInternal(config, requestManager, completionHandler);
-        inboxInstance = new InboxInternal(config, requestManager);
+    public static MemoryTrimmer getMemoryTrimmer() {
+        return memoryTrimmer;
     }
 
     public static MobileEngageConfig getConfig() {
         return config;
     }
 
-    public static void setPushToken(String pushToken) {
-        instance.setPushToken(pushToken);
+    public static void setPushToken(final String pushToken) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                instance.setPushToken(pushToken);
+            }
+        });
     }
 
     public static void setStatusListener(MobileEngageStatusListener listener) {
@@ -77,36 +432,109 @@ public class MobileEngage {
     }
 
     public static String appLogin() {
-        setAppLoginParameters(new AppLoginParameters());
-        return instance.appLogin();
+        return submitAppLogin(new AppLoginParameters());
     }
 
     public static String appLogin(int contactFieldId,
                                   @NonNull String contactFieldValue) {
         Assert.notNull(contactFieldValue, "ContactFieldValue must not be null!");
-        setAppLoginParameters(new AppLoginParameters(contactFieldId, contactFieldValue));
-        return instance.appLogin(contactFieldId, contactFieldValue);
+        return submitAppLogin(new AppLoginParameters(contactFieldId, contactFieldValue));
     }
 
     public static String appLogout() {
         setAppLoginParameters(null);
-        return instance.appLogout();
+        return submit(MobileEngageInternal.createAppLogoutRequest(config));
     }
 
     public static String trackCustomEvent(@NonNull String eventName,
                                           @Nullable Map<String, String> eventAttributes) {
         Assert.notNull(eventName, "EventName must not be null!");
-        return instance.trackCustomEvent(eventName, eventAttributes);
+        return submit(MobileEngageInternal.createCustomEventRequest(config, eventName, eventAttributes));
     }
 
     public static String trackMessageOpen(@NonNull Intent intent) {
         Assert.notNull(intent, "Intent must not be null!");
-        return instance.trackMessageOpen(intent);
+        final Intent openIntent = new Intent(intent);
+        final MobileEngageConfig currentConfig = config;
+        final AppLoginParameters parameters = SessionState.current().getAppLoginParameters();
+        final String requestId = RequestModel.nextId();
+        executeOnCoreSdkHandler(new Runnable() {
+            @Override
+            public void run() {
+                String messageId = MobileEngageInternal.getMessageId(openIntent);
+                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MessageId %s", messageId);
+                if (messageId != null) {
+                    instance.submit(MobileEngageInternal.createMessageOpenRequest(currentConfig, parameters, messageId, requestId));
+                } else {
+                    instance.reportMissingMessageId(requestId);
+                }
+            }
+        });
+        return requestId;
+    }
+
+    /**
+     * Resolving an open token may read the inbox database, so call this off the main thread, or use
+     * {@link #getPushEnvelope(Intent, PushEnvelopeResultListener)} instead.
+     */
+    public static PushEnvelope getPushEnvelope(@NonNull Intent intent) {
+        Assert.notNull(intent, "Intent must not be null!");
+        return MobileEngageInternal.getPushEnvelope(intent);
+    }
+
+    public static void getPushEnvelope(@NonNull Intent intent, @NonNull final PushEnvelopeResultListener resultListener) {
+        Assert.notNull(intent, "Intent must not be null!");
+        Assert.notNull(resultListener, "ResultListener must not be null!");
+        final Intent openIntent = new Intent(intent);
+        final MobileEngageConfig currentConfig = config;
+        executeOnCoreSdkHandler(new Runnable() {
+            @Override
+            public void run() {
+                final PushEnvelope envelope = MobileEngageInternal.getPushEnvelope(openIntent);
+                Executor callbackExecutor = currentConfig.getCallbackExecutor() != null
+                        ? currentConfig.getCallbackExecutor()
+                        : new HandlerExecutor(new Handler(Looper.getMainLooper()));
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onResult(envelope);
+                    }
+                });
+            }
+        });
+    }
+
+    private static String submitAppLogin(final AppLoginParameters parameters) {
+        setAppLoginParameters(parameters);
+        final MobileEngageConfig currentConfig = config;
+        final String requestId = RequestModel.nextId();
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                instance.submit(MobileEngageInternal.createAppLoginRequest(currentConfig, parameters, requestId));
+            }
+        });
+        return requestId;
+    }
+
+    private static String submit(final RequestModel model) {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                instance.submit(model);
+            }
+        });
+        return model.getId();
     }
 
-    private static void setAppLoginParameters(AppLoginParameters parameters) {
-        instance.setAppLoginParameters(parameters);
-        inboxInstance.setAppLoginParameters(parameters);
+    private static void setAppLoginParameters(final AppLoginParameters parameters) {
+        final SessionState previous = SessionState.updateAppLoginParameters(parameters);
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                inboxInstance.onAppLoginParametersChanged(previous.getAppLoginParameters(), parameters);
+            }
+        });
     }
 
 }
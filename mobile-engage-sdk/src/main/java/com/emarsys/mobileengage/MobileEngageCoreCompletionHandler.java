@@ -2,17 +2,28 @@ package com.emarsys.mobileengage;
 
 import com.emarsys.core.CoreCompletionHandler;
 import com.emarsys.core.response.ResponseModel;
+import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.log.EMSLogger;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 
 import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 public class MobileEngageCoreCompletionHandler implements CoreCompletionHandler {
 
     WeakReference<MobileEngageStatusListener> weakStatusListener;
+    volatile Executor callbackExecutor;
+    final Map<String, CoreCompletionHandler> requestListeners = new ConcurrentHashMap<>();
 
     public MobileEngageCoreCompletionHandler(MobileEngageStatusListener listener) {
+        this(listener, null);
+    }
+
+    public MobileEngageCoreCompletionHandler(MobileEngageStatusListener listener, Executor callbackExecutor) {
         this.weakStatusListener = new WeakReference<>(listener);
+        this.callbackExecutor = callbackExecutor;
     }
 
     MobileEngageStatusListener getStatusListener() {
@@ -24,26 +35,54 @@ public class MobileEngageCoreCompletionHandler implements CoreCompletionHandler
         this.weakStatusListener = new WeakReference<>(listener);
     }
 
+    void setCallbackExecutor(Executor callbackExecutor) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", callbackExecutor);
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    public void registerRequestListener(String requestId, CoreCompletionHandler listener) {
+        Assert.notNull(requestId, "RequestId must not be null!");
+        Assert.notNull(listener, "Listener must not be null!");
+        requestListeners.put(requestId, listener);
+    }
+
     @Override
     public void onSuccess(final String id, final ResponseModel responseModel) {
         EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", responseModel);
         MobileEngageUtils.decrementIdlingResource();
-        MobileEngageStatusListener listener = getStatusListener();
+        CoreCompletionHandler requestListener = requestListeners.remove(id);
+        if (requestListener != null) {
+            requestListener.onSuccess(id, responseModel);
+        }
+        final MobileEngageStatusListener listener = getStatusListener();
         if (listener != null) {
             EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Notifying statusListener");
-            listener.onStatusLog(id, responseModel.getMessage());
+            notify(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onStatusLog(id, responseModel.getMessage());
+                }
+            });
         }
     }
 
     @Override
     public void onError(final String id, final Exception cause) {
         MobileEngageUtils.decrementIdlingResource();
+        CoreCompletionHandler requestListener = requestListeners.remove(id);
+        if (requestListener != null) {
+            requestListener.onError(id, cause);
+        }
         handleOnError(id, cause);
     }
 
     @Override
     public void onError(final String id, final ResponseModel responseModel) {
         MobileEngageUtils.decrementIdlingResource();
+        CoreCompletionHandler requestListener = requestListeners.remove(id);
+        if (requestListener != null) {
+            requestListener.onError(id, responseModel);
+        }
         Exception exception = new MobileEngageException(
                 responseModel.getStatusCode(),
                 responseModel.getMessage(),
@@ -51,12 +90,26 @@ public class MobileEngageCoreCompletionHandler implements CoreCompletionHandler
         handleOnError(id, exception);
     }
 
-    private void handleOnError(String id, Exception cause) {
+    private void handleOnError(final String id, final Exception cause) {
         EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", cause);
-        MobileEngageStatusListener listener = getStatusListener();
+        final MobileEngageStatusListener listener = getStatusListener();
         if (listener != null) {
             EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Notifying statusListener");
-            listener.onError(id, cause);
+            notify(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onError(id, cause);
+                }
+            });
+        }
+    }
+
+    private void notify(Runnable notification) {
+        Executor executor = callbackExecutor;
+        if (executor != null) {
+            executor.execute(notification);
+        } else {
+            notification.run();
         }
     }
 }
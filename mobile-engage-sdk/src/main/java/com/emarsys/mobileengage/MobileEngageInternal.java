@@ -15,6 +15,7 @@ import com.emarsys.core.request.RequestModel;
 import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.log.EMSLogger;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
+import com.emarsys.mobileengage.inbox.model.NotificationCache;
 import com.emarsys.mobileengage.util.RequestUtils;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 import com.google.firebase.iid.FirebaseInstanceId;
@@ -22,20 +23,18 @@ import com.google.firebase.iid.FirebaseInstanceId;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class MobileEngageInternal {
     public static final String MOBILEENGAGE_SDK_VERSION = BuildConfig.VERSION_NAME;
 
-    String pushToken;
-    AppLoginParameters appLoginParameters;
-
     MobileEngageConfig config;
-    DeviceInfo deviceInfo;
     Application application;
     RequestManager manager;
     Handler handler;
     CoreCompletionHandler coreCompletionHandler;
+    static final NotificationCache notificationCache = new NotificationCache();
 
     MobileEngageInternal(MobileEngageConfig config, RequestManager manager, MobileEngageCoreCompletionHandler coreCompletionHandler) {
         Assert.notNull(config, "Config must not be null!");
@@ -50,10 +49,13 @@ public class MobileEngageInternal {
         this.manager = manager;
         manager.setDefaultHeaders(RequestUtils.createDefaultHeaders(config));
 
-        this.deviceInfo = new DeviceInfo(application.getApplicationContext());
+        SessionState.obtainDeviceInfo(application);
 
         try {
-            this.pushToken = FirebaseInstanceId.getInstance().getToken();
+            String pushToken = FirebaseInstanceId.getInstance().getToken();
+            if (pushToken != null) {
+                SessionState.updatePushToken(pushToken);
+            }
         } catch (Exception e) {
             //no token for you
         }
@@ -66,13 +68,14 @@ public class MobileEngageInternal {
     }
 
     String getPushToken() {
-        return pushToken;
+        return SessionState.current().getPushToken();
     }
 
     void setPushToken(String pushToken) {
         EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", pushToken);
 
-        this.pushToken = pushToken;
+        SessionState.updatePushToken(pushToken);
+        AppLoginParameters appLoginParameters = SessionState.current().getAppLoginParameters();
         if (appLoginParameters != null) {
             if (appLoginParameters.hasCredentials()) {
                 appLogin(appLoginParameters.getContactFieldId(), appLoginParameters.getContactFieldValue());
@@ -82,118 +85,155 @@ public class MobileEngageInternal {
         }
     }
 
-    void setAppLoginParameters(AppLoginParameters parameters) {
-        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", parameters);
+    String appLogin() {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Called");
 
-        this.appLoginParameters = parameters;
+        return submit(createAppLoginRequest(config));
     }
 
-    String appLogin() {
+    String appLogin(int contactFieldId, @NonNull String contactFieldValue) {
+        return submit(createAppLoginRequest(config));
+    }
+
+    String appLogout() {
         EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Called");
 
-        Map<String, Object> payload = injectLoginPayload(RequestUtils.createBasePayload(config, appLoginParameters));
-        RequestModel model = new RequestModel.Builder()
-                .url(RequestUtils.ENDPOINT_LOGIN)
-                .payload(payload)
-                .build();
+        return submit(createAppLogoutRequest(config));
+    }
+
+    String trackCustomEvent(@NonNull String eventName,
+                            @Nullable Map<String, String> eventAttributes) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Arguments: eventName %s, eventAttributes %s", eventName, eventAttributes);
+
+        return submit(createCustomEventRequest(config, eventName, eventAttributes));
+    }
+
+    String trackMessageOpen(Intent intent) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", intent);
+
+        String messageId = getMessageId(intent);
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MessageId %s", messageId);
+
+        return handleMessageOpen(messageId);
+    }
 
+    String submit(RequestModel model) {
         MobileEngageUtils.incrementIdlingResource();
         manager.submit(model);
         return model.getId();
     }
 
-    String appLogin(int contactFieldId, @NonNull String contactFieldValue) {
+    void reportMissingMessageId(final String requestId) {
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                coreCompletionHandler.onError(requestId, new IllegalArgumentException("No messageId found!"));
+            }
+        });
+    }
 
-        Map<String, Object> payload = injectLoginPayload(RequestUtils.createBasePayload(config, appLoginParameters));
+    static RequestModel createAppLoginRequest(MobileEngageConfig config) {
+        return createAppLoginRequest(config, SessionState.current().getAppLoginParameters(), RequestModel.nextId());
+    }
 
+    static RequestModel createAppLoginRequest(MobileEngageConfig config, AppLoginParameters parameters, String requestId) {
+        SessionState.obtainDeviceInfo(config.getApplication());
+        Map<String, Object> payload = injectLoginPayload(RequestUtils.createBasePayload(config, parameters), SessionState.current());
         RequestModel model = new RequestModel.Builder()
                 .url(RequestUtils.ENDPOINT_LOGIN)
                 .payload(payload)
                 .build();
-
-        MobileEngageUtils.incrementIdlingResource();
-        manager.submit(model);
-        return model.getId();
+        return withId(model, requestId);
     }
 
-    String appLogout() {
-        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Called");
-
-        RequestModel model = new RequestModel.Builder()
+    static RequestModel createAppLogoutRequest(MobileEngageConfig config) {
+        return new RequestModel.Builder()
                 .url(RequestUtils.ENDPOINT_LOGOUT)
-                .payload(RequestUtils.createBasePayload(config, appLoginParameters))
+                .payload(RequestUtils.createBasePayload(config, SessionState.current().getAppLoginParameters()))
                 .build();
-
-        MobileEngageUtils.incrementIdlingResource();
-        manager.submit(model);
-        return model.getId();
     }
 
-    String trackCustomEvent(@NonNull String eventName,
-                            @Nullable Map<String, String> eventAttributes) {
-        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Arguments: eventName %s, eventAttributes %s", eventName, eventAttributes);
-
-        Map<String, Object> payload = RequestUtils.createBasePayload(config, appLoginParameters);
+    static RequestModel createCustomEventRequest(MobileEngageConfig config, String eventName, Map<String, String> eventAttributes) {
+        Map<String, Object> payload = RequestUtils.createBasePayload(config, SessionState.current().getAppLoginParameters());
         if (eventAttributes != null && !eventAttributes.isEmpty()) {
             payload.put("attributes", eventAttributes);
         }
-        RequestModel model = new RequestModel.Builder()
+        return new RequestModel.Builder()
                 .url(RequestUtils.createEventUrl(eventName))
                 .payload(payload)
                 .build();
-
-        MobileEngageUtils.incrementIdlingResource();
-        manager.submit(model);
-        return model.getId();
     }
 
-    String trackMessageOpen(Intent intent) {
-        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", intent);
-
-        String messageId = getMessageId(intent);
-        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MessageId %s", messageId);
+    static RequestModel createMessageOpenRequest(MobileEngageConfig config, String messageId) {
+        return createMessageOpenRequest(config, SessionState.current().getAppLoginParameters(), messageId, RequestModel.nextId());
+    }
 
-        return handleMessageOpen(messageId);
+    static RequestModel createMessageOpenRequest(MobileEngageConfig config, AppLoginParameters parameters, String messageId, String requestId) {
+        Map<String, Object> payload = RequestUtils.createBasePayload(config, parameters);
+        payload.put("sid", messageId);
+        RequestModel model = new RequestModel.Builder()
+                .url(RequestUtils.createEventUrl("message_open"))
+                .payload(payload)
+                .build();
+        return withId(model, requestId);
     }
 
-    String getMessageId(Intent intent) {
+    static String getMessageId(Intent intent) {
         String sid = null;
         Bundle payload = intent.getBundleExtra("payload");
         if (payload != null) {
-            String customData = payload.getString("u");
-            try {
-                sid = new JSONObject(customData).getString("sid");
-            } catch (JSONException e) {
+            sid = payload.getString(PushEnvelope.KEY_SID);
+            if (sid == null) {
+                String customData = payload.getString("u");
+                try {
+                    sid = new JSONObject(customData).getString("sid");
+                } catch (JSONException e) {
+                }
+            }
+        } else {
+            PushEnvelope envelope = getPushEnvelope(intent);
+            if (envelope != null) {
+                sid = envelope.getSid();
             }
         }
         return sid;
     }
 
+    static PushEnvelope getPushEnvelope(Intent intent) {
+        PushEnvelope result = null;
+        String openToken = intent.getStringExtra(PushEnvelope.EXTRA_OPEN_TOKEN);
+        Bundle payload = intent.getBundleExtra("payload");
+        if (openToken != null) {
+            result = notificationCache.getPayload(openToken);
+        } else if (payload != null) {
+            Map<String, String> data = new HashMap<>();
+            for (String key : payload.keySet()) {
+                data.put(key, payload.getString(key));
+            }
+            data.remove(PushEnvelope.KEY_SID);
+            result = PushEnvelope.fromRemoteMessageData(data);
+        }
+        return result;
+    }
+
     private String handleMessageOpen(String messageId) {
         if (messageId != null) {
-            Map<String, Object> payload = RequestUtils.createBasePayload(config, appLoginParameters);
-            payload.put("sid", messageId);
-            RequestModel model = new RequestModel.Builder()
-                    .url(RequestUtils.createEventUrl("message_open"))
-                    .payload(payload)
-                    .build();
-
-            MobileEngageUtils.incrementIdlingResource();
-            manager.submit(model);
-            return model.getId();
+            return submit(createMessageOpenRequest(config, messageId));
         } else {
-            final String uuid = RequestModel.nextId();
-            handler.post(new Runnable() {
-                @Override
-                public void run() {
-                    coreCompletionHandler.onError(uuid, new IllegalArgumentException("No messageId found!"));
-                }
-            });
+            String uuid = RequestModel.nextId();
+            reportMissingMessageId(uuid);
             return uuid;
         }
     }
 
-    private Map<String, Object> injectLoginPayload(Map<String, Object> payload) {
+    private static RequestModel withId(RequestModel model, String requestId) {
+        return new RequestModel(model.getUrl(), model.getMethod(), model.getPayload(), model.getHeaders(), model.getTimestamp(), model.getTtl(), requestId);
+    }
+
+    private static Map<String, Object> injectLoginPayload(Map<String, Object> payload, SessionState session) {
+        DeviceInfo deviceInfo = session.getDeviceInfo();
+        String pushToken = session.getPushToken();
+
         payload.put("platform", deviceInfo.getPlatform());
         payload.put("language", deviceInfo.getLanguage());
         payload.put("timezone", deviceInfo.getTimezone());
@@ -14,24 +14,33 @@ public class MobileEngageUtils {
 
     public static void setup(MobileEngageConfig config) {
         idlingResourceEnabled = config.isIdlingResourceEnabled();
-        idlingResource = idlingResourceEnabled ? new MobileEngageIdlingResource("mobile-engage-idling-resource") : null;
+        if (!idlingResourceEnabled) {
+            idlingResource = null;
+        } else if (idlingResource == null) {
+            idlingResource = new MobileEngageIdlingResource("mobile-engage-idling-resource");
+        }
     }
 
     public static IdlingResource getIdlingResource() {
         return idlingResource;
     }
 
-    static void incrementIdlingResource() {
-        if(idlingResourceEnabled){
+    /**
+     * Must be called for every request submitted to the shared RequestManager, its completion decrements the idling resource.
+     */
+    public static void incrementIdlingResource() {
+        MobileEngageIdlingResource resource = idlingResource;
+        if(idlingResourceEnabled && resource != null){
             EMSLogger.log(MobileEngageTopic.IDLING_RESOURCE, "Incremented");
-            idlingResource.increment();
+            resource.increment();
         }
     }
 
     static void decrementIdlingResource() {
-        if(idlingResourceEnabled){
+        MobileEngageIdlingResource resource = idlingResource;
+        if(idlingResourceEnabled && resource != null){
             EMSLogger.log(MobileEngageTopic.IDLING_RESOURCE, "Decremented");
-            idlingResource.decrement();
+            resource.decrement();
         }
     }
 }
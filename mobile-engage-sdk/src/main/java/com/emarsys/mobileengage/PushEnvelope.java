@@ -0,0 +1,184 @@
+package com.emarsys.mobileengage;
+
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class PushEnvelope {
+
+    public static final String KEY_SID = "ems_sid";
+    public static final String EXTRA_OPEN_TOKEN = "ems_open_token";
+
+    public static final String KEY_SILENT = "ems_silent";
+    public static final String KEY_SYNC = "ems_sync";
+    public static final String KEY_BADGE_COUNT = "ems_badge_count";
+
+    public static final String SYNC_BADGE = "badge";
+    public static final String SYNC_INVALIDATE = "invalidate";
+    public static final String SYNC_REFRESH = "refresh";
+
+    private final Map<String, String> data;
+    private final String id;
+    private final String sid;
+    private final String title;
+    private final String body;
+    private final String imageUrl;
+    private final String channelId;
+    private final String collapseId;
+    private final String customData;
+    private final String defaultTitle;
+    private final boolean inbox;
+    private final boolean silent;
+    private final String syncAction;
+    private final Integer badgeCount;
+    private final long receivedAt;
+
+    private PushEnvelope(Map<String, String> data, String sid, String defaultTitle, long receivedAt) {
+        this.data = Collections.unmodifiableMap(new HashMap<>(data));
+        this.id = data.get("id");
+        this.sid = sid;
+        this.title = data.get("title");
+        this.body = data.get("body");
+        this.imageUrl = data.get("image_url");
+        this.channelId = data.get("channel_id");
+        this.collapseId = data.get("collapse_id");
+        this.customData = data.get("u");
+        this.defaultTitle = defaultTitle;
+        this.inbox = "true".equals(data.get("inbox"));
+        this.silent = "true".equals(data.get(KEY_SILENT));
+        this.syncAction = data.containsKey(KEY_SYNC) ? data.get(KEY_SYNC) : SYNC_REFRESH;
+        this.badgeCount = parseBadgeCount(data.get(KEY_BADGE_COUNT));
+        this.receivedAt = receivedAt;
+    }
+
+    public static PushEnvelope fromRemoteMessageData(Map<String, String> remoteMessageData) {
+        Assert.notNull(remoteMessageData, "RemoteMessageData must not be null!");
+        return fromStoredData(remoteMessageData, System.currentTimeMillis());
+    }
+
+    public static PushEnvelope fromStoredData(Map<String, String> data, long receivedAt) {
+        Assert.notNull(data, "Data must not be null!");
+
+        String sid = null;
+        String defaultTitle = null;
+        String u = data.get("u");
+        if (u != null) {
+            try {
+                JSONObject customData = new JSONObject(u);
+                sid = customData.optString("sid", null);
+                defaultTitle = customData.optString("ems_default_title", null);
+            } catch (JSONException e) {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Exception: %s", e);
+            }
+        }
+
+        return new PushEnvelope(data, sid, defaultTitle, receivedAt);
+    }
+
+    private static Integer parseBadgeCount(String rawBadgeCount) {
+        Integer result = null;
+        if (rawBadgeCount != null) {
+            try {
+                result = Integer.valueOf(rawBadgeCount);
+            } catch (NumberFormatException e) {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Exception: %s", e);
+            }
+        }
+        return result;
+    }
+
+    public Map<String, String> getData() {
+        return data;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSid() {
+        return sid;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getChannelId() {
+        return channelId;
+    }
+
+    public String getCollapseId() {
+        return collapseId;
+    }
+
+    public String getCustomData() {
+        return customData;
+    }
+
+    public String getDefaultTitle() {
+        return defaultTitle;
+    }
+
+    public boolean isInbox() {
+        return inbox;
+    }
+
+    public boolean isSilent() {
+        return silent;
+    }
+
+    public String getSyncAction() {
+        return syncAction;
+    }
+
+    public Integer getBadgeCount() {
+        return badgeCount;
+    }
+
+    public long getReceivedAt() {
+        return receivedAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        PushEnvelope that = (PushEnvelope) o;
+
+        if (receivedAt != that.receivedAt) return false;
+        return data.equals(that.data);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = data.hashCode();
+        result = 31 * result + (int) (receivedAt ^ (receivedAt >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "PushEnvelope{" +
+                "data=" + data +
+                ", sid='" + sid + '\'' +
+                ", receivedAt=" + receivedAt +
+                '}';
+    }
+}
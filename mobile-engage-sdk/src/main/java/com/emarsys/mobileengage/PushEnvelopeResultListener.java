@@ -0,0 +1,5 @@
+package com.emarsys.mobileengage;
+
+public interface PushEnvelopeResultListener {
+    void onResult(PushEnvelope envelope);
+}
@@ -0,0 +1,121 @@
+package com.emarsys.mobileengage;
+
+import android.content.Context;
+
+import com.emarsys.core.DeviceInfo;
+import com.emarsys.core.util.Assert;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public final class SessionState {
+
+    static final SessionState EMPTY = new SessionState(null, null, null);
+
+    private static final AtomicReference<SessionState> current = new AtomicReference<>(EMPTY);
+
+    private final AppLoginParameters appLoginParameters;
+    private final String pushToken;
+    private final DeviceInfo deviceInfo;
+
+    SessionState(AppLoginParameters appLoginParameters, String pushToken, DeviceInfo deviceInfo) {
+        this.appLoginParameters = appLoginParameters;
+        this.pushToken = pushToken;
+        this.deviceInfo = deviceInfo;
+    }
+
+    public static SessionState current() {
+        return current.get();
+    }
+
+    static SessionState updateAppLoginParameters(AppLoginParameters appLoginParameters) {
+        SessionState previous;
+        do {
+            previous = current.get();
+        } while (!current.compareAndSet(previous, new SessionState(appLoginParameters, previous.pushToken, previous.deviceInfo)));
+        return previous;
+    }
+
+    static SessionState updatePushToken(String pushToken) {
+        SessionState previous;
+        do {
+            previous = current.get();
+        } while (!current.compareAndSet(previous, new SessionState(previous.appLoginParameters, pushToken, previous.deviceInfo)));
+        return previous;
+    }
+
+    static SessionState updateDeviceInfo(DeviceInfo deviceInfo) {
+        SessionState previous;
+        do {
+            previous = current.get();
+        } while (!current.compareAndSet(previous, new SessionState(previous.appLoginParameters, previous.pushToken, deviceInfo)));
+        return previous;
+    }
+
+    public static DeviceInfo obtainDeviceInfo(Context context) {
+        Assert.notNull(context, "Context must not be null!");
+        DeviceInfo deviceInfo = current.get().deviceInfo;
+        if (deviceInfo == null) {
+            DeviceInfo created = new DeviceInfo(context.getApplicationContext());
+            SessionState previous;
+            do {
+                previous = current.get();
+                if (previous.deviceInfo != null) {
+                    return previous.deviceInfo;
+                }
+            } while (!current.compareAndSet(previous, new SessionState(previous.appLoginParameters, previous.pushToken, created)));
+            deviceInfo = created;
+        }
+        return deviceInfo;
+    }
+
+    static void reset() {
+        current.set(EMPTY);
+    }
+
+    public AppLoginParameters getAppLoginParameters() {
+        return appLoginParameters;
+    }
+
+    public boolean hasContact() {
+        return appLoginParameters != null && appLoginParameters.hasCredentials();
+    }
+
+    public String getPushToken() {
+        return pushToken;
+    }
+
+    public DeviceInfo getDeviceInfo() {
+        return deviceInfo;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SessionState that = (SessionState) o;
+
+        if (appLoginParameters != null ? !appLoginParameters.equals(that.appLoginParameters) : that.appLoginParameters != null)
+            return false;
+        if (pushToken != null ? !pushToken.equals(that.pushToken) : that.pushToken != null)
+            return false;
+        return deviceInfo != null ? deviceInfo.equals(that.deviceInfo) : that.deviceInfo == null;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = appLoginParameters != null ? appLoginParameters.hashCode() : 0;
+        result = 31 * result + (pushToken != null ? pushToken.hashCode() : 0);
+        result = 31 * result + (deviceInfo != null ? deviceInfo.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionState{" +
+                "appLoginParameters=" + appLoginParameters +
+                ", pushToken='" + pushToken + '\'' +
+                ", deviceInfo=" + deviceInfo +
+                '}';
+    }
+}
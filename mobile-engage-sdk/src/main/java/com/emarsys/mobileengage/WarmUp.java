@@ -0,0 +1,104 @@
+package com.emarsys.mobileengage;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+abstract class WarmUp implements Runnable {
+
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private final List<Runnable> buffered = new ArrayList<>();
+    private boolean done;
+    private boolean closed;
+    private WarmUp successor;
+
+    abstract void initialize();
+
+    @Override
+    public void run() {
+        if (started.compareAndSet(false, true)) {
+            long start = System.nanoTime();
+            try {
+                initialize();
+            } finally {
+                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Warm-up finished in %s us", (System.nanoTime() - start) / 1000);
+                drain();
+            }
+        }
+    }
+
+    void execute(Runnable call) {
+        Assert.notNull(call, "Call must not be null!");
+        WarmUp next;
+        synchronized (this) {
+            if (!done) {
+                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Buffering call until warm-up finishes");
+                buffered.add(call);
+                return;
+            }
+            if (closed) {
+                EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "MobileEngage is shut down, call dropped");
+                return;
+            }
+            next = successor;
+        }
+        if (next != null) {
+            next.execute(call);
+        } else {
+            call.run();
+        }
+    }
+
+    void transferTo(WarmUp next) {
+        List<Runnable> calls;
+        synchronized (this) {
+            calls = new ArrayList<>(buffered);
+            buffered.clear();
+            done = true;
+            closed = next == null;
+            successor = next;
+        }
+        if (next != null) {
+            next.prepend(calls);
+        } else if (!calls.isEmpty()) {
+            EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Dropping %s buffered calls", calls.size());
+        }
+    }
+
+    private void prepend(List<Runnable> calls) {
+        synchronized (this) {
+            if (!done) {
+                buffered.addAll(0, calls);
+                return;
+            }
+        }
+        for (Runnable call : calls) {
+            call.run();
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            List<Runnable> calls;
+            synchronized (this) {
+                if (buffered.isEmpty()) {
+                    done = true;
+                    return;
+                }
+                calls = new ArrayList<>(buffered);
+                buffered.clear();
+            }
+            for (Runnable call : calls) {
+                try {
+                    call.run();
+                } catch (RuntimeException e) {
+                    EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Buffered call failed: %s", e);
+                }
+            }
+        }
+    }
+}
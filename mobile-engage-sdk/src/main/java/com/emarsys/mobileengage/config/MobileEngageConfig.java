@@ -7,14 +7,26 @@ import android.support.annotation.NonNull;
 import com.emarsys.core.util.Assert;
 import com.emarsys.mobileengage.MobileEngageStatusListener;
 
+import java.util.concurrent.Executor;
+
 public class MobileEngageConfig {
 
+    public static final long DEFAULT_IMAGE_LOADING_TIMEOUT = 5000;
+    public static final int DEFAULT_NOTIFICATION_GROUPING_THRESHOLD = 4;
+    public static final double DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE = 0.001;
+
     private final Application application;
     private final String applicationCode;
     private final String applicationPassword;
     private final MobileEngageStatusListener statusListener;
     private final boolean isDebugMode;
     private final boolean idlingResourceEnabled;
+    private final boolean inboxPrefetchEnabled;
+    private final long imageLoadingTimeout;
+    private final int notificationGroupingThreshold;
+    private final double duplicateFilterFalsePositiveRate;
+    private final Executor workExecutor;
+    private final Executor callbackExecutor;
     private final OreoConfig oreoConfig;
 
     MobileEngageConfig(Application application,
@@ -23,11 +35,26 @@ public class MobileEngageConfig {
                        MobileEngageStatusListener statusListener,
                        boolean isDebugMode,
                        boolean idlingResourceEnabled,
+                       boolean inboxPrefetchEnabled,
+                       long imageLoadingTimeout,
+                       int notificationGroupingThreshold,
+                       double duplicateFilterFalsePositiveRate,
+                       Executor workExecutor,
+                       Executor callbackExecutor,
                        OreoConfig oreoConfig) {
         Assert.notNull(application, "Application must not be null");
         Assert.notNull(applicationCode, "ApplicationCode must not be null");
         Assert.notNull(applicationPassword, "ApplicationPassword must not be null");
         Assert.notNull(oreoConfig, "OreoConfig must not be null");
+        if (imageLoadingTimeout < 0) {
+            throw new IllegalArgumentException("ImageLoadingTimeout must not be negative");
+        }
+        if (notificationGroupingThreshold < 0) {
+            throw new IllegalArgumentException("NotificationGroupingThreshold must not be negative");
+        }
+        if (!(duplicateFilterFalsePositiveRate > 0 && duplicateFilterFalsePositiveRate < 1)) {
+            throw new IllegalArgumentException("DuplicateFilterFalsePositiveRate must be between 0 and 1 exclusive");
+        }
         validate(oreoConfig);
         this.application = application;
         this.applicationCode = applicationCode;
@@ -35,6 +62,12 @@ public class MobileEngageConfig {
         this.statusListener = statusListener;
         this.isDebugMode = isDebugMode;
         this.idlingResourceEnabled = idlingResourceEnabled;
+        this.inboxPrefetchEnabled = inboxPrefetchEnabled;
+        this.imageLoadingTimeout = imageLoadingTimeout;
+        this.notificationGroupingThreshold = notificationGroupingThreshold;
+        this.duplicateFilterFalsePositiveRate = duplicateFilterFalsePositiveRate;
+        this.workExecutor = workExecutor;
+        this.callbackExecutor = callbackExecutor;
         this.oreoConfig = oreoConfig;
     }
 
@@ -58,6 +91,30 @@ public class MobileEngageConfig {
         return idlingResourceEnabled;
     }
 
+    public boolean isInboxPrefetchEnabled() {
+        return inboxPrefetchEnabled;
+    }
+
+    public long getImageLoadingTimeout() {
+        return imageLoadingTimeout;
+    }
+
+    public int getNotificationGroupingThreshold() {
+        return notificationGroupingThreshold;
+    }
+
+    public double getDuplicateFilterFalsePositiveRate() {
+        return duplicateFilterFalsePositiveRate;
+    }
+
+    public Executor getWorkExecutor() {
+        return workExecutor;
+    }
+
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
     public boolean isDebugMode() {
         return isDebugMode;
     }
@@ -82,6 +139,11 @@ public class MobileEngageConfig {
 
         if (isDebugMode != that.isDebugMode) return false;
         if (idlingResourceEnabled != that.idlingResourceEnabled) return false;
+        if (inboxPrefetchEnabled != that.inboxPrefetchEnabled) return false;
+        if (imageLoadingTimeout != that.imageLoadingTimeout) return false;
+        if (notificationGroupingThreshold != that.notificationGroupingThreshold) return false;
+        if (Double.compare(that.duplicateFilterFalsePositiveRate, duplicateFilterFalsePositiveRate) != 0)
+            return false;
         if (application != null ? !application.equals(that.application) : that.application != null)
             return false;
         if (applicationCode != null ? !applicationCode.equals(that.applicationCode) : that.applicationCode != null)
@@ -90,18 +152,31 @@ public class MobileEngageConfig {
             return false;
         if (statusListener != null ? !statusListener.equals(that.statusListener) : that.statusListener != null)
             return false;
+        if (workExecutor != null ? !workExecutor.equals(that.workExecutor) : that.workExecutor != null)
+            return false;
+        if (callbackExecutor != null ? !callbackExecutor.equals(that.callbackExecutor) : that.callbackExecutor != null)
+            return false;
         return oreoConfig != null ? oreoConfig.equals(that.oreoConfig) : that.oreoConfig == null;
 
     }
 
     @Override
     public int hashCode() {
-        int result = application != null ? application.hashCode() : 0;
+        int result;
+        long temp;
+        result = application != null ? application.hashCode() : 0;
         result = 31 * result + (applicationCode != null ? applicationCode.hashCode() : 0);
         result = 31 * result + (applicationPassword != null ? applicationPassword.hashCode() : 0);
         result = 31 * result + (statusListener != null ? statusListener.hashCode() : 0);
         result = 31 * result + (isDebugMode ? 1 : 0);
         result = 31 * result + (idlingResourceEnabled ? 1 : 0);
+        result = 31 * result + (inboxPrefetchEnabled ? 1 : 0);
+        result = 31 * result + (int) (imageLoadingTimeout ^ (imageLoadingTimeout >>> 32));
+        result = 31 * result + notificationGroupingThreshold;
+        temp = Double.doubleToLongBits(duplicateFilterFalsePositiveRate);
+        result = 31 * result + (int) (temp ^ (temp >>> 32));
+        result = 31 * result + (workExecutor != null ? workExecutor.hashCode() : 0);
+        result = 31 * result + (callbackExecutor != null ? callbackExecutor.hashCode() : 0);
         result = 31 * result + (oreoConfig != null ? oreoConfig.hashCode() : 0);
         return result;
     }
@@ -115,6 +190,12 @@ public class MobileEngageConfig {
                 ", statusListener=" + statusListener +
                 ", isDebugMode=" + isDebugMode +
                 ", idlingResourceEnabled=" + idlingResourceEnabled +
+                ", inboxPrefetchEnabled=" + inboxPrefetchEnabled +
+                ", imageLoadingTimeout=" + imageLoadingTimeout +
+                ", notificationGroupingThreshold=" + notificationGroupingThreshold +
+                ", duplicateFilterFalsePositiveRate=" + duplicateFilterFalsePositiveRate +
+                ", workExecutor=" + workExecutor +
+                ", callbackExecutor=" + callbackExecutor +
                 ", oreoConfig=" + oreoConfig +
                 '}';
     }
@@ -125,6 +206,12 @@ public class MobileEngageConfig {
         private String applicationPassword;
         private MobileEngageStatusListener statusListener;
         private boolean idlingResourceEnabled;
+        private boolean inboxPrefetchEnabled;
+        private long imageLoadingTimeout = DEFAULT_IMAGE_LOADING_TIMEOUT;
+        private int notificationGroupingThreshold = DEFAULT_NOTIFICATION_GROUPING_THRESHOLD;
+        private double duplicateFilterFalsePositiveRate = DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE;
+        private Executor workExecutor;
+        private Executor callbackExecutor;
         private OreoConfig oreoConfig;
 
         public Builder from(MobileEngageConfig baseConfig) {
@@ -134,6 +221,12 @@ public class MobileEngageConfig {
             applicationPassword = baseConfig.getApplicationPassword();
             statusListener = baseConfig.getStatusListener();
             idlingResourceEnabled = baseConfig.isIdlingResourceEnabled();
+            inboxPrefetchEnabled = baseConfig.isInboxPrefetchEnabled();
+            imageLoadingTimeout = baseConfig.getImageLoadingTimeout();
+            notificationGroupingThreshold = baseConfig.getNotificationGroupingThreshold();
+            duplicateFilterFalsePositiveRate = baseConfig.getDuplicateFilterFalsePositiveRate();
+            workExecutor = baseConfig.getWorkExecutor();
+            callbackExecutor = baseConfig.getCallbackExecutor();
             oreoConfig = baseConfig.getOreoConfig();
             return this;
         }
@@ -160,6 +253,46 @@ public class MobileEngageConfig {
             return this;
         }
 
+        public Builder enableInboxPrefetch(boolean enabled) {
+            inboxPrefetchEnabled = enabled;
+            return this;
+        }
+
+        public Builder imageLoadingTimeout(long timeoutMillis) {
+            imageLoadingTimeout = timeoutMillis;
+            return this;
+        }
+
+        public Builder notificationGroupingThreshold(int threshold) {
+            notificationGroupingThreshold = threshold;
+            return this;
+        }
+
+        public Builder duplicateFilterFalsePositiveRate(double falsePositiveRate) {
+            duplicateFilterFalsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Runs inbox database and cache work. Mobile Engage requests and the core
+         * RequestManager ignore it and keep running on the core SDK handler thread.
+         */
+        public Builder workExecutor(@NonNull Executor workExecutor) {
+            Assert.notNull(workExecutor, "WorkExecutor must not be null");
+            this.workExecutor = workExecutor;
+            return this;
+        }
+
+        /**
+         * Delivers inbox listener and status listener callbacks. MobileEngageInternal
+         * ignores it and still posts its own callbacks to the main thread.
+         */
+        public Builder callbackExecutor(@NonNull Executor callbackExecutor) {
+            Assert.notNull(callbackExecutor, "CallbackExecutor must not be null");
+            this.callbackExecutor = callbackExecutor;
+            return this;
+        }
+
         public Builder enableDefaultChannel(String name, String description) {
             this.oreoConfig = new OreoConfig(true, name, description);
             return this;
@@ -180,6 +313,12 @@ public class MobileEngageConfig {
                     statusListener,
                     isDebuggable,
                     idlingResourceEnabled,
+                    inboxPrefetchEnabled,
+                    imageLoadingTimeout,
+                    notificationGroupingThreshold,
+                    duplicateFilterFalsePositiveRate,
+                    workExecutor,
+                    callbackExecutor,
                     oreoConfig);
         }
     }
@@ -0,0 +1,158 @@
+package com.emarsys.mobileengage.image;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class DiskImageCache {
+
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+    final File directory;
+    final long maxSize;
+
+    private final LinkedHashMap<String, File> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+    private boolean initialized;
+
+    DiskImageCache(File directory, long maxSize) {
+        Assert.notNull(directory, "Directory must not be null!");
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("MaxSize must be positive!");
+        }
+        this.directory = directory;
+        this.maxSize = maxSize;
+    }
+
+    synchronized File get(String url) {
+        initialize();
+
+        String key = createKey(url);
+        File file = entries.get(key);
+        if (file != null) {
+            if (file.exists()) {
+                file.setLastModified(System.currentTimeMillis());
+            } else {
+                entries.remove(key);
+                file = null;
+            }
+        }
+        return file;
+    }
+
+    File put(String url, InputStream inputStream) throws IOException {
+        String key = createKey(url);
+        File temp = new File(directory, key + "." + Thread.currentThread().getId() + TEMP_FILE_SUFFIX);
+
+        OutputStream outputStream = null;
+        try {
+            directory.mkdirs();
+            outputStream = new FileOutputStream(temp);
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            throw e;
+        } finally {
+            if (outputStream != null) {
+                outputStream.close();
+            }
+        }
+
+        synchronized (this) {
+            initialize();
+
+            File file = new File(directory, key);
+            File previous = entries.remove(key);
+            if (previous != null) {
+                size -= previous.length();
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Could not move " + temp + " to " + file);
+            }
+            entries.put(key, file);
+            size += file.length();
+            trimToSize(maxSize);
+            return entries.containsKey(key) ? file : null;
+        }
+    }
+
+    synchronized long getSize() {
+        initialize();
+        return size;
+    }
+
+    synchronized void clear() {
+        initialize();
+        trimToSize(0);
+    }
+
+    private void trimToSize(long targetSize) {
+        Iterator<Map.Entry<String, File>> iterator = entries.entrySet().iterator();
+        while (size > targetSize && iterator.hasNext()) {
+            File evicted = iterator.next().getValue();
+            EMSLogger.log(MobileEngageTopic.PUSH, "Evicted image: %s", evicted);
+            size -= evicted.length();
+            evicted.delete();
+            iterator.remove();
+        }
+    }
+
+    private void initialize() {
+        if (!initialized) {
+            initialized = true;
+            File[] files = directory.listFiles();
+            if (files != null) {
+                Arrays.sort(files, new Comparator<File>() {
+                    @Override
+                    public int compare(File lhs, File rhs) {
+                        long left = lhs.lastModified();
+                        long right = rhs.lastModified();
+                        return left < right ? -1 : (left == right ? 0 : 1);
+                    }
+                });
+                for (File file : files) {
+                    if (file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                        file.delete();
+                    } else {
+                        entries.put(file.getName(), file);
+                        size += file.length();
+                    }
+                }
+            }
+            trimToSize(maxSize);
+        }
+    }
+
+    static String createKey(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(url.getBytes("UTF-8"));
+            StringBuilder builder = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16));
+                builder.append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException | UnsupportedEncodingException e) {
+            return String.valueOf(url.hashCode());
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.emarsys.mobileengage.image;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Process;
+import android.util.LruCache;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.MemoryTrimmable;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+public class ImageCache implements MemoryTrimmable {
+
+    public interface Callback {
+        void onBitmapLoaded(String url, Bitmap bitmap);
+    }
+
+    static final String DIRECTORY_NAME = "mobile_engage_images";
+    static final long DISK_CACHE_SIZE = 10 * 1024 * 1024;
+    static final int TIMEOUT = 10000;
+
+    static ImageCache instance;
+
+    static ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(final Runnable runnable) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                    runnable.run();
+                }
+            }, "MobileEngageImageLoader");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    final Context context;
+    final LruCache<String, Bitmap> memoryCache;
+    final DiskImageCache diskCache;
+
+    public static synchronized ImageCache getInstance(Context context) {
+        Assert.notNull(context, "Context must not be null!");
+        if (instance == null) {
+            Context applicationContext = context.getApplicationContext();
+            ActivityManager activityManager = (ActivityManager) applicationContext.getSystemService(Context.ACTIVITY_SERVICE);
+            int memoryCacheSize = activityManager.getMemoryClass() * 1024 * 1024 / 8;
+            instance = new ImageCache(
+                    applicationContext,
+                    memoryCacheSize,
+                    new DiskImageCache(new File(applicationContext.getCacheDir(), DIRECTORY_NAME), DISK_CACHE_SIZE));
+        }
+        return instance;
+    }
+
+    ImageCache(Context context, int memoryCacheSize, DiskImageCache diskCache) {
+        Assert.notNull(context, "Context must not be null!");
+        Assert.notNull(diskCache, "DiskCache must not be null!");
+        this.context = context;
+        this.diskCache = diskCache;
+        this.memoryCache = new LruCache<String, Bitmap>(memoryCacheSize) {
+            @Override
+            protected int sizeOf(String key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public Bitmap getCachedBitmap(String url) {
+        return url == null ? null : memoryCache.get(url);
+    }
+
+    public Bitmap loadBitmap(String url) {
+        return loadBitmap(url, new Download());
+    }
+
+    /**
+     * Cancelling the returned future disconnects a running download.
+     */
+    public Future<Bitmap> loadBitmapAsync(final String url, final Callback callback) {
+        final Download download = new Download();
+        FutureTask<Bitmap> task = new FutureTask<Bitmap>(new Callable<Bitmap>() {
+            @Override
+            public Bitmap call() throws Exception {
+                Bitmap result = loadBitmap(url, download);
+                if (callback != null) {
+                    callback.onBitmapLoaded(url, result);
+                }
+                return result;
+            }
+        }) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                boolean result = super.cancel(mayInterruptIfRunning);
+                if (result) {
+                    download.cancel();
+                }
+                return result;
+            }
+        };
+        executor.execute(task);
+        return task;
+    }
+
+    private Bitmap loadBitmap(String url, Download download) {
+        Bitmap result = getCachedBitmap(url);
+        if (result == null && url != null) {
+            File file = diskCache.get(url);
+            if (file == null) {
+                file = download(url, download);
+            }
+            if (file != null) {
+                result = decodeSampledBitmap(file);
+                if (result != null) {
+                    memoryCache.put(url, result);
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            memoryCache.evictAll();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            memoryCache.trimToSize(memoryCache.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        return memoryCache.size();
+    }
+
+    private File download(String url, Download download) {
+        File result = null;
+        HttpURLConnection connection = null;
+        InputStream inputStream = null;
+        try {
+            connection = (HttpURLConnection) new URL(url).openConnection();
+            if (!download.start(connection)) {
+                return null;
+            }
+            connection.setConnectTimeout(TIMEOUT);
+            connection.setReadTimeout(TIMEOUT);
+            if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
+                inputStream = connection.getInputStream();
+                result = diskCache.put(url, inputStream);
+            } else {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Image download failed with status code: %s", connection.getResponseCode());
+            }
+        } catch (IOException | ClassCastException e) {
+            EMSLogger.log(MobileEngageTopic.PUSH, "Exception: %s", e);
+        } finally {
+            if (inputStream != null) {
+                try {
+                    inputStream.close();
+                } catch (IOException ignored) {
+                }
+            }
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+        return result;
+    }
+
+    private Bitmap decodeSampledBitmap(File file) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+
+        int requiredWidth = context.getResources().getDisplayMetrics().widthPixels;
+        int sampleSize = 1;
+        while (requiredWidth > 0 && options.outWidth / (sampleSize * 2) >= requiredWidth) {
+            sampleSize *= 2;
+        }
+
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize;
+        return BitmapFactory.decodeFile(file.getAbsolutePath(), options);
+    }
+
+    private static class Download {
+        private HttpURLConnection connection;
+        private boolean cancelled;
+
+        synchronized boolean start(HttpURLConnection connection) {
+            if (!cancelled) {
+                this.connection = connection;
+            }
+            return !cancelled;
+        }
+
+        void cancel() {
+            HttpURLConnection current;
+            synchronized (this) {
+                cancelled = true;
+                current = connection;
+            }
+            if (current != null) {
+                current.disconnect();
+            }
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.emarsys.mobileengage.inbox;
 
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
 import android.os.Handler;
 import android.os.Looper;
 
@@ -13,49 +15,87 @@ import com.emarsys.core.response.ResponseModel;
 import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.log.EMSLogger;
 import com.emarsys.mobileengage.AppLoginParameters;
+import com.emarsys.mobileengage.MobileEngageCoreCompletionHandler;
 import com.emarsys.mobileengage.MobileEngageException;
+import com.emarsys.mobileengage.MobileEngageUtils;
+import com.emarsys.mobileengage.PushEnvelope;
+import com.emarsys.mobileengage.SessionState;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
+import com.emarsys.mobileengage.image.ImageCache;
 import com.emarsys.mobileengage.inbox.model.Notification;
 import com.emarsys.mobileengage.inbox.model.NotificationCache;
 import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+import com.emarsys.mobileengage.inbox.model.NotificationStore;
+import com.emarsys.mobileengage.util.HandlerExecutor;
+import com.emarsys.mobileengage.util.MemoryTrimmable;
 import com.emarsys.mobileengage.util.RequestUtils;
+import com.emarsys.mobileengage.util.SerialExecutor;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
 
-public class InboxInternal {
+public class InboxInternal implements MemoryTrimmable {
 
     private static String ENDPOINT_BASE = "https://me-inbox.eservice.emarsys.net/api/";
     private static String ENDPOINT_FETCH = ENDPOINT_BASE + "notifications";
+    private static String ENDPOINT_BADGE_COUNT = ENDPOINT_BASE + "badge_count";
+    private static String ENDPOINT_RESET_BADGE_COUNT = ENDPOINT_BASE + "reset-badge-count";
 
-    Handler handler;
+    static final int HTTP_NOT_MODIFIED = 304;
+
+    Executor callbackExecutor;
+    Executor workExecutor;
     RestClient client;
     MobileEngageConfig config;
-    AppLoginParameters appLoginParameters;
     NotificationCache cache;
+    NotificationStore store;
     RequestManager manager;
+    MobileEngageCoreCompletionHandler coreCompletionHandler;
+    ImageCache imageCache;
+    volatile NotificationInboxStatus fetchedStatus;
+    volatile Integer badgeCount;
+    volatile String badgeCountETag;
+    volatile BaseHeaders baseHeaders;
+    AtomicReference<String> pendingResetRequestId = new AtomicReference<>();
 
-    public InboxInternal(MobileEngageConfig config, RequestManager requestManager) {
+    public InboxInternal(MobileEngageConfig config, RequestManager requestManager, Handler coreSdkHandler, NotificationStore store, MobileEngageCoreCompletionHandler coreCompletionHandler) {
         Assert.notNull(config, "Config must not be null!");
         Assert.notNull(requestManager, "RequestManager must not be null!");
-        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: config %s, requestManager %s", config, requestManager);
+        Assert.notNull(coreSdkHandler, "CoreSdkHandler must not be null!");
+        Assert.notNull(store, "Store must not be null!");
+        Assert.notNull(coreCompletionHandler, "CoreCompletionHandler must not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: config %s, requestManager %s, coreSdkHandler %s, store %s", config, requestManager, coreSdkHandler, store);
 
         this.config = config;
         this.client = new RestClient();
-        this.handler = new Handler(Looper.getMainLooper());
+        this.callbackExecutor = config.getCallbackExecutor() != null
+                ? config.getCallbackExecutor()
+                : new HandlerExecutor(new Handler(Looper.getMainLooper()));
+        this.workExecutor = config.getWorkExecutor() != null
+                ? new SerialExecutor(config.getWorkExecutor())
+                : new HandlerExecutor(coreSdkHandler);
         this.cache = new NotificationCache();
+        this.store = store;
         this.manager = requestManager;
+        this.coreCompletionHandler = coreCompletionHandler;
+        this.imageCache = ImageCache.getInstance(config.getApplication());
+
+        restoreFromStore();
     }
 
     public void fetchNotifications(final InboxResultListener<NotificationInboxStatus> resultListener) {
         Assert.notNull(resultListener, "ResultListener should not be null!");
         EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: resultListener %s", resultListener);
 
-        if (appLoginParameters != null && appLoginParameters.hasCredentials()) {
-            handleFetchRequest(resultListener);
+        SessionState session = SessionState.current();
+        if (session.hasContact()) {
+            handleFetchRequest(session, resultListener);
         } else {
-            handler.post(new Runnable() {
+            callbackExecutor.execute(new Runnable() {
                 @Override
                 public void run() {
                     resultListener.onError(new NotificationInboxException("AppLogin must be called before calling fetchNotifications!"));
@@ -64,10 +104,10 @@ public class InboxInternal {
         }
     }
 
-    private void handleFetchRequest(final InboxResultListener<NotificationInboxStatus> resultListener) {
+    private void handleFetchRequest(SessionState session, final InboxResultListener<NotificationInboxStatus> resultListener) {
         RequestModel model = new RequestModel.Builder()
                 .url(ENDPOINT_FETCH)
-                .headers(createBaseHeaders(config))
+                .headers(createBaseHeaders(config, session))
                 .method(RequestMethod.GET)
                 .build();
 
@@ -76,31 +116,296 @@ public class InboxInternal {
             public void onSuccess(String id, ResponseModel responseModel) {
                 EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
                 NotificationInboxStatus status = InboxParseUtils.parseNotificationInboxStatus(responseModel.getBody());
-                NotificationInboxStatus resultStatus = new NotificationInboxStatus(cache.merge(status.getNotifications()), status.getBadgeCount());
-                resultListener.onSuccess(resultStatus);
+                fetchedStatus = status;
+                updateBadgeCount(status.getBadgeCount());
+                persistFetchedStatus(status);
+                final NotificationInboxStatus resultStatus = new NotificationInboxStatus(cache.merge(status.getNotifications()), status.getBadgeCount());
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onSuccess(resultStatus);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String id, final ResponseModel responseModel) {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onError(new MobileEngageException(responseModel));
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String id, final Exception cause) {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, cause %s", id, cause);
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onError(cause);
+                    }
+                });
+            }
+        });
+    }
+
+    public void fetchBadgeCount(final InboxResultListener<Integer> resultListener) {
+        Assert.notNull(resultListener, "ResultListener should not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: resultListener %s", resultListener);
+
+        SessionState session = SessionState.current();
+        if (session.hasContact()) {
+            handleBadgeCountRequest(session, resultListener);
+        } else {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    resultListener.onError(new NotificationInboxException("AppLogin must be called before calling fetchBadgeCount!"));
+                }
+            });
+        }
+    }
+
+    private void handleBadgeCountRequest(SessionState session, final InboxResultListener<Integer> resultListener) {
+        Map<String, String> headers = createBaseHeaders(config, session);
+        final Integer knownBadgeCount = badgeCount != null ? badgeCount : fetchedStatus != null ? Integer.valueOf(fetchedStatus.getBadgeCount()) : null;
+        if (badgeCount != null && badgeCountETag != null) {
+            headers = new HashMap<>(headers);
+            headers.put("If-None-Match", badgeCountETag);
+        }
+
+        RequestModel model = new RequestModel.Builder()
+                .url(ENDPOINT_BADGE_COUNT)
+                .headers(headers)
+                .method(RequestMethod.GET)
+                .build();
+
+        client.execute(model, new CoreCompletionHandler() {
+            @Override
+            public void onSuccess(String id, ResponseModel responseModel) {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
+                final int result = InboxParseUtils.parseBadgeCount(responseModel.getBody());
+                updateBadgeCount(result);
+                badgeCountETag = getHeader(responseModel, "ETag");
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onSuccess(result);
+                    }
+                });
+
+                SessionState current = SessionState.current();
+                if ((knownBadgeCount == null || knownBadgeCount != result) && current.hasContact()) {
+                    refreshNotifications(current);
+                }
             }
 
             @Override
-            public void onError(String id, ResponseModel responseModel) {
+            public void onError(String id, final ResponseModel responseModel) {
                 EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
-                resultListener.onError(new MobileEngageException(responseModel));
+                final Integer cached = badgeCount;
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (responseModel.getStatusCode() == HTTP_NOT_MODIFIED && cached != null) {
+                            resultListener.onSuccess(cached);
+                        } else {
+                            resultListener.onError(new MobileEngageException(responseModel));
+                        }
+                    }
+                });
             }
 
             @Override
-            public void onError(String id, Exception cause) {
+            public void onError(String id, final Exception cause) {
                 EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, cause %s", id, cause);
-                resultListener.onError(cause);
+                deliver(new Runnable() {
+                    @Override
+                    public void run() {
+                        resultListener.onError(cause);
+                    }
+                });
+            }
+        });
+    }
+
+    private void deliver(Runnable result) {
+        if (config.getCallbackExecutor() != null) {
+            callbackExecutor.execute(result);
+        } else {
+            result.run();
+        }
+    }
+
+    private void updateBadgeCount(int count) {
+        badgeCount = count;
+    }
+
+    private void refreshNotifications(SessionState session) {
+        handleFetchRequest(session, new InboxResultListener<NotificationInboxStatus>() {
+            @Override
+            public void onSuccess(NotificationInboxStatus result) {
+            }
+
+            @Override
+            public void onError(Exception cause) {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Refresh failed: %s", cause);
+            }
+        });
+    }
+
+    private String getHeader(ResponseModel responseModel, String name) {
+        Map<String, String> headers = responseModel.getHeaders();
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet()) {
+                if (name.equalsIgnoreCase(header.getKey())) {
+                    return header.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    public void sync(final PushEnvelope envelope) {
+        Assert.notNull(envelope, "Envelope must not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", envelope);
+
+        workExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                handleSync(envelope);
+            }
+        });
+    }
+
+    private void handleSync(PushEnvelope envelope) {
+        String action = envelope.getSyncAction();
+        Integer count = envelope.getBadgeCount();
+
+        if (count != null) {
+            updateBadgeCount(count);
+            badgeCountETag = null;
+            NotificationInboxStatus status = fetchedStatus;
+            if (status != null) {
+                fetchedStatus = new NotificationInboxStatus(status.getNotifications(), count);
+            }
+            store.storeBadgeCount(count);
+        }
+
+        if (PushEnvelope.SYNC_INVALIDATE.equals(action) || PushEnvelope.SYNC_REFRESH.equals(action)) {
+            fetchedStatus = null;
+            if (count == null) {
+                badgeCount = null;
+                badgeCountETag = null;
+            }
+        }
+
+        if (PushEnvelope.SYNC_REFRESH.equals(action)) {
+            SessionState session = SessionState.current();
+            if (session.hasContact()) {
+                refreshNotifications(session);
+            } else {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Sync refresh skipped: no contact logged in");
+            }
+        }
+    }
+
+    public void fetchCachedNotifications(final InboxResultListener<NotificationInboxStatus> resultListener) {
+        Assert.notNull(resultListener, "ResultListener should not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: resultListener %s", resultListener);
+
+        if (fetchedStatus != null) {
+            postCachedStatus(fetchedStatus, resultListener);
+        } else {
+            workExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    NotificationInboxStatus status = fetchedStatus;
+                    if (status == null) {
+                        status = store.loadInboxStatus();
+                    }
+                    if (status == null) {
+                        status = new NotificationInboxStatus();
+                    }
+                    postCachedStatus(status, resultListener);
+                }
+            });
+        }
+    }
+
+    public void fetchImage(final String imageUrl, final InboxResultListener<Bitmap> resultListener) {
+        Assert.notNull(imageUrl, "ImageUrl should not be null!");
+        Assert.notNull(resultListener, "ResultListener should not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: imageUrl %s, resultListener %s", imageUrl, resultListener);
+
+        Bitmap cached = imageCache.getCachedBitmap(imageUrl);
+        if (cached != null) {
+            postImage(cached, resultListener);
+        } else {
+            imageCache.loadBitmapAsync(imageUrl, new ImageCache.Callback() {
+                @Override
+                public void onBitmapLoaded(String url, Bitmap bitmap) {
+                    postImage(bitmap, resultListener);
+                }
+            });
+        }
+    }
+
+    private void postImage(final Bitmap bitmap, final InboxResultListener<Bitmap> resultListener) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (bitmap != null) {
+                    resultListener.onSuccess(bitmap);
+                } else {
+                    resultListener.onError(new NotificationInboxException("Image could not be loaded!"));
+                }
+            }
+        });
+    }
+
+    private void postCachedStatus(final NotificationInboxStatus status, final InboxResultListener<NotificationInboxStatus> resultListener) {
+        callbackExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                resultListener.onSuccess(new NotificationInboxStatus(cache.merge(status.getNotifications()), status.getBadgeCount()));
+            }
+        });
+    }
+
+    private void restoreFromStore() {
+        workExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                cache.restore(store.loadPushNotifications());
+                NotificationInboxStatus status = store.loadInboxStatus();
+                if (fetchedStatus == null && status != null) {
+                    fetchedStatus = status;
+                }
+            }
+        });
+    }
+
+    private void persistFetchedStatus(final NotificationInboxStatus status) {
+        workExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                store.storeInboxStatus(status);
             }
         });
     }
 
     public void resetBadgeCount(final ResetBadgeCountResultListener listener) {
         EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: resultListener %s", listener);
-        if (appLoginParameters != null && appLoginParameters.hasCredentials()) {
-            handleResetRequest(listener);
+        SessionState session = SessionState.current();
+        if (session.hasContact()) {
+            handleResetRequest(session, listener);
         } else {
             if (listener != null) {
-                handler.post(new Runnable() {
+                callbackExecutor.execute(new Runnable() {
                     @Override
                     public void run() {
                         listener.onError(new NotificationInboxException("AppLogin must be called before calling fetchNotifications!"));
@@ -112,69 +417,151 @@ public class InboxInternal {
 
     public String trackMessageOpen(Notification message) {
         EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", message);
-        
-        Map<String, Object> payload = RequestUtils.createBasePayload(config, appLoginParameters);
+
+        RequestModel model = createMessageOpenRequest(config, message);
+        MobileEngageUtils.incrementIdlingResource();
+        manager.submit(model);
+        return model.getId();
+    }
+
+    public static RequestModel createMessageOpenRequest(MobileEngageConfig config, Notification message) {
+        Map<String, Object> payload = RequestUtils.createBasePayload(config, SessionState.current().getAppLoginParameters());
         payload.put("source", "inbox");
         payload.put("sid", message.getSid());
-        RequestModel model = new RequestModel.Builder()
+        return new RequestModel.Builder()
                 .url(RequestUtils.createEventUrl("message_open"))
                 .payload(payload)
                 .build();
-
-        manager.submit(model);
-        return model.getId();
     }
 
 
-    private void handleResetRequest(final ResetBadgeCountResultListener listener) {
+    private void handleResetRequest(SessionState session, final ResetBadgeCountResultListener listener) {
+        applyBadgeCountReset();
+
         RequestModel model = new RequestModel.Builder()
-                .url("https://me-inbox.eservice.emarsys.net/api/reset-badge-count")
-                .headers(createBaseHeaders(config))
+                .url(ENDPOINT_RESET_BADGE_COUNT)
+                .headers(createBaseHeaders(config, session))
                 .method(RequestMethod.POST)
                 .build();
+        final String requestId = model.getId();
+        if (pendingResetRequestId.compareAndSet(null, requestId)) {
+            coreCompletionHandler.registerRequestListener(requestId, new CoreCompletionHandler() {
+                @Override
+                public void onSuccess(String id, ResponseModel responseModel) {
+                    pendingResetRequestId.compareAndSet(requestId, null);
+                }
 
-        client.execute(model, new CoreCompletionHandler() {
-            @Override
-            public void onSuccess(String id, ResponseModel responseModel) {
-                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
-                if (listener != null) {
-                    listener.onSuccess();
+                @Override
+                public void onError(String id, ResponseModel responseModel) {
+                    EMSLogger.log(MobileEngageTopic.INBOX, "Reset badge count failed: %s", responseModel);
+                    pendingResetRequestId.compareAndSet(requestId, null);
                 }
-            }
 
-            @Override
-            public void onError(String id, ResponseModel responseModel) {
-                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, responseModel %s", id, responseModel);
-                if (listener != null) {
-                    listener.onError(new MobileEngageException(responseModel));
+                @Override
+                public void onError(String id, Exception cause) {
+                    EMSLogger.log(MobileEngageTopic.INBOX, "Reset badge count failed: %s", cause);
+                    pendingResetRequestId.compareAndSet(requestId, null);
                 }
-            }
+            });
+            MobileEngageUtils.incrementIdlingResource();
+            manager.submit(model);
+        } else {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Reset badge count already queued");
+        }
 
-            @Override
-            public void onError(String id, Exception cause) {
-                EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: id %s, cause %s", id, cause);
-                if (listener != null) {
-                    listener.onError(cause);
+        if (listener != null) {
+            callbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    listener.onSuccess();
                 }
+            });
+        }
+    }
+
+    private void applyBadgeCountReset() {
+        badgeCount = 0;
+        NotificationInboxStatus status = fetchedStatus;
+        if (status != null) {
+            fetchedStatus = new NotificationInboxStatus(status.getNotifications(), 0);
+        }
+        workExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                store.storeBadgeCount(0);
             }
         });
     }
 
-    private Map<String, String> createBaseHeaders(MobileEngageConfig config) {
-        Map<String, String> result = new HashMap<>();
+    private Map<String, String> createBaseHeaders(MobileEngageConfig config, SessionState session) {
+        AppLoginParameters appLoginParameters = session.getAppLoginParameters();
+        DeviceInfo deviceInfo = SessionState.obtainDeviceInfo(config.getApplication());
+
+        BaseHeaders cached = baseHeaders;
+        if (cached == null || cached.deviceInfo != deviceInfo || !appLoginParameters.equals(cached.appLoginParameters)) {
+            Map<String, String> result = new HashMap<>();
+
+            result.put("x-ems-me-hardware-id", deviceInfo.getHwid());
+            result.put("x-ems-me-application-code", config.getApplicationCode());
+            result.put("x-ems-me-contact-field-id", String.valueOf(appLoginParameters.getContactFieldId()));
+            result.put("x-ems-me-contact-field-value", appLoginParameters.getContactFieldValue());
+
+            result.putAll(RequestUtils.createDefaultHeaders(config));
+
+            cached = new BaseHeaders(appLoginParameters, deviceInfo, Collections.unmodifiableMap(result));
+            baseHeaders = cached;
+        }
+        return cached.headers;
+    }
+
+    @Override
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Dropping fetched inbox status, level: %s", level);
+            fetchedStatus = null;
+        }
+    }
 
-        result.put("x-ems-me-hardware-id", new DeviceInfo(config.getApplication()).getHwid());
-        result.put("x-ems-me-application-code", config.getApplicationCode());
-        result.put("x-ems-me-contact-field-id", String.valueOf(appLoginParameters.getContactFieldId()));
-        result.put("x-ems-me-contact-field-value", appLoginParameters.getContactFieldValue());
+    @Override
+    public long getEstimatedSizeInBytes() {
+        NotificationInboxStatus status = fetchedStatus;
+        return status == null ? 0 : NotificationCache.estimateSizeInBytes(status.getNotifications());
+    }
 
-        result.putAll(RequestUtils.createDefaultHeaders(config));
+    public void onAppLoginParametersChanged(AppLoginParameters previous, AppLoginParameters appLoginParameters) {
+        if (appLoginParameters == null || !appLoginParameters.equals(previous)) {
+            badgeCount = null;
+            badgeCountETag = null;
+            pendingResetRequestId.set(null);
+        }
 
-        return result;
+        final String contact = appLoginParameters != null && appLoginParameters.hasCredentials()
+                ? appLoginParameters.getContactFieldId() + ":" + appLoginParameters.getContactFieldValue()
+                : null;
+        workExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                String storedContact = store.getContact();
+                if (contact == null ? storedContact != null : !contact.equals(storedContact)) {
+                    fetchedStatus = null;
+                    cache.clearNotifications();
+                    store.clear();
+                    store.setContact(contact);
+                }
+            }
+        });
     }
 
-    public void setAppLoginParameters(AppLoginParameters appLoginParameters) {
-        this.appLoginParameters = appLoginParameters;
+    static final class BaseHeaders {
+        final AppLoginParameters appLoginParameters;
+        final DeviceInfo deviceInfo;
+        final Map<String, String> headers;
+
+        BaseHeaders(AppLoginParameters appLoginParameters, DeviceInfo deviceInfo, Map<String, String> headers) {
+            this.appLoginParameters = appLoginParameters;
+            this.deviceInfo = deviceInfo;
+            this.headers = headers;
+        }
     }
 
 }
@@ -1,15 +1,22 @@
 package com.emarsys.mobileengage.inbox;
 
+import android.util.JsonReader;
+import android.util.JsonToken;
+import android.util.JsonWriter;
+
+import com.emarsys.mobileengage.PushEnvelope;
 import com.emarsys.mobileengage.inbox.model.Notification;
+import com.emarsys.mobileengage.inbox.model.NotificationDataUtils;
 import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
 
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -20,18 +27,30 @@ public class InboxParseUtils {
     public static NotificationInboxStatus parseNotificationInboxStatus(String jsonString) {
         NotificationInboxStatus result = new NotificationInboxStatus();
         if (jsonString != null) {
+            JsonReader reader = createReader(jsonString);
             try {
-                JSONObject json = new JSONObject(jsonString);
-
-                List<Notification> notifications = null;
-                if (json.has("notifications")) {
-                    notifications = parseNotificationList(json.getString("notifications"));
-                }
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    List<Notification> notifications = null;
+                    int badgeCount = 0;
 
-                int badgeCount = parseBadgeCount(jsonString);
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String name = reader.nextName();
+                        if ("notifications".equals(name)) {
+                            notifications = readNotificationList(reader, new StringWriter());
+                        } else if ("badge_count".equals(name)) {
+                            badgeCount = readBadgeCount(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
 
-                result = new NotificationInboxStatus(notifications, badgeCount);
-            } catch (JSONException e) {
+                    result = new NotificationInboxStatus(notifications, badgeCount);
+                }
+            } catch (IOException | RuntimeException e) {
+            } finally {
+                closeQuietly(reader);
             }
         }
         return result;
@@ -40,10 +59,22 @@ public class InboxParseUtils {
     public static int parseBadgeCount(String jsonString) {
         int result = 0;
         if (jsonString != null) {
+            JsonReader reader = createReader(jsonString);
             try {
-                JSONObject json = new JSONObject(jsonString);
-                result = json.getInt("badge_count");
-            } catch (JSONException e) {
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        if ("badge_count".equals(reader.nextName())) {
+                            result = readBadgeCount(reader);
+                        } else {
+                            reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                }
+            } catch (IOException | RuntimeException e) {
+            } finally {
+                closeQuietly(reader);
             }
         }
         return result;
@@ -52,16 +83,12 @@ public class InboxParseUtils {
     public static List<Notification> parseNotificationList(String jsonString) {
         List<Notification> result = new ArrayList<>();
         if (jsonString != null) {
+            JsonReader reader = createReader(jsonString);
             try {
-                JSONArray array = new JSONArray(jsonString);
-                for (int i = 0; i < array.length(); i++) {
-                    String notificationString = array.getString(i);
-                    Notification notification = parseNotification(notificationString);
-                    if (notification != null) {
-                        result.add(notification);
-                    }
-                }
-            } catch (JSONException e) {
+                result = readNotificationList(reader, new StringWriter());
+            } catch (IOException | RuntimeException e) {
+            } finally {
+                closeQuietly(reader);
             }
         }
         return result;
@@ -70,71 +97,281 @@ public class InboxParseUtils {
     public static Notification parseNotification(String jsonString) {
         Notification result = null;
         if (jsonString != null) {
+            JsonReader reader = createReader(jsonString);
             try {
-                JSONObject json = new JSONObject(jsonString);
-                String id = json.getString("id");
-                String sid = json.getString("sid");
-                String title = json.getString("title");
-                String body = null;
-                if (json.has("body")) {
-                    body = json.getString("body");
+                if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                    result = readNotification(reader, new StringWriter());
                 }
-                Map<String, String> customData = convertFlatJsonObject(new JSONObject(json.getString("custom_data")));
-                JSONObject rootParams = new JSONObject(json.getString("root_params"));
-                int expirationTime = json.getInt("expiration_time");
-                long receivedAt = json.getLong("received_at");
-                result = new Notification(id, sid, title, body, customData, rootParams, expirationTime, receivedAt);
-            } catch (JSONException e) {
+            } catch (IOException | RuntimeException e) {
+            } finally {
+                closeQuietly(reader);
             }
         }
         return result;
     }
 
     public static Notification parseNotificationFromPushMessage(Map<String, String> remoteData) {
+        return remoteData == null ? null : parseNotificationFromPushEnvelope(PushEnvelope.fromRemoteMessageData(remoteData));
+    }
+
+    public static Notification parseNotificationFromPushEnvelope(PushEnvelope envelope) {
         Notification result = null;
-        if (remoteData != null && "true".equals(remoteData.get("inbox"))) {
-            String id = remoteData.get("id");
+        if (envelope != null && envelope.isInbox()) {
+            String rootParams = "{}";
 
-            String sid = null;
-            try {
-                sid = new JSONObject(remoteData.get("u")).getString("sid");
-            } catch (JSONException e) {
-                e.printStackTrace();
+            int expirationTime = Integer.MAX_VALUE;
+
+            result = Notification.fromRawData(
+                    envelope.getId(),
+                    envelope.getSid(),
+                    envelope.getTitle(),
+                    envelope.getBody(),
+                    envelope.getCustomData(),
+                    rootParams,
+                    expirationTime,
+                    envelope.getReceivedAt());
+        }
+        return result;
+    }
+
+    public static Map<String, String> convertFlatJsonObject(JSONObject jsonObject) {
+        return NotificationDataUtils.convertFlatJsonObject(jsonObject);
+    }
+
+    private static JsonReader createReader(String jsonString) {
+        JsonReader reader = new JsonReader(new StringReader(jsonString));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    private static List<Notification> readNotificationList(JsonReader reader, StringWriter buffer) throws IOException {
+        List<Notification> result = new ArrayList<>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return result;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                Notification notification = readNotification(reader, buffer);
+                if (notification != null) {
+                    result.add(notification);
+                }
+            } else {
+                reader.skipValue();
             }
+        }
+        reader.endArray();
+        return result;
+    }
 
-            String title = remoteData.get("title");
-            String body = remoteData.get("body");
+    private static Notification readNotification(JsonReader reader, StringWriter buffer) throws IOException {
+        String id = null;
+        String sid = null;
+        String title = null;
+        String body = null;
+        String customData = null;
+        String rootParams = null;
+        Long expirationTime = null;
+        Long receivedAt = null;
 
-            Map<String, String> customData = null;
-            try {
-                customData = convertFlatJsonObject(new JSONObject(remoteData.get("u")));
-            } catch (JSONException e) {
-                e.printStackTrace();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "id":
+                    id = readString(reader);
+                    break;
+                case "sid":
+                    sid = readString(reader);
+                    break;
+                case "title":
+                    title = readString(reader);
+                    break;
+                case "body":
+                    body = readString(reader);
+                    break;
+                case "custom_data":
+                    customData = readRawObject(reader, buffer);
+                    break;
+                case "root_params":
+                    rootParams = readRawObject(reader, buffer);
+                    break;
+                case "expiration_time":
+                    expirationTime = readLong(reader);
+                    break;
+                case "received_at":
+                    receivedAt = readLong(reader);
+                    break;
+                default:
+                    reader.skipValue();
             }
+        }
+        reader.endObject();
 
-            JSONObject rootParams = new JSONObject();
+        Notification result = null;
+        if (id != null && sid != null && title != null && customData != null && rootParams != null && expirationTime != null && receivedAt != null) {
+            result = Notification.fromRawData(id, sid, title, body, customData, rootParams, expirationTime.intValue(), receivedAt);
+        }
+        return result;
+    }
 
-            int expirationTime = Integer.MAX_VALUE;
+    private static int readBadgeCount(JsonReader reader) throws IOException {
+        Long value = readLong(reader);
+        return value == null ? 0 : value.intValue();
+    }
 
-            long receivedAt = System.currentTimeMillis();
+    private static String readString(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.STRING) {
+            return reader.nextString();
+        }
+        return String.valueOf(readValue(reader));
+    }
 
-            result = new Notification(id, sid, title, body, customData, rootParams, expirationTime, receivedAt);
+    private static Long readLong(JsonReader reader) throws IOException {
+        Long result = null;
+        JsonToken token = reader.peek();
+        if (token == JsonToken.NUMBER || token == JsonToken.STRING) {
+            String value = reader.nextString();
+            try {
+                result = Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                try {
+                    result = (long) Double.parseDouble(value);
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } else {
+            reader.skipValue();
         }
         return result;
     }
 
-    public static Map<String, String> convertFlatJsonObject(JSONObject jsonObject) {
-        Map<String, String> result = new HashMap<>();
-        if (jsonObject != null) {
+    private static String readRawObject(JsonReader reader, StringWriter buffer) throws IOException {
+        String result = null;
+        JsonToken token = reader.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            buffer.getBuffer().setLength(0);
+            JsonWriter writer = new JsonWriter(buffer);
+            copyValue(reader, writer);
+            writer.flush();
+            result = buffer.toString();
+        } else if (token == JsonToken.STRING) {
+            String value = reader.nextString();
             try {
-                Iterator<String> keys = jsonObject.keys();
-                while (keys.hasNext()) {
-                    String key = keys.next();
-                    result.put(key, jsonObject.getString(key));
+                new JSONObject(value);
+                result = value;
+            } catch (JSONException ignored) {
+            }
+        } else {
+            reader.skipValue();
+        }
+        return result;
+    }
+
+    private static void copyValue(JsonReader reader, JsonWriter writer) throws IOException {
+        switch (reader.peek()) {
+            case BEGIN_OBJECT:
+                reader.beginObject();
+                writer.beginObject();
+                while (reader.hasNext()) {
+                    writer.name(reader.nextName());
+                    copyValue(reader, writer);
+                }
+                reader.endObject();
+                writer.endObject();
+                break;
+            case BEGIN_ARRAY:
+                reader.beginArray();
+                writer.beginArray();
+                while (reader.hasNext()) {
+                    copyValue(reader, writer);
                 }
-            } catch (JSONException e) {
+                reader.endArray();
+                writer.endArray();
+                break;
+            case NUMBER:
+                writer.value(parseRawNumber(reader.nextString()));
+                break;
+            case BOOLEAN:
+                writer.value(reader.nextBoolean());
+                break;
+            case NULL:
+                reader.nextNull();
+                writer.nullValue();
+                break;
+            default:
+                writer.value(reader.nextString());
+        }
+    }
+
+    private static Object readValue(JsonReader reader) throws IOException {
+        Object result;
+        try {
+            switch (reader.peek()) {
+                case BEGIN_OBJECT:
+                    JSONObject object = new JSONObject();
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        String key = reader.nextName();
+                        object.put(key, readValue(reader));
+                    }
+                    reader.endObject();
+                    result = object;
+                    break;
+                case BEGIN_ARRAY:
+                    JSONArray array = new JSONArray();
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        array.put(readValue(reader));
+                    }
+                    reader.endArray();
+                    result = array;
+                    break;
+                case NUMBER:
+                    result = parseNumber(reader.nextString());
+                    break;
+                case BOOLEAN:
+                    result = reader.nextBoolean();
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    result = JSONObject.NULL;
+                    break;
+                default:
+                    result = reader.nextString();
+            }
+        } catch (JSONException e) {
+            throw new IOException(e);
+        }
+        return result;
+    }
+
+    private static Number parseNumber(String value) {
+        try {
+            long longValue = Long.parseLong(value);
+            if (longValue >= Integer.MIN_VALUE && longValue <= Integer.MAX_VALUE) {
+                return (int) longValue;
             }
+            return longValue;
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(value);
+        }
+    }
+
+    private static Number parseRawNumber(String value) {
+        Number result = parseNumber(value);
+        if (result instanceof Double && result.doubleValue() == result.longValue()) {
+            result = result.longValue();
         }
         return result;
     }
+
+    private static void closeQuietly(JsonReader reader) {
+        try {
+            reader.close();
+        } catch (IOException ignored) {
+        }
+    }
 }
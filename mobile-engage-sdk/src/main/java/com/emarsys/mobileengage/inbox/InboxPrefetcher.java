@@ -0,0 +1,149 @@
+package com.emarsys.mobileengage.inbox;
+
+import android.app.Activity;
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.v4.net.ConnectivityManagerCompat;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.SessionState;
+import com.emarsys.mobileengage.inbox.model.NotificationInboxStatus;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.List;
+
+public class InboxPrefetcher implements Application.ActivityLifecycleCallbacks {
+
+    static final long MINIMUM_PREFETCH_INTERVAL = 60 * 1000;
+
+    InboxInternal inboxInternal;
+    Handler coreSdkHandler;
+    ConnectivityManager connectivityManager;
+    long minimumPrefetchInterval;
+
+    boolean prefetchInProgress;
+    long lastPrefetchTime;
+    int startedActivities;
+    boolean changingConfigurations;
+
+    public InboxPrefetcher(InboxInternal inboxInternal, Handler coreSdkHandler, Context context) {
+        this(inboxInternal, coreSdkHandler, context, MINIMUM_PREFETCH_INTERVAL);
+    }
+
+    InboxPrefetcher(InboxInternal inboxInternal, Handler coreSdkHandler, Context context, long minimumPrefetchInterval) {
+        Assert.notNull(inboxInternal, "InboxInternal must not be null!");
+        Assert.notNull(coreSdkHandler, "CoreSdkHandler must not be null!");
+        Assert.notNull(context, "Context must not be null!");
+
+        this.inboxInternal = inboxInternal;
+        this.coreSdkHandler = coreSdkHandler;
+        this.connectivityManager = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        this.minimumPrefetchInterval = minimumPrefetchInterval;
+        this.startedActivities = isProcessVisible(context) ? 1 : 0;
+    }
+
+    public void prefetch() {
+        coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                handlePrefetch();
+            }
+        });
+    }
+
+    private void handlePrefetch() {
+        long now = SystemClock.elapsedRealtime();
+
+        if (prefetchInProgress) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch skipped: already in progress");
+        } else if (lastPrefetchTime != 0 && now - lastPrefetchTime < minimumPrefetchInterval) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch skipped: last prefetch was %d ms ago", now - lastPrefetchTime);
+        } else if (connectivityManager == null || ConnectivityManagerCompat.isActiveNetworkMetered(connectivityManager)) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch skipped: active network is metered");
+        } else if (!SessionState.current().hasContact()) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch skipped: no contact logged in");
+        } else {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch started");
+            prefetchInProgress = true;
+            lastPrefetchTime = now;
+            inboxInternal.fetchNotifications(new InboxResultListener<NotificationInboxStatus>() {
+                @Override
+                public void onSuccess(NotificationInboxStatus result) {
+                    finishPrefetch();
+                }
+
+                @Override
+                public void onError(Exception cause) {
+                    EMSLogger.log(MobileEngageTopic.INBOX, "Prefetch failed: %s", cause);
+                    finishPrefetch();
+                }
+            });
+        }
+    }
+
+    private void finishPrefetch() {
+        coreSdkHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                prefetchInProgress = false;
+            }
+        });
+    }
+
+    private static boolean isProcessVisible(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes = activityManager == null ? null : activityManager.getRunningAppProcesses();
+        if (processes != null) {
+            int pid = Process.myPid();
+            for (ActivityManager.RunningAppProcessInfo process : processes) {
+                if (process.pid == pid) {
+                    return process.importance <= ActivityManager.RunningAppProcessInfo.IMPORTANCE_VISIBLE;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+        if (startedActivities++ == 0 && !changingConfigurations) {
+            prefetch();
+        }
+        changingConfigurations = false;
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+        changingConfigurations = activity.isChangingConfigurations();
+        if (startedActivities > 0) {
+            startedActivities--;
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+    }
+}
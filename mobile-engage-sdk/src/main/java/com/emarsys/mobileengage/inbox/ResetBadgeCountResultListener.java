@@ -1,5 +1,11 @@
 package com.emarsys.mobileengage.inbox;
 
+/**
+ * {@link #onSuccess()} is called once the reset has been applied to the local badge count and the
+ * request has been queued for delivery. Delivery is retried by the request queue, and a final delivery
+ * failure is reported to {@link com.emarsys.mobileengage.MobileEngageStatusListener#onError}.
+ * {@link #onError(Exception)} is called when the reset cannot be queued, e.g. before appLogin.
+ */
 public interface ResetBadgeCountResultListener {
     void onSuccess();
 
@@ -0,0 +1,77 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+public class InboxDbHelper extends SQLiteOpenHelper {
+
+    public static final String DATABASE_NAME = "EmarsysMobileEngageInbox.db";
+    public static final int DATABASE_VERSION = 2;
+
+    static final String TABLE_NOTIFICATION = "notification";
+    static final String TABLE_META = "meta";
+    static final String TABLE_PAYLOAD = "payload";
+
+    static final String COLUMN_ID = "id";
+    static final String COLUMN_SID = "sid";
+    static final String COLUMN_TITLE = "title";
+    static final String COLUMN_BODY = "body";
+    static final String COLUMN_CUSTOM_DATA = "custom_data";
+    static final String COLUMN_ROOT_PARAMS = "root_params";
+    static final String COLUMN_EXPIRATION_TIME = "expiration_time";
+    static final String COLUMN_RECEIVED_AT = "received_at";
+    static final String COLUMN_SOURCE = "source";
+
+    static final String COLUMN_KEY = "key";
+    static final String COLUMN_VALUE = "value";
+
+    static final String COLUMN_TOKEN = "token";
+    static final String COLUMN_DATA = "data";
+
+    static final int SOURCE_PUSH = 0;
+    static final int SOURCE_INBOX = 1;
+
+    private static final String SQL_CREATE_NOTIFICATION = "CREATE TABLE IF NOT EXISTS " + TABLE_NOTIFICATION + " (" +
+            COLUMN_ID + " TEXT PRIMARY KEY, " +
+            COLUMN_SID + " TEXT, " +
+            COLUMN_TITLE + " TEXT, " +
+            COLUMN_BODY + " TEXT, " +
+            COLUMN_CUSTOM_DATA + " TEXT, " +
+            COLUMN_ROOT_PARAMS + " TEXT, " +
+            COLUMN_EXPIRATION_TIME + " INTEGER, " +
+            COLUMN_RECEIVED_AT + " INTEGER, " +
+            COLUMN_SOURCE + " INTEGER);";
+
+    private static final String SQL_CREATE_RECEIVED_AT_INDEX = "CREATE INDEX IF NOT EXISTS " + TABLE_NOTIFICATION + "_" + COLUMN_RECEIVED_AT +
+            " ON " + TABLE_NOTIFICATION + " (" + COLUMN_SOURCE + ", " + COLUMN_RECEIVED_AT + ");";
+
+    private static final String SQL_CREATE_META = "CREATE TABLE IF NOT EXISTS " + TABLE_META + " (" +
+            COLUMN_KEY + " TEXT PRIMARY KEY, " +
+            COLUMN_VALUE + " TEXT);";
+
+    private static final String SQL_CREATE_PAYLOAD = "CREATE TABLE IF NOT EXISTS " + TABLE_PAYLOAD + " (" +
+            COLUMN_TOKEN + " TEXT PRIMARY KEY, " +
+            COLUMN_DATA + " TEXT, " +
+            COLUMN_RECEIVED_AT + " INTEGER);";
+
+    public InboxDbHelper(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL(SQL_CREATE_NOTIFICATION);
+        db.execSQL(SQL_CREATE_RECEIVED_AT_INDEX);
+        db.execSQL(SQL_CREATE_META);
+        db.execSQL(SQL_CREATE_PAYLOAD);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_NOTIFICATION + ";");
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_META + ";");
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_PAYLOAD + ";");
+        onCreate(db);
+    }
+}
@@ -7,26 +7,52 @@ import org.json.JSONObject;
 import java.util.Map;
 
 public class Notification {
+    private static final long OBJECT_OVERHEAD_BYTES = 96;
+    private static final long STRING_OVERHEAD_BYTES = 40;
+    private static final long MAP_ENTRY_OVERHEAD_BYTES = 32;
+    private static final String EMPTY_JSON = "{}";
+
     private final String id;
     private final String sid;
     private final String title;
     private final String body;
-    private final Map<String, String> customData;
-    private final JSONObject rootParams;
     private final int expirationTime;
     private final long receivedAt;
 
+    private final String rawCustomData;
+    private final String rawRootParams;
+    private volatile Map<String, String> customData;
+    private volatile JSONObject rootParams;
+
     public Notification(String id, String sid, String title, String body, Map<String, String> customData, JSONObject rootParams, int expirationTime, long receivedAt) {
+        this(id, sid, title, body, (String) null, (String) null, expirationTime, receivedAt);
+        this.customData = customData;
+        this.rootParams = rootParams;
+    }
+
+    private Notification(String id, String sid, String title, String body, String rawCustomData, String rawRootParams, int expirationTime, long receivedAt) {
         this.id = id;
         this.sid = sid;
         this.title = title;
         this.body = body;
-        this.customData = customData;
-        this.rootParams = rootParams;
+        this.rawCustomData = rawCustomData;
+        this.rawRootParams = rawRootParams;
         this.expirationTime = expirationTime;
         this.receivedAt = receivedAt;
     }
 
+    public static Notification fromRawData(String id, String sid, String title, String body, String rawCustomData, String rawRootParams, int expirationTime, long receivedAt) {
+        return new Notification(
+                id,
+                sid,
+                title,
+                body,
+                rawCustomData != null ? rawCustomData : EMPTY_JSON,
+                rawRootParams != null ? rawRootParams : EMPTY_JSON,
+                expirationTime,
+                receivedAt);
+    }
+
     @NonNull
     public String getId() {
         return id;
@@ -44,12 +70,30 @@ public class Notification {
 
     @NonNull
     public Map<String, String> getCustomData() {
-        return customData;
+        Map<String, String> result = customData;
+        if (result == null && rawCustomData != null) {
+            synchronized (this) {
+                if (customData == null) {
+                    customData = NotificationDataUtils.decodeCustomData(rawCustomData);
+                }
+                result = customData;
+            }
+        }
+        return result;
     }
 
     @NonNull
     public JSONObject getRootParams() {
-        return rootParams;
+        JSONObject result = rootParams;
+        if (result == null && rawRootParams != null) {
+            synchronized (this) {
+                if (rootParams == null) {
+                    rootParams = NotificationDataUtils.decodeRootParams(rawRootParams);
+                }
+                result = rootParams;
+            }
+        }
+        return result;
     }
 
     @NonNull
@@ -66,6 +110,57 @@ public class Notification {
         return body;
     }
 
+    String getRawCustomData() {
+        String result = rawCustomData;
+        Map<String, String> decoded = customData;
+        if (result == null && decoded != null) {
+            result = new JSONObject(decoded).toString();
+        }
+        return result;
+    }
+
+    String getRawRootParams() {
+        String result = rawRootParams;
+        JSONObject decoded = rootParams;
+        if (result == null && decoded != null) {
+            result = decoded.toString();
+        }
+        return result;
+    }
+
+    void releaseDecodedData() {
+        synchronized (this) {
+            if (rawCustomData != null) {
+                customData = null;
+            }
+            if (rawRootParams != null) {
+                rootParams = null;
+            }
+        }
+    }
+
+    long getEstimatedSizeInBytes() {
+        long result = OBJECT_OVERHEAD_BYTES;
+        result += estimateSize(id) + estimateSize(sid) + estimateSize(title) + estimateSize(body);
+        result += estimateSize(rawCustomData) + estimateSize(rawRootParams);
+
+        Map<String, String> decodedCustomData = customData;
+        if (decodedCustomData != null) {
+            for (Map.Entry<String, String> entry : decodedCustomData.entrySet()) {
+                result += MAP_ENTRY_OVERHEAD_BYTES + estimateSize(entry.getKey()) + estimateSize(entry.getValue());
+            }
+        }
+        JSONObject decodedRootParams = rootParams;
+        if (decodedRootParams != null) {
+            result += OBJECT_OVERHEAD_BYTES + estimateSize(decodedRootParams.toString());
+        }
+        return result;
+    }
+
+    private static long estimateSize(String value) {
+        return value == null ? 0 : STRING_OVERHEAD_BYTES + 2L * value.length();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -79,11 +174,21 @@ public class Notification {
         if (sid != null ? !sid.equals(that.sid) : that.sid != null) return false;
         if (title != null ? !title.equals(that.title) : that.title != null) return false;
         if (body != null ? !body.equals(that.body) : that.body != null) return false;
-        if (customData != null ? !customData.equals(that.customData) : that.customData != null)
-            return false;
-        if (rootParams != null ? !rootParams.toString().equals(that.rootParams.toString()) : that.rootParams != null)
-            return false;
-        return receivedAt == that.receivedAt;
+        return hasSameCustomData(that) && hasSameRootParams(that);
+    }
+
+    private boolean hasSameCustomData(Notification that) {
+        if (rawCustomData != null && rawCustomData.equals(that.rawCustomData)) return true;
+        Map<String, String> customData = getCustomData();
+        Map<String, String> thatCustomData = that.getCustomData();
+        return customData != null ? customData.equals(thatCustomData) : thatCustomData == null;
+    }
+
+    private boolean hasSameRootParams(Notification that) {
+        if (rawRootParams != null && rawRootParams.equals(that.rawRootParams)) return true;
+        JSONObject rootParams = getRootParams();
+        JSONObject thatRootParams = that.getRootParams();
+        return rootParams != null ? thatRootParams != null && rootParams.toString().equals(thatRootParams.toString()) : thatRootParams == null;
     }
 
     @Override
@@ -92,8 +197,6 @@ public class Notification {
         result = 31 * result + (sid != null ? sid.hashCode() : 0);
         result = 31 * result + (title != null ? title.hashCode() : 0);
         result = 31 * result + (body != null ? body.hashCode() : 0);
-        result = 31 * result + (customData != null ? customData.hashCode() : 0);
-        result = 31 * result + (rootParams != null ? rootParams.hashCode() : 0);
         result = 31 * result + expirationTime;
         result = 31 * result + (int) (receivedAt ^ (receivedAt >>> 32));
         return result;
@@ -106,8 +209,8 @@ public class Notification {
                 ", sid='" + sid + '\'' +
                 ", title='" + title + '\'' +
                 ", body='" + body + '\'' +
-                ", customData=" + customData +
-                ", rootParams=" + rootParams +
+                ", customData=" + (rawCustomData != null ? rawCustomData : customData) +
+                ", rootParams=" + (rawRootParams != null ? rawRootParams : rootParams) +
                 ", expirationTime=" + expirationTime +
                 ", receivedAt=" + receivedAt +
                 '}';
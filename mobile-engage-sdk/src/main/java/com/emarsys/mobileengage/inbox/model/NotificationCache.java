@@ -1,40 +1,298 @@
 package com.emarsys.mobileengage.inbox.model;
 
+import android.content.ComponentCallbacks2;
+
+import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.PushEnvelope;
+import com.emarsys.mobileengage.util.MemoryTrimmable;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+public class NotificationCache implements MemoryTrimmable {
+
+    public static final int DEFAULT_MAX_SIZE = 200;
+    public static final int MAX_PAYLOAD_CACHE_SIZE = 16;
+
+    private static final Object LOCK = new Object();
+
+    private static final Comparator<Notification> EVICTION_ORDER = new Comparator<Notification>() {
+        @Override
+        public int compare(Notification lhs, Notification rhs) {
+            int result = compareLong(getExpiresAt(lhs), getExpiresAt(rhs));
+            return result != 0 ? result : compareLong(lhs.getReceivedAt(), rhs.getReceivedAt());
+        }
+    };
+
+    static Map<String, Notification> internalCache = new LinkedHashMap<>();
+    static PriorityQueue<Notification> evictionQueue = new PriorityQueue<>(11, EVICTION_ORDER);
+    static volatile List<Notification> snapshot;
+    static volatile long snapshotExpiresAt;
+    static Map<String, PushEnvelope> payloadCache = new LinkedHashMap<String, PushEnvelope>(MAX_PAYLOAD_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PushEnvelope> eldest) {
+            return size() > MAX_PAYLOAD_CACHE_SIZE;
+        }
+    };
+    static volatile NotificationStore store;
+    static volatile int maxSize = DEFAULT_MAX_SIZE;
+    static volatile Clock clock = Clock.SYSTEM;
+
+    interface Clock {
+        Clock SYSTEM = new Clock() {
+            @Override
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+        };
+
+        long currentTimeMillis();
+    }
 
-public class NotificationCache {
+    public static void setStore(NotificationStore store) {
+        NotificationCache.store = store;
+    }
 
-    static List<Notification> internalCache = new ArrayList<>();
+    public static void setMaxSize(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("MaxSize must not be negative!");
+        }
+        synchronized (LOCK) {
+            NotificationCache.maxSize = maxSize;
+            evictOverflow();
+        }
+    }
 
     public void cache(Notification notification) {
         EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", notification);
 
         if (notification != null) {
-            internalCache.add(0, notification);
+            synchronized (LOCK) {
+                internalCache.remove(notification.getId());
+                internalCache.put(notification.getId(), notification);
+                evictionQueue.add(notification);
+                snapshot = null;
+                evictOverflow();
+            }
+            NotificationStore currentStore = store;
+            if (currentStore != null) {
+                currentStore.storePushNotification(notification);
+            }
+        }
+    }
+
+    public void cachePayload(String token, PushEnvelope envelope) {
+        Assert.notNull(token, "Token must not be null!");
+        Assert.notNull(envelope, "Envelope must not be null!");
+
+        synchronized (LOCK) {
+            payloadCache.put(token, envelope);
+        }
+        NotificationStore currentStore = store;
+        if (currentStore != null) {
+            currentStore.storePushPayload(token, envelope);
+        }
+    }
+
+    public PushEnvelope getPayload(String token) {
+        Assert.notNull(token, "Token must not be null!");
+
+        PushEnvelope result;
+        synchronized (LOCK) {
+            result = payloadCache.get(token);
+        }
+        NotificationStore currentStore = store;
+        if (result == null && currentStore != null) {
+            result = currentStore.loadPushPayload(token);
+        }
+        return result;
+    }
+
+    public void restore(List<Notification> persistedNotifications) {
+        EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", persistedNotifications);
+
+        if (persistedNotifications != null && !persistedNotifications.isEmpty()) {
+            synchronized (LOCK) {
+                Map<String, Notification> restored = new LinkedHashMap<>();
+                for (int i = persistedNotifications.size() - 1; i >= 0; --i) {
+                    Notification persisted = persistedNotifications.get(i);
+                    if (!internalCache.containsKey(persisted.getId())) {
+                        restored.put(persisted.getId(), persisted);
+                        evictionQueue.add(persisted);
+                    }
+                }
+                restored.putAll(internalCache);
+                internalCache = restored;
+                snapshot = null;
+                evictOverflow();
+            }
         }
     }
 
     public List<Notification> merge(List<Notification> fetchedList) {
-        invalidate(fetchedList);
+        List<Notification> cached;
+        synchronized (LOCK) {
+            removeAll(fetchedList);
+            cached = createSnapshot(clock.currentTimeMillis());
+        }
 
-        ArrayList<Notification> result = new ArrayList<>(internalCache);
+        List<Notification> result = new ArrayList<>(cached.size() + fetchedList.size());
+        result.addAll(cached);
         result.addAll(fetchedList);
         return result;
     }
 
     public void invalidate(List<Notification> fetchedNotifications) {
-        for (int i = internalCache.size() - 1; i >= 0; --i) {
-            Notification cached = internalCache.get(i);
-            for (Notification fetched: fetchedNotifications) {
-                if (fetched.getId().equals(cached.getId())) {
-                    internalCache.remove(i);
-                    break;
+        synchronized (LOCK) {
+            removeAll(fetchedNotifications);
+        }
+    }
+
+    public List<Notification> getCachedNotifications() {
+        long now = clock.currentTimeMillis();
+        List<Notification> result = snapshot;
+        if (result == null || now >= snapshotExpiresAt) {
+            synchronized (LOCK) {
+                result = createSnapshot(now);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        synchronized (LOCK) {
+            clearNotifications();
+            payloadCache.clear();
+        }
+    }
+
+    public void clearNotifications() {
+        synchronized (LOCK) {
+            internalCache.clear();
+            evictionQueue.clear();
+            snapshot = null;
+        }
+    }
+
+    @Override
+    public void trimMemory(int level) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            synchronized (LOCK) {
+                snapshot = null;
+                evictExpired(clock.currentTimeMillis());
+                if (evictionQueue.size() > internalCache.size()) {
+                    evictionQueue.clear();
+                    evictionQueue.addAll(internalCache.values());
+                }
+                if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+                    payloadCache.clear();
+                    for (Notification notification : internalCache.values()) {
+                        notification.releaseDecodedData();
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public long getEstimatedSizeInBytes() {
+        synchronized (LOCK) {
+            return estimateSizeInBytes(internalCache.values());
+        }
+    }
+
+    public static long estimateSizeInBytes(Collection<Notification> notifications) {
+        long result = 0;
+        if (notifications != null) {
+            for (Notification notification : notifications) {
+                result += notification.getEstimatedSizeInBytes();
+            }
+        }
+        return result;
+    }
+
+    private void removeAll(List<Notification> notifications) {
+        if (!internalCache.isEmpty()) {
+            for (Notification notification : notifications) {
+                if (internalCache.remove(notification.getId()) != null) {
+                    snapshot = null;
                 }
             }
+            compactEvictionQueue();
+        }
+    }
+
+    private static void evictOverflow() {
+        while (internalCache.size() > maxSize) {
+            Notification evicted = pollLive();
+            EMSLogger.log(MobileEngageTopic.INBOX, "Evicted: %s", evicted);
+            internalCache.remove(evicted.getId());
+            snapshot = null;
+        }
+        compactEvictionQueue();
+    }
+
+    private static void evictExpired(long now) {
+        Notification next = peekLive();
+        while (next != null && getExpiresAt(next) <= now) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Expired: %s", next);
+            evictionQueue.poll();
+            internalCache.remove(next.getId());
+            snapshot = null;
+            next = peekLive();
+        }
+    }
+
+    private static Notification pollLive() {
+        Notification result = peekLive();
+        evictionQueue.poll();
+        return result;
+    }
+
+    private static Notification peekLive() {
+        Notification head = evictionQueue.peek();
+        while (head != null && internalCache.get(head.getId()) != head) {
+            evictionQueue.poll();
+            head = evictionQueue.peek();
+        }
+        return head;
+    }
+
+    private static void compactEvictionQueue() {
+        if (evictionQueue.size() > 2 * internalCache.size() + 16) {
+            evictionQueue.clear();
+            evictionQueue.addAll(internalCache.values());
+        }
+    }
+
+    private static List<Notification> createSnapshot(long now) {
+        evictExpired(now);
+
+        List<Notification> result = snapshot;
+        if (result == null) {
+            List<Notification> notifications = new ArrayList<>(internalCache.values());
+            Collections.reverse(notifications);
+            result = Collections.unmodifiableList(notifications);
+            Notification next = peekLive();
+            snapshotExpiresAt = next == null ? Long.MAX_VALUE : getExpiresAt(next);
+            snapshot = result;
         }
+        return result;
+    }
+
+    static long getExpiresAt(Notification notification) {
+        return notification.getReceivedAt() + notification.getExpirationTime() * 1000L;
+    }
+
+    private static int compareLong(long lhs, long rhs) {
+        return lhs < rhs ? -1 : (lhs == rhs ? 0 : 1);
     }
 }
@@ -0,0 +1,43 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class NotificationDataUtils {
+    private NotificationDataUtils() {
+    }
+
+    public static Map<String, String> convertFlatJsonObject(JSONObject jsonObject) {
+        Map<String, String> result = new HashMap<>();
+        if (jsonObject != null) {
+            try {
+                Iterator<String> keys = jsonObject.keys();
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    result.put(key, jsonObject.getString(key));
+                }
+            } catch (JSONException e) {
+            }
+        }
+        return result;
+    }
+
+    static Map<String, String> decodeCustomData(String rawCustomData) {
+        return convertFlatJsonObject(decodeRootParams(rawCustomData));
+    }
+
+    static JSONObject decodeRootParams(String rawRootParams) {
+        JSONObject result = new JSONObject();
+        if (rawRootParams != null) {
+            try {
+                result = new JSONObject(rawRootParams);
+            } catch (JSONException ignored) {
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,318 @@
+package com.emarsys.mobileengage.inbox.model;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteException;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.PushEnvelope;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_BODY;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_CUSTOM_DATA;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_DATA;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_EXPIRATION_TIME;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_ID;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_KEY;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_RECEIVED_AT;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_ROOT_PARAMS;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_SID;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_SOURCE;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_TITLE;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_TOKEN;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.COLUMN_VALUE;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.SOURCE_INBOX;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.SOURCE_PUSH;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.TABLE_META;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.TABLE_NOTIFICATION;
+import static com.emarsys.mobileengage.inbox.model.InboxDbHelper.TABLE_PAYLOAD;
+
+public class NotificationStore {
+
+    static final String META_BADGE_COUNT = "badge_count";
+    static final String META_CONTACT = "contact";
+    static final int MAX_PAYLOAD_COUNT = 100;
+    static final int MAX_PUSH_NOTIFICATION_COUNT = NotificationCache.DEFAULT_MAX_SIZE;
+
+    InboxDbHelper dbHelper;
+    private boolean closed;
+
+    public NotificationStore(Context context) {
+        Assert.notNull(context, "Context must not be null!");
+        this.dbHelper = new InboxDbHelper(context);
+    }
+
+    public synchronized void storePushNotification(Notification notification) {
+        EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", notification);
+
+        if (notification != null && notification.getId() != null) {
+            try {
+                SQLiteDatabase db = getWritableDatabase();
+                db.beginTransaction();
+                try {
+                    db.insertWithOnConflict(TABLE_NOTIFICATION, null, createContentValues(notification, SOURCE_PUSH), SQLiteDatabase.CONFLICT_IGNORE);
+                    db.delete(TABLE_NOTIFICATION, COLUMN_SOURCE + "=? AND (" +
+                                    COLUMN_RECEIVED_AT + " + " + COLUMN_EXPIRATION_TIME + " * 1000 <= " + System.currentTimeMillis() + " OR " +
+                                    COLUMN_ID + " NOT IN (SELECT " + COLUMN_ID + " FROM " + TABLE_NOTIFICATION + " WHERE " + COLUMN_SOURCE + "=?" +
+                                    " ORDER BY " + COLUMN_RECEIVED_AT + " DESC LIMIT " + MAX_PUSH_NOTIFICATION_COUNT + "))",
+                            new String[]{String.valueOf(SOURCE_PUSH), String.valueOf(SOURCE_PUSH)});
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            } catch (SQLiteException e) {
+                EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+            }
+        }
+    }
+
+    public synchronized void storePushPayload(String token, PushEnvelope envelope) {
+        Assert.notNull(token, "Token must not be null!");
+        Assert.notNull(envelope, "Envelope must not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Arguments: token %s, envelope %s", token, envelope);
+
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COLUMN_TOKEN, token);
+        contentValues.put(COLUMN_DATA, new JSONObject(envelope.getData()).toString());
+        contentValues.put(COLUMN_RECEIVED_AT, envelope.getReceivedAt());
+
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.insertWithOnConflict(TABLE_PAYLOAD, null, contentValues, SQLiteDatabase.CONFLICT_REPLACE);
+                db.delete(TABLE_PAYLOAD, COLUMN_TOKEN + " NOT IN (SELECT " + COLUMN_TOKEN + " FROM " + TABLE_PAYLOAD +
+                        " ORDER BY " + COLUMN_RECEIVED_AT + " DESC LIMIT " + MAX_PAYLOAD_COUNT + ")", null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        }
+    }
+
+    public synchronized PushEnvelope loadPushPayload(String token) {
+        Assert.notNull(token, "Token must not be null!");
+
+        PushEnvelope result = null;
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            cursor = db.query(TABLE_PAYLOAD, new String[]{COLUMN_DATA, COLUMN_RECEIVED_AT}, COLUMN_TOKEN + "=?", new String[]{token}, null, null, null);
+            if (cursor.moveToFirst()) {
+                result = PushEnvelope.fromStoredData(parseData(cursor.getString(0)), cursor.getLong(1));
+            }
+        } catch (SQLiteException | JSONException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return result;
+    }
+
+    public synchronized void storeInboxStatus(NotificationInboxStatus status) {
+        Assert.notNull(status, "Status must not be null!");
+        EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", status);
+
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_NOTIFICATION, COLUMN_SOURCE + "=?", new String[]{String.valueOf(SOURCE_INBOX)});
+                for (Notification notification : status.getNotifications()) {
+                    if (notification.getId() != null) {
+                        db.insertWithOnConflict(TABLE_NOTIFICATION, null, createContentValues(notification, SOURCE_INBOX), SQLiteDatabase.CONFLICT_REPLACE);
+                    }
+                }
+                putMeta(db, META_BADGE_COUNT, String.valueOf(status.getBadgeCount()));
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        }
+    }
+
+    public synchronized void storeBadgeCount(int badgeCount) {
+        EMSLogger.log(MobileEngageTopic.INBOX, "Argument: %s", badgeCount);
+
+        try {
+            putMeta(getWritableDatabase(), META_BADGE_COUNT, String.valueOf(badgeCount));
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        }
+    }
+
+    public synchronized List<Notification> loadPushNotifications() {
+        return queryNotifications(SOURCE_PUSH, COLUMN_RECEIVED_AT + " DESC");
+    }
+
+    public synchronized NotificationInboxStatus loadInboxStatus() {
+        List<Notification> notifications = queryNotifications(SOURCE_INBOX, "rowid ASC");
+
+        int badgeCount = 0;
+        String storedBadgeCount = getMeta(META_BADGE_COUNT);
+        if (storedBadgeCount != null) {
+            try {
+                badgeCount = Integer.parseInt(storedBadgeCount);
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        return new NotificationInboxStatus(notifications, badgeCount);
+    }
+
+    public synchronized String getContact() {
+        return getMeta(META_CONTACT);
+    }
+
+    public synchronized void setContact(String contact) {
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            if (contact == null) {
+                db.delete(TABLE_META, COLUMN_KEY + "=?", new String[]{META_CONTACT});
+            } else {
+                putMeta(db, META_CONTACT, contact);
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        }
+    }
+
+    public synchronized void clear() {
+        EMSLogger.log(MobileEngageTopic.INBOX, "Called");
+
+        try {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                db.delete(TABLE_NOTIFICATION, null, null);
+                db.delete(TABLE_META, null, null);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        }
+    }
+
+    public synchronized void close() {
+        EMSLogger.log(MobileEngageTopic.INBOX, "Called");
+
+        closed = true;
+        dbHelper.close();
+    }
+
+    private SQLiteDatabase getWritableDatabase() {
+        if (closed) {
+            throw new SQLiteException("NotificationStore is closed");
+        }
+        return dbHelper.getWritableDatabase();
+    }
+
+    private SQLiteDatabase getReadableDatabase() {
+        if (closed) {
+            throw new SQLiteException("NotificationStore is closed");
+        }
+        return dbHelper.getReadableDatabase();
+    }
+
+    private List<Notification> queryNotifications(int source, String orderBy) {
+        List<Notification> result = new ArrayList<>();
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            cursor = db.query(TABLE_NOTIFICATION, null, COLUMN_SOURCE + "=?", new String[]{String.valueOf(source)}, null, null, orderBy);
+            while (cursor.moveToNext()) {
+                result.add(readNotification(cursor));
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return result;
+    }
+
+    private String getMeta(String key) {
+        String result = null;
+        Cursor cursor = null;
+        try {
+            SQLiteDatabase db = getReadableDatabase();
+            cursor = db.query(TABLE_META, new String[]{COLUMN_VALUE}, COLUMN_KEY + "=?", new String[]{key}, null, null, null);
+            if (cursor.moveToFirst()) {
+                result = cursor.getString(0);
+            }
+        } catch (SQLiteException e) {
+            EMSLogger.log(MobileEngageTopic.INBOX, "Exception: %s", e);
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        return result;
+    }
+
+    private void putMeta(SQLiteDatabase db, String key, String value) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COLUMN_KEY, key);
+        contentValues.put(COLUMN_VALUE, value);
+        db.insertWithOnConflict(TABLE_META, null, contentValues, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    private Map<String, String> parseData(String rawData) throws JSONException {
+        JSONObject json = new JSONObject(rawData);
+        Map<String, String> result = new HashMap<>();
+        Iterator<String> keys = json.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            result.put(key, json.getString(key));
+        }
+        return result;
+    }
+
+    private ContentValues createContentValues(Notification notification, int source) {
+        ContentValues contentValues = new ContentValues();
+        contentValues.put(COLUMN_ID, notification.getId());
+        contentValues.put(COLUMN_SID, notification.getSid());
+        contentValues.put(COLUMN_TITLE, notification.getTitle());
+        contentValues.put(COLUMN_BODY, notification.getBody());
+        contentValues.put(COLUMN_CUSTOM_DATA, notification.getRawCustomData());
+        contentValues.put(COLUMN_ROOT_PARAMS, notification.getRawRootParams());
+        contentValues.put(COLUMN_EXPIRATION_TIME, notification.getExpirationTime());
+        contentValues.put(COLUMN_RECEIVED_AT, notification.getReceivedAt());
+        contentValues.put(COLUMN_SOURCE, source);
+        return contentValues;
+    }
+
+    private Notification readNotification(Cursor cursor) {
+        return Notification.fromRawData(
+                cursor.getString(cursor.getColumnIndex(COLUMN_ID)),
+                cursor.getString(cursor.getColumnIndex(COLUMN_SID)),
+                cursor.getString(cursor.getColumnIndex(COLUMN_TITLE)),
+                cursor.getString(cursor.getColumnIndex(COLUMN_BODY)),
+                cursor.getString(cursor.getColumnIndex(COLUMN_CUSTOM_DATA)),
+                cursor.getString(cursor.getColumnIndex(COLUMN_ROOT_PARAMS)),
+                cursor.getInt(cursor.getColumnIndex(COLUMN_EXPIRATION_TIME)),
+                cursor.getLong(cursor.getColumnIndex(COLUMN_RECEIVED_AT)));
+    }
+}
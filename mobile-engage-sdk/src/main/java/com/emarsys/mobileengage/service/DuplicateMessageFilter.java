@@ -0,0 +1,202 @@
+package com.emarsys.mobileengage.service;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+class DuplicateMessageFilter {
+
+    static final String FILE_NAME = "mobile_engage_push_filter";
+    static final int DEFAULT_CAPACITY = 1000;
+
+    private static final int FORMAT_VERSION = 1;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    final File file;
+    final int capacity;
+    final double falsePositiveRate;
+    final int bitCount;
+    final int hashCount;
+
+    long[] current;
+    long[] previous;
+    int currentCount;
+    boolean loaded;
+
+    DuplicateMessageFilter(File file, int capacity, double falsePositiveRate) {
+        Assert.notNull(file, "File must not be null!");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive!");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("FalsePositiveRate must be between 0 and 1 exclusive!");
+        }
+        this.file = file;
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+
+        double ln2 = Math.log(2);
+        double generationRate = falsePositiveRate / 2;
+        int bits = (int) Math.ceil(-capacity * Math.log(generationRate) / (ln2 * ln2));
+        this.bitCount = Math.max(64, (bits + 63) & ~63);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * ln2));
+
+        this.current = new long[bitCount / 64];
+        this.previous = new long[bitCount / 64];
+    }
+
+    synchronized boolean isDuplicate(String messageId) {
+        Assert.notNull(messageId, "MessageId must not be null!");
+        ensureLoaded();
+
+        long hash = hash(messageId);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+
+        boolean result = contains(current, h1, h2) || contains(previous, h1, h2);
+        if (!result) {
+            if (currentCount >= capacity) {
+                rotate();
+            }
+            add(current, h1, h2);
+            currentCount++;
+            persist();
+        }
+        return result;
+    }
+
+    synchronized void clear() {
+        current = new long[bitCount / 64];
+        previous = new long[bitCount / 64];
+        currentCount = 0;
+        loaded = true;
+        if (file.exists() && !file.delete()) {
+            EMSLogger.log(MobileEngageTopic.PUSH, "Could not delete duplicate filter file");
+        }
+    }
+
+    private void rotate() {
+        long[] recycled = previous;
+        previous = current;
+        for (int i = 0; i < recycled.length; i++) {
+            recycled[i] = 0;
+        }
+        current = recycled;
+        currentCount = 0;
+    }
+
+    private boolean contains(long[] bits, int h1, int h2) {
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(h1, h2, i);
+            if ((bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void add(long[] bits, int h1, int h2) {
+        for (int i = 0; i < hashCount; i++) {
+            int index = index(h1, h2, i);
+            bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    private int index(int h1, int h2, int i) {
+        return ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+    }
+
+    static long hash(String value) {
+        long result = FNV_OFFSET_BASIS;
+        for (int i = 0; i < value.length(); i++) {
+            result ^= value.charAt(i);
+            result *= FNV_PRIME;
+        }
+        return result;
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            loaded = true;
+            if (file.exists()) {
+                load();
+            }
+        }
+    }
+
+    private void load() {
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() == FORMAT_VERSION && input.readInt() == bitCount && input.readInt() == hashCount) {
+                int count = input.readInt();
+                long[] loadedCurrent = readBits(input);
+                long[] loadedPrevious = readBits(input);
+                current = loadedCurrent;
+                previous = loadedPrevious;
+                currentCount = count;
+            } else {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Duplicate filter parameters changed, starting empty");
+            }
+        } catch (IOException e) {
+            EMSLogger.log(MobileEngageTopic.PUSH, "Exception: %s", e);
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    private long[] readBits(DataInputStream input) throws IOException {
+        long[] result = new long[bitCount / 64];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = input.readLong();
+        }
+        return result;
+    }
+
+    private void persist() {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream output = null;
+        try {
+            output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(bitCount);
+            output.writeInt(hashCount);
+            output.writeInt(currentCount);
+            for (long word : current) {
+                output.writeLong(word);
+            }
+            for (long word : previous) {
+                output.writeLong(word);
+            }
+            output.close();
+            output = null;
+            if (!temp.renameTo(file)) {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Could not persist duplicate filter");
+            }
+        } catch (IOException e) {
+            EMSLogger.log(MobileEngageTopic.PUSH, "Exception: %s", e);
+        } finally {
+            closeQuietly(output);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+}
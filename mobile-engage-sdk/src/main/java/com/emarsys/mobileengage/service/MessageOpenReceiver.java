@@ -0,0 +1,35 @@
+package com.emarsys.mobileengage.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.AsyncTask;
+
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.MobileEngage;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+public class MessageOpenReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        EMSLogger.log(MobileEngageTopic.PUSH, "Notification was clicked, no launch activity to open");
+
+        trackOpen(new Intent(intent), goAsync());
+    }
+
+    void trackOpen(final Intent openIntent, final PendingResult pendingResult) {
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    MobileEngage.trackMessageOpen(openIntent);
+                } finally {
+                    if (pendingResult != null) {
+                        pendingResult.finish();
+                    }
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,117 @@
+package com.emarsys.mobileengage.service;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.Window;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.MobileEngage;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+/**
+ * Tracks opens from the launch intent of a notification. Launch activities that receive it in
+ * {@code onNewIntent} must call {@code setIntent} so the open is picked up when they resume.
+ */
+public class MessageOpenTracker implements Application.ActivityLifecycleCallbacks {
+
+    public static final String EXTRA_MESSAGE_OPEN = "ems_message_open";
+
+    Handler coreSdkHandler;
+
+    volatile long lastSdkOverheadMicros = -1;
+    volatile long lastTimeToFirstFrameMillis = -1;
+
+    public MessageOpenTracker(Handler coreSdkHandler) {
+        Assert.notNull(coreSdkHandler, "CoreSdkHandler must not be null!");
+        this.coreSdkHandler = coreSdkHandler;
+    }
+
+    public long getLastSdkOverheadMicros() {
+        return lastSdkOverheadMicros;
+    }
+
+    public long getLastTimeToFirstFrameMillis() {
+        return lastTimeToFirstFrameMillis;
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        Intent intent = activity.getIntent();
+        if (savedInstanceState != null && intent != null) {
+            intent.removeExtra(EXTRA_MESSAGE_OPEN);
+        } else {
+            handleIntent(activity);
+        }
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+        handleIntent(activity);
+    }
+
+    void handleIntent(Activity activity) {
+        long start = System.nanoTime();
+        long openedAt = SystemClock.uptimeMillis();
+
+        Intent intent = activity.getIntent();
+        if (intent != null && intent.getBooleanExtra(EXTRA_MESSAGE_OPEN, false)) {
+            intent.removeExtra(EXTRA_MESSAGE_OPEN);
+
+            if ((intent.getFlags() & Intent.FLAG_ACTIVITY_LAUNCHED_FROM_HISTORY) == 0) {
+                final Intent openIntent = new Intent(intent);
+                coreSdkHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        MobileEngage.trackMessageOpen(openIntent);
+                    }
+                });
+
+                lastSdkOverheadMicros = (System.nanoTime() - start) / 1000;
+                measureFirstFrame(activity, openedAt);
+            }
+        }
+    }
+
+    private void measureFirstFrame(Activity activity, final long openedAt) {
+        Window window = activity.getWindow();
+        if (window != null) {
+            final View decorView = window.getDecorView();
+            decorView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    decorView.getViewTreeObserver().removeOnPreDrawListener(this);
+                    lastTimeToFirstFrameMillis = SystemClock.uptimeMillis() - openedAt;
+                    EMSLogger.log(MobileEngageTopic.PUSH, "Message open: sdk overhead %d us, time to first frame %d ms", lastSdkOverheadMicros, lastTimeToFirstFrameMillis);
+                    return true;
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+    }
+}
@@ -10,60 +10,106 @@ import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.graphics.Bitmap;
 import android.os.Build;
-import android.os.Bundle;
 import android.support.v4.app.NotificationCompat;
 
 import com.emarsys.core.util.Assert;
-import com.emarsys.core.util.ImageUtils;
+import com.emarsys.mobileengage.PushEnvelope;
 import com.emarsys.mobileengage.config.OreoConfig;
 import com.emarsys.mobileengage.inbox.InboxParseUtils;
 import com.emarsys.mobileengage.inbox.model.NotificationCache;
 
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 class MessagingServiceUtils {
 
     public static final String MESSAGE_FILTER = "ems_msg";
     public static final String METADATA_SMALL_NOTIFICATION_ICON_KEY = "com.emarsys.mobileengage.small_notification_icon";
 
+    static final String NOTIFICATION_TAG_PREFIX = "ems_";
+    static final int MAX_SUMMARY_LINES = 5;
+
     static NotificationCache notificationCache = new NotificationCache();
 
     static boolean isMobileEngageMessage(Map<String, String> remoteMessageData) {
         return remoteMessageData != null && remoteMessageData.size() > 0 && remoteMessageData.containsKey(MESSAGE_FILTER);
     }
 
-    static Notification createNotification(Context context, Map<String, String> remoteMessageData, OreoConfig oreoConfig) {
-        int resourceId = getSmallIconResourceId(context);
+    static Notification createNotification(Context context, PushEnvelope envelope, OreoConfig oreoConfig, Bitmap image, String groupKey, String openToken) {
+        NotificationEnvironment environment = NotificationEnvironment.get(context);
 
-        String title = getTitle(remoteMessageData, context);
-        String body = remoteMessageData.get("body");
-        Bitmap image = ImageUtils.loadOptimizedBitmap(context, remoteMessageData.get("image_url"));
-        String channelId = getChannelId(remoteMessageData, oreoConfig);
+        String title = getTitle(envelope, context);
+        String body = envelope.getBody();
+        String channelId = getChannelId(envelope, oreoConfig);
 
         if (OreoConfig.DEFAULT_CHANNEL_ID.equals(channelId)) {
-            createDefaultChannel(context, oreoConfig);
+            NotificationEnvironment.ensureDefaultChannel(context, oreoConfig);
         }
 
-        PendingIntent resultPendingIntent = createPendingIntent(context, remoteMessageData);
+        PendingIntent resultPendingIntent = createPendingIntent(context, environment, openToken);
 
+        // the image is only added when re-posting, which must not alert again
         NotificationCompat.Builder builder = new NotificationCompat.Builder(context, channelId)
                 .setContentTitle(title)
                 .setContentText(body)
-                .setSmallIcon(resourceId)
+                .setSmallIcon(environment.smallIconResourceId)
                 .setAutoCancel(true)
-                .setContentIntent(resultPendingIntent);
+                .setOnlyAlertOnce(image != null)
+                .setContentIntent(resultPendingIntent)
+                .setGroup(groupKey);
 
         styleNotification(builder, title, body, image);
 
         return builder.build();
     }
 
-    private static PendingIntent createPendingIntent(Context context, Map<String, String> remoteMessageData) {
-        Intent intent = createIntent(remoteMessageData, context);
-        return PendingIntent.getService(context, 0, intent, 0);
+    static Notification createSummaryNotification(Context context, PushEnvelope envelope, OreoConfig oreoConfig, List<String> titles) {
+        NotificationEnvironment environment = NotificationEnvironment.get(context);
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        for (int i = 0; i < Math.min(titles.size(), MAX_SUMMARY_LINES); i++) {
+            style.addLine(titles.get(i));
+        }
+
+        return new NotificationCompat.Builder(context, getChannelId(envelope, oreoConfig))
+                .setContentTitle(titles.isEmpty() ? environment.applicationLabel : titles.get(0))
+                .setSmallIcon(environment.smallIconResourceId)
+                .setNumber(titles.size())
+                .setStyle(style)
+                .setAutoCancel(true)
+                .setOnlyAlertOnce(true)
+                .setGroup(NotificationGrouper.GROUP_KEY)
+                .setGroupSummary(true)
+                .setGroupAlertBehavior(NotificationCompat.GROUP_ALERT_CHILDREN)
+                .build();
+    }
+
+    static String getNotificationTag(PushEnvelope envelope) {
+        String key = envelope.getCollapseId();
+        if (key == null) {
+            key = envelope.getId();
+        }
+        if (key == null) {
+            key = UUID.randomUUID().toString();
+        }
+        return NOTIFICATION_TAG_PREFIX + key;
+    }
+
+    static int getNotificationId(String tag) {
+        return tag.hashCode();
+    }
+
+    private static PendingIntent createPendingIntent(Context context, NotificationEnvironment environment, String openToken) {
+        PendingIntent result;
+        int requestCode = getNotificationId(openToken);
+        Intent launchIntent = environment.createLaunchIntent();
+        if (launchIntent != null) {
+            result = PendingIntent.getActivity(context, requestCode, createLaunchIntent(openToken, launchIntent), PendingIntent.FLAG_UPDATE_CURRENT);
+        } else {
+            result = PendingIntent.getBroadcast(context, requestCode, createIntent(openToken, context), PendingIntent.FLAG_UPDATE_CURRENT);
+        }
+        return result;
     }
 
     private static void styleNotification(NotificationCompat.Builder builder, String title, String body, Bitmap bitmap) {
@@ -83,16 +129,16 @@ class MessagingServiceUtils {
         }
     }
 
-    static String getTitle(Map<String, String> remoteMessageData, Context context) {
-        String title = remoteMessageData.get("title");
+    static String getTitle(PushEnvelope envelope, Context context) {
+        String title = envelope.getTitle();
         if (title == null || title.isEmpty()) {
-            title = getDefaultTitle(remoteMessageData, context);
+            title = getDefaultTitle(envelope, context);
         }
         return title;
     }
 
-    static String getChannelId(Map<String, String> remoteMessageData, OreoConfig oreoConfig) {
-        String result = remoteMessageData.get("channel_id");
+    static String getChannelId(PushEnvelope envelope, OreoConfig oreoConfig) {
+        String result = envelope.getChannelId();
         if (result == null && oreoConfig.isDefaultChannelEnabled()) {
             result = OreoConfig.DEFAULT_CHANNEL_ID;
         }
@@ -108,20 +154,12 @@ class MessagingServiceUtils {
         }
     }
 
-    private static String getDefaultTitle(Map<String, String> remoteMessageData, Context context) {
+    private static String getDefaultTitle(PushEnvelope envelope, Context context) {
         String title = "";
         if (Build.VERSION.SDK_INT < 23) {
-            ApplicationInfo applicationInfo = context.getApplicationInfo();
-            int stringId = applicationInfo.labelRes;
-            title = stringId == 0 ? applicationInfo.nonLocalizedLabel.toString() : context.getString(stringId);
-
-            try {
-                String u = remoteMessageData.get("u");
-                if (u != null) {
-                    JSONObject customData = new JSONObject(u);
-                    title = customData.getString("ems_default_title");
-                }
-            } catch (JSONException ignored) {
+            title = envelope.getDefaultTitle();
+            if (title == null) {
+                title = NotificationEnvironment.get(context).applicationLabel;
             }
         }
         return title;
@@ -143,19 +181,26 @@ class MessagingServiceUtils {
         return resourceId;
     }
 
-    static Intent createIntent(Map<String, String> remoteMessageData, Context context) {
-        Intent intent = new Intent(context, TrackMessageOpenService.class);
-        Bundle bundle = new Bundle();
-        for (Map.Entry<String, String> entry : remoteMessageData.entrySet()) {
-            bundle.putString(entry.getKey(), entry.getValue());
-        }
-        intent.putExtra("payload", bundle);
+    static Intent createLaunchIntent(String openToken, Intent launchIntent) {
+        launchIntent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK);
+        launchIntent.putExtra(PushEnvelope.EXTRA_OPEN_TOKEN, openToken);
+        launchIntent.putExtra(MessageOpenTracker.EXTRA_MESSAGE_OPEN, true);
+        return launchIntent;
+    }
+
+    static Intent createIntent(String openToken, Context context) {
+        Intent intent = new Intent(context, MessageOpenReceiver.class);
+        intent.putExtra(PushEnvelope.EXTRA_OPEN_TOKEN, openToken);
         return intent;
     }
 
-    static void cacheNotification(Map<String, String> remoteMessageData) {
-        Assert.notNull(remoteMessageData, "RemoteMessageData must not be null!");
-        notificationCache.cache(InboxParseUtils.parseNotificationFromPushMessage(remoteMessageData));
+    static void cacheNotification(PushEnvelope envelope) {
+        Assert.notNull(envelope, "Envelope must not be null!");
+        notificationCache.cache(InboxParseUtils.parseNotificationFromPushEnvelope(envelope));
+    }
+
+    static void cachePayload(String openToken, PushEnvelope envelope) {
+        notificationCache.cachePayload(openToken, envelope);
     }
 
 }
@@ -3,17 +3,25 @@ package com.emarsys.mobileengage.service;
 import android.app.Notification;
 import android.app.NotificationManager;
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
 
 import com.emarsys.core.util.log.EMSLogger;
 import com.emarsys.mobileengage.MobileEngage;
+import com.emarsys.mobileengage.PushEnvelope;
+import com.emarsys.mobileengage.config.MobileEngageConfig;
 import com.emarsys.mobileengage.util.log.MobileEngageTopic;
 import com.google.firebase.messaging.FirebaseMessagingService;
 import com.google.firebase.messaging.RemoteMessage;
 
+import java.io.File;
 import java.util.Map;
 
 public class MobileEngageMessagingService extends FirebaseMessagingService {
 
+    static NotificationGrouper grouper = new NotificationGrouper();
+    static DuplicateMessageFilter duplicateFilter;
+
     @Override
     public void onMessageReceived(RemoteMessage remoteMessage) {
         super.onMessageReceived(remoteMessage);
@@ -26,15 +34,81 @@ public class MobileEngageMessagingService extends FirebaseMessagingService {
 
             EMSLogger.log(MobileEngageTopic.PUSH, "RemoteMessage is ME message");
 
-            MessagingServiceUtils.cacheNotification(remoteData);
+            String messageId = remoteMessage.getMessageId();
+            if (messageId == null) {
+                messageId = remoteData.get("id");
+            }
+            if (messageId != null && getDuplicateFilter().isDuplicate(messageId)) {
+                EMSLogger.log(MobileEngageTopic.PUSH, "Duplicate remote message dropped: %s", messageId);
+                return;
+            }
+
+            final PushEnvelope envelope = PushEnvelope.fromRemoteMessageData(remoteData);
+
+            if (envelope.isSilent()) {
+                EMSLogger.log(MobileEngageTopic.PUSH, "RemoteMessage is silent, syncing inbox: %s", envelope.getSyncAction());
+                MobileEngage.Inbox.sync(envelope);
+                return;
+            }
+
+            MessagingServiceUtils.cacheNotification(envelope);
+
+            if (MobileEngage.getConfig().isInboxPrefetchEnabled() && envelope.isInbox()) {
+                MobileEngage.Inbox.prefetchNotifications();
+            }
+
+            final Context context = getApplicationContext();
+            final MobileEngageConfig config = MobileEngage.getConfig();
+            final NotificationManager notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+            final String notificationTag = MessagingServiceUtils.getNotificationTag(envelope);
+            final int notificationId = MessagingServiceUtils.getNotificationId(notificationTag);
+
+            MessagingServiceUtils.cachePayload(notificationTag, envelope);
 
-            Notification notification = MessagingServiceUtils.createNotification(
-                    getApplicationContext(),
-                    remoteData,
-                    MobileEngage.getConfig().getOreoConfig());
+            String imageUrl = envelope.getImageUrl();
+            NotificationImageLoader imageLoader = imageUrl == null ? null : new NotificationImageLoader(context, imageUrl, config.getImageLoadingTimeout());
+
+            boolean grouped = grouper.onNotificationPosted(
+                    notificationTag,
+                    MessagingServiceUtils.getTitle(envelope, context),
+                    config.getNotificationGroupingThreshold(),
+                    SystemClock.elapsedRealtime());
+            final String groupKey = grouped ? NotificationGrouper.GROUP_KEY : null;
+
+            Notification notification = MessagingServiceUtils.createNotification(context, envelope, config.getOreoConfig(), null, groupKey, notificationTag);
+            notificationManager.notify(notificationTag, notificationId, notification);
+
+            if (grouped) {
+                notificationManager.notify(
+                        NotificationGrouper.SUMMARY_TAG,
+                        NotificationGrouper.SUMMARY_ID,
+                        MessagingServiceUtils.createSummaryNotification(context, envelope, config.getOreoConfig(), grouper.getGroupedTitles()));
+            }
+
+            if (imageLoader != null) {
+                imageLoader.setListener(new NotificationImageLoader.Listener() {
+                    @Override
+                    public void onImageLoaded(Bitmap image) {
+                        notificationManager.notify(notificationTag, notificationId, MessagingServiceUtils.createNotification(context, envelope, config.getOreoConfig(), image, groupKey, notificationTag));
+                    }
+                });
+            }
+        }
+    }
 
-            ((NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE))
-                    .notify((int) System.currentTimeMillis(), notification);
+    DuplicateMessageFilter getDuplicateFilter() {
+        MobileEngageConfig config = MobileEngage.getConfig();
+        double falsePositiveRate = config == null
+                ? MobileEngageConfig.DEFAULT_DUPLICATE_FILTER_FALSE_POSITIVE_RATE
+                : config.getDuplicateFilterFalsePositiveRate();
+        synchronized (MobileEngageMessagingService.class) {
+            if (duplicateFilter == null || duplicateFilter.falsePositiveRate != falsePositiveRate) {
+                duplicateFilter = new DuplicateMessageFilter(
+                        new File(getApplicationContext().getFilesDir(), DuplicateMessageFilter.FILE_NAME),
+                        DuplicateMessageFilter.DEFAULT_CAPACITY,
+                        falsePositiveRate);
+            }
+            return duplicateFilter;
         }
     }
 }
@@ -0,0 +1,97 @@
+package com.emarsys.mobileengage.service;
+
+import android.content.ComponentCallbacks;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.res.Configuration;
+import android.os.Build;
+
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.config.OreoConfig;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+class NotificationEnvironment {
+
+    static final AtomicReference<NotificationEnvironment> current = new AtomicReference<>();
+    static final AtomicBoolean callbacksRegistered = new AtomicBoolean(false);
+
+    final String packageName;
+    final int smallIconResourceId;
+    final String applicationLabel;
+    final Intent launchIntent;
+    final OreoConfig defaultChannelConfig;
+
+    NotificationEnvironment(String packageName, int smallIconResourceId, String applicationLabel, Intent launchIntent, OreoConfig defaultChannelConfig) {
+        this.packageName = packageName;
+        this.smallIconResourceId = smallIconResourceId;
+        this.applicationLabel = applicationLabel;
+        this.launchIntent = launchIntent;
+        this.defaultChannelConfig = defaultChannelConfig;
+    }
+
+    Intent createLaunchIntent() {
+        return launchIntent == null ? null : new Intent(launchIntent);
+    }
+
+    static NotificationEnvironment get(Context context) {
+        NotificationEnvironment result = current.get();
+        if (result == null || !result.packageName.equals(context.getPackageName())) {
+            registerCallbacks(context);
+            result = new NotificationEnvironment(
+                    context.getPackageName(),
+                    MessagingServiceUtils.getSmallIconResourceId(context),
+                    resolveApplicationLabel(context),
+                    context.getPackageManager().getLaunchIntentForPackage(context.getPackageName()),
+                    null);
+            current.set(result);
+        }
+        return result;
+    }
+
+    static void ensureDefaultChannel(Context context, OreoConfig oreoConfig) {
+        NotificationEnvironment environment = get(context);
+        if (!oreoConfig.equals(environment.defaultChannelConfig)) {
+            MessagingServiceUtils.createDefaultChannel(context, oreoConfig);
+            current.compareAndSet(environment, new NotificationEnvironment(
+                    environment.packageName,
+                    environment.smallIconResourceId,
+                    environment.applicationLabel,
+                    environment.launchIntent,
+                    oreoConfig));
+        }
+    }
+
+    static void invalidate() {
+        EMSLogger.log(MobileEngageTopic.PUSH, "Notification environment invalidated");
+        current.set(null);
+    }
+
+    private static void registerCallbacks(Context context) {
+        if (callbacksRegistered.compareAndSet(false, true)) {
+            context.getApplicationContext().registerComponentCallbacks(new ComponentCallbacks() {
+                @Override
+                public void onConfigurationChanged(Configuration newConfig) {
+                    invalidate();
+                }
+
+                @Override
+                public void onLowMemory() {
+                }
+            });
+        }
+    }
+
+    private static String resolveApplicationLabel(Context context) {
+        String result = "";
+        if (Build.VERSION.SDK_INT < 23) {
+            ApplicationInfo applicationInfo = context.getApplicationInfo();
+            int stringId = applicationInfo.labelRes;
+            result = stringId == 0 ? applicationInfo.nonLocalizedLabel.toString() : context.getString(stringId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,60 @@
+package com.emarsys.mobileengage.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class NotificationGrouper {
+
+    static final String GROUP_KEY = "com.emarsys.mobileengage.NOTIFICATION_GROUP";
+    static final String SUMMARY_TAG = "ems_summary";
+    static final int SUMMARY_ID = 0;
+    static final long BURST_WINDOW = 60 * 1000;
+
+    private final Map<String, Entry> recentNotifications = new LinkedHashMap<>();
+
+    synchronized boolean onNotificationPosted(String tag, String title, int threshold, long now) {
+        evictOutdated(now);
+
+        Entry previous = recentNotifications.remove(tag);
+        boolean grouped = threshold > 0 && (previous != null && previous.grouped || recentNotifications.size() + 1 >= threshold);
+        recentNotifications.put(tag, new Entry(title, now, grouped));
+
+        return grouped;
+    }
+
+    synchronized List<String> getGroupedTitles() {
+        List<String> result = new ArrayList<>(recentNotifications.size());
+        for (Entry entry : recentNotifications.values()) {
+            if (entry.grouped) {
+                result.add(0, entry.title);
+            }
+        }
+        return result;
+    }
+
+    synchronized void clear() {
+        recentNotifications.clear();
+    }
+
+    private void evictOutdated(long now) {
+        Iterator<Entry> iterator = recentNotifications.values().iterator();
+        while (iterator.hasNext() && now - iterator.next().postedAt > BURST_WINDOW) {
+            iterator.remove();
+        }
+    }
+
+    private static class Entry {
+        final String title;
+        final long postedAt;
+        final boolean grouped;
+
+        Entry(String title, long postedAt, boolean grouped) {
+            this.title = title;
+            this.postedAt = postedAt;
+            this.grouped = grouped;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.emarsys.mobileengage.service;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.image.ImageCache;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+class NotificationImageLoader {
+
+    interface Listener {
+        void onImageLoaded(Bitmap image);
+    }
+
+    static ScheduledExecutorService deadlineExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "MobileEngageImageDeadline");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final long deadline;
+    final Future<Bitmap> fetch;
+    private Listener listener;
+    private Bitmap image;
+    private boolean finished;
+
+    NotificationImageLoader(Context context, String imageUrl, long timeoutMillis) {
+        Assert.notNull(context, "Context must not be null!");
+        Assert.notNull(imageUrl, "ImageUrl must not be null!");
+
+        this.deadline = SystemClock.elapsedRealtime() + timeoutMillis;
+        this.fetch = ImageCache.getInstance(context).loadBitmapAsync(imageUrl, new ImageCache.Callback() {
+            @Override
+            public void onBitmapLoaded(String url, Bitmap bitmap) {
+                onLoaded(bitmap);
+            }
+        });
+        deadlineExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                onDeadline();
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void setListener(Listener listener) {
+        Assert.notNull(listener, "Listener must not be null!");
+        Bitmap loaded;
+        synchronized (this) {
+            this.listener = listener;
+            loaded = finished ? image : null;
+        }
+        if (loaded != null) {
+            listener.onImageLoaded(loaded);
+        }
+    }
+
+    private void onDeadline() {
+        synchronized (this) {
+            if (finished) {
+                return;
+            }
+            finished = true;
+        }
+        EMSLogger.log(MobileEngageTopic.PUSH, "Image loading deadline exceeded");
+        fetch.cancel(true);
+    }
+
+    private void onLoaded(Bitmap bitmap) {
+        Listener target;
+        synchronized (this) {
+            boolean late = finished || SystemClock.elapsedRealtime() > deadline;
+            finished = true;
+            if (late) {
+                return;
+            }
+            image = bitmap;
+            target = listener;
+        }
+        if (target != null && bitmap != null) {
+            target.onImageLoaded(bitmap);
+        }
+    }
+}
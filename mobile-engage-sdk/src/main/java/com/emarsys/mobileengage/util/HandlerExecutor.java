@@ -0,0 +1,27 @@
+package com.emarsys.mobileengage.util;
+
+import android.os.Handler;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.concurrent.Executor;
+
+public class HandlerExecutor implements Executor {
+
+    final Handler handler;
+
+    public HandlerExecutor(Handler handler) {
+        Assert.notNull(handler, "Handler must not be null!");
+        this.handler = handler;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Assert.notNull(command, "Command must not be null!");
+        if (!handler.post(command)) {
+            EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Handler is shutting down, dropping %s", command);
+        }
+    }
+}
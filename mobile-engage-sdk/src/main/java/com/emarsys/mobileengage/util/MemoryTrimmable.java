@@ -0,0 +1,8 @@
+package com.emarsys.mobileengage.util;
+
+public interface MemoryTrimmable {
+
+    void trimMemory(int level);
+
+    long getEstimatedSizeInBytes();
+}
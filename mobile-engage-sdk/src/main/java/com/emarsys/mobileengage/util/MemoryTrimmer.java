@@ -0,0 +1,48 @@
+package com.emarsys.mobileengage.util;
+
+import android.content.ComponentCallbacks2;
+import android.content.res.Configuration;
+
+import com.emarsys.core.util.Assert;
+import com.emarsys.core.util.log.EMSLogger;
+import com.emarsys.mobileengage.util.log.MobileEngageTopic;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class MemoryTrimmer implements ComponentCallbacks2 {
+
+    private final Map<String, MemoryTrimmable> trimmables = new LinkedHashMap<>();
+
+    public synchronized void register(String name, MemoryTrimmable trimmable) {
+        Assert.notNull(name, "Name must not be null!");
+        Assert.notNull(trimmable, "Trimmable must not be null!");
+        trimmables.put(name, trimmable);
+    }
+
+    public synchronized Map<String, Long> getEstimatedSizesInBytes() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, MemoryTrimmable> entry : trimmables.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getEstimatedSizeInBytes());
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void onTrimMemory(int level) {
+        EMSLogger.log(MobileEngageTopic.MOBILE_ENGAGE, "Argument: %s", level);
+
+        for (MemoryTrimmable trimmable : trimmables.values()) {
+            trimmable.trimMemory(level);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        onTrimMemory(TRIM_MEMORY_COMPLETE);
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+}
@@ -1,10 +1,10 @@
 package com.emarsys.mobileengage.util;
 
-import com.emarsys.core.DeviceInfo;
 import com.emarsys.core.util.Assert;
 import com.emarsys.core.util.HeaderUtils;
 import com.emarsys.mobileengage.AppLoginParameters;
 import com.emarsys.mobileengage.BuildConfig;
+import com.emarsys.mobileengage.SessionState;
 import com.emarsys.mobileengage.config.MobileEngageConfig;
 
 import java.util.Collections;
@@ -16,23 +16,28 @@ public class RequestUtils {
     public static final String ENDPOINT_LOGIN = ENDPOINT_BASE + "users/login";
     public static final String ENDPOINT_LOGOUT = ENDPOINT_BASE + "users/logout";
 
-    private static DeviceInfo deviceInfo;
-
     public static String createEventUrl(String eventName) {
         Assert.notNull(eventName, "EventName must not be null!");
         return ENDPOINT_BASE + "events/" + eventName;
     }
 
+    private static volatile DefaultHeaders defaultHeaders;
+
     public static Map<String, String> createDefaultHeaders(MobileEngageConfig config) {
         Assert.notNull(config, "Config must not be null!");
 
-        HashMap<String, String> defaultHeaders = new HashMap<>();
-        defaultHeaders.put("Authorization", HeaderUtils.createBasicAuth(config.getApplicationCode(), config.getApplicationPassword()));
-        defaultHeaders.put("Content-Type", "application/json");
-        defaultHeaders.put("X-MOBILEENGAGE-SDK-VERSION", BuildConfig.VERSION_NAME);
-        defaultHeaders.put("X-MOBILEENGAGE-SDK-MODE", config.isDebugMode() ? "debug" : "production");
+        DefaultHeaders cached = defaultHeaders;
+        if (cached == null || cached.config != config) {
+            HashMap<String, String> headers = new HashMap<>();
+            headers.put("Authorization", HeaderUtils.createBasicAuth(config.getApplicationCode(), config.getApplicationPassword()));
+            headers.put("Content-Type", "application/json");
+            headers.put("X-MOBILEENGAGE-SDK-VERSION", BuildConfig.VERSION_NAME);
+            headers.put("X-MOBILEENGAGE-SDK-MODE", config.isDebugMode() ? "debug" : "production");
 
-        return defaultHeaders;
+            cached = new DefaultHeaders(config, Collections.unmodifiableMap(headers));
+            defaultHeaders = cached;
+        }
+        return cached.headers;
     }
 
     @SuppressWarnings("unchecked")
@@ -44,12 +49,9 @@ public class RequestUtils {
     public static Map<String, Object> createBasePayload(Map<String, Object> additionalPayload, MobileEngageConfig config, AppLoginParameters parameters) {
         Assert.notNull(config, "Config must not be null!");
         Assert.notNull(additionalPayload, "AdditionalPayload must not be null!");
-        if (deviceInfo == null) {
-            deviceInfo = new DeviceInfo(config.getApplication());
-        }
         Map<String, Object> payload = new HashMap<>();
         payload.put("application_id", config.getApplicationCode());
-        payload.put("hardware_id", deviceInfo.getHwid());
+        payload.put("hardware_id", SessionState.obtainDeviceInfo(config.getApplication()).getHwid());
 
         if (parameters != null && parameters.hasCredentials()) {
             payload.put("contact_field_id", parameters.getContactFieldId());
@@ -62,4 +64,14 @@ public class RequestUtils {
         return payload;
     }
 
+    private static final class DefaultHeaders {
+        final MobileEngageConfig config;
+        final Map<String, String> headers;
+
+        DefaultHeaders(MobileEngageConfig config, Map<String, String> headers) {
+            this.config = config;
+            this.headers = headers;
+        }
+    }
+
 }
@@ -0,0 +1,50 @@
+package com.emarsys.mobileengage.util;
+
+import com.emarsys.core.util.Assert;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+public class SerialExecutor implements Executor {
+
+    final Executor delegate;
+    private final Queue<Runnable> tasks = new ArrayDeque<>();
+    private Runnable active;
+
+    public SerialExecutor(Executor delegate) {
+        Assert.notNull(delegate, "Delegate must not be null!");
+        this.delegate = delegate;
+    }
+
+    @Override
+    public synchronized void execute(final Runnable command) {
+        Assert.notNull(command, "Command must not be null!");
+        tasks.offer(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    command.run();
+                } finally {
+                    scheduleNext();
+                }
+            }
+        });
+        if (active == null) {
+            scheduleNext();
+        }
+    }
+
+    private synchronized void scheduleNext() {
+        active = tasks.poll();
+        if (active != null) {
+            try {
+                delegate.execute(active);
+            } catch (RejectedExecutionException e) {
+                active = null;
+                throw e;
+            }
+        }
+    }
+}